@@ -0,0 +1,75 @@
+package game;
+
+/**
+ * One benchmark run by Benchmarks; setUp() is called once before the warm up,
+ * then operation() is called as many times as fit in each iteration (with
+ * reset() called between the measured batches whenever needsReset() is true)
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+abstract class Benchmark
+{
+	private String name;
+
+	/**
+	 * Creates a Benchmark
+	 * @param name The name shown in the results (and matched by
+	 *            -Dbench.filter)
+	 */
+	Benchmark(String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * Getter for the name of the Benchmark
+	 * @return The name
+	 */
+	String getName()
+	{
+		return this.name;
+	}
+
+	/**
+	 * Prepares everything operation() needs
+	 * @throws Exception If the Benchmark can't be run
+	 */
+	void setUp() throws Exception
+	{
+	}
+
+	/**
+	 * The code being measured
+	 * @return A value depending on the work done (so the JIT compiler can't
+	 *         remove it)
+	 * @throws Exception If the Benchmark fails
+	 */
+	abstract long operation() throws Exception;
+
+	/**
+	 * Checks if the state used by operation() has to be set up again (for
+	 * example a level that is about to end)
+	 * @return Whether or not reset() should be called
+	 */
+	boolean needsReset()
+	{
+		return false;
+	}
+
+	/**
+	 * Sets up the state used by operation() again (not measured)
+	 * @throws Exception If the Benchmark can't be run
+	 */
+	void reset() throws Exception
+	{
+	}
+
+	/**
+	 * Releases anything setUp() created
+	 */
+	void tearDown()
+	{
+	}
+}
@@ -0,0 +1,513 @@
+package game;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the parts of the game that run every tick or every level: loading
+ * levels, moving and checking around the Robot, whole ticks, painting the
+ * GamePanel and creating Square objects, for the shipped levels and for
+ * generated levels of different sizes and numbers of enemies
+ *
+ * Run from the folder holding the level files (java game.Benchmarks) with
+ * these optional settings:
+ * -Dbench.filter=regex Only runs benchmarks whose name contains a match
+ * -Dbench.warmup=3 Number of warm up iterations (not recorded)
+ * -Dbench.iterations=5 Number of measured iterations
+ * -Dbench.time=500 Length of each iteration in milliseconds
+ * -Dbench.sizes=24,128,512,1024 Sizes of the generated levels
+ * -Dbench.densities=0,1,5,20 Percent of generated squares holding an Enemy
+ * -Dbench.output=file Also writes the results to the given file
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class Benchmarks
+{
+	// Number of operations between checks of the clock (and of needsReset())
+	private static final int BATCH = 16;
+
+	// Ticks played on a level before it is loaded again (well before the
+	// time runs out, so every measured tick is a full one)
+	private static final int TICKS_PER_GAME = 2000;
+
+	private static final int PANEL_SIZE = 720;
+
+	// Keeps the results of every operation so none can be removed
+	private static long sink;
+
+	/**
+	 * Runs every benchmark matching -Dbench.filter
+	 * @param args Not used
+	 * @throws Exception If a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		Pattern filter = Pattern.compile(System.getProperty("bench.filter",
+				""));
+		int warmup = Integer.getInteger("bench.warmup", 3);
+		int iterations = Integer.getInteger("bench.iterations", 5);
+		long time = Integer.getInteger("bench.time", 500) * 1000000L;
+		String output = System.getProperty("bench.output");
+
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		addLevelBenchmarks(benchmarks);
+		for (String size : System.getProperty("bench.sizes",
+				"24,128,512,1024").split(","))
+			for (String density : System.getProperty("bench.densities",
+					"0,1,5,20").split(","))
+				addGeneratedBenchmarks(benchmarks,
+						Integer.parseInt(size.trim()),
+						Integer.parseInt(density.trim()));
+
+		List<String> results = new ArrayList<String>();
+		String header = String.format(Locale.ROOT, "%-32s %14s %13s %14s %14s",
+				"Benchmark", "ns/op", "error", "min", "max");
+		System.out.println(header);
+		results.add(header);
+		for (Benchmark benchmark : benchmarks)
+		{
+			if (!filter.matcher(benchmark.getName()).find())
+				continue;
+			String result = run(benchmark, warmup, iterations, time);
+			System.out.println(result);
+			results.add(result);
+		}
+		Log.flush();
+
+		if (output != null)
+		{
+			PrintWriter out = new PrintWriter(new BufferedWriter(
+					new FileWriter(output)));
+			try
+			{
+				for (String result : results)
+					out.println(result);
+			}
+			finally
+			{
+				out.close();
+			}
+		}
+		if (sink == 42)
+			System.out.println();
+	}
+
+	/**
+	 * Runs one benchmark
+	 * @param benchmark The benchmark
+	 * @param warmup The number of warm up iterations
+	 * @param iterations The number of measured iterations
+	 * @param time The length of each iteration in nanoseconds
+	 * @return The results in one line
+	 * @throws Exception If the benchmark fails
+	 */
+	private static String run(Benchmark benchmark, int warmup,
+			int iterations, long time) throws Exception
+	{
+		double[] scores = new double[iterations];
+		benchmark.setUp();
+		try
+		{
+			for (int iteration = 0; iteration < warmup; iteration++)
+				iteration(benchmark, time);
+			for (int iteration = 0; iteration < iterations; iteration++)
+				scores[iteration] = iteration(benchmark, time);
+		}
+		finally
+		{
+			benchmark.tearDown();
+		}
+
+		double mean = 0;
+		double min = Double.MAX_VALUE;
+		double max = 0;
+		for (int iteration = 0; iteration < iterations; iteration++)
+		{
+			mean += scores[iteration];
+			min = Math.min(min, scores[iteration]);
+			max = Math.max(max, scores[iteration]);
+		}
+		mean /= iterations;
+		double variance = 0;
+		for (int iteration = 0; iteration < iterations; iteration++)
+			variance += (scores[iteration] - mean)
+					* (scores[iteration] - mean);
+		double error = iterations > 1 ? Math.sqrt(variance
+				/ (iterations - 1)) : 0;
+		return String.format(Locale.ROOT,
+				"%-32s %14.1f %s %10.1f %14.1f %14.1f", benchmark.getName(),
+				mean, "+-", error, min, max);
+	}
+
+	/**
+	 * Calls operation() until the given time has been spent in it
+	 * @param benchmark The benchmark
+	 * @param time The time to spend in nanoseconds
+	 * @return The average time of one operation in nanoseconds
+	 * @throws Exception If the benchmark fails
+	 */
+	private static double iteration(Benchmark benchmark, long time)
+			throws Exception
+	{
+		long spent = 0;
+		long operations = 0;
+		long result = 0;
+		while (spent < time)
+		{
+			if (benchmark.needsReset())
+				benchmark.reset();
+			long start = System.nanoTime();
+			for (int operation = 0; operation < BATCH; operation++)
+				result += benchmark.operation();
+			spent += System.nanoTime() - start;
+			operations += BATCH;
+		}
+		sink += result;
+		return (double) spent / operations;
+	}
+
+	/**
+	 * Adds the benchmarks for every shipped level that loads (LevelN.rbcq)
+	 * @param benchmarks The list to add the benchmarks to
+	 * @throws IOException If a level file can't be read
+	 */
+	private static void addLevelBenchmarks(List<Benchmark> benchmarks)
+			throws IOException
+	{
+		LevelParser parser = new LevelParser(Integer.MAX_VALUE);
+		for (int level = 1;; level++)
+		{
+			final String name = "Level" + level;
+			final File file = new File(name + ".rbcq");
+			if (!file.exists())
+				return;
+			if (!parser.parse(file).isValid())
+			{
+				Log.warn("Skipping {}, which doesn't load", name);
+				continue;
+			}
+			final int number = level;
+
+			benchmarks.add(new Benchmark("loadGrid[" + name + "]")
+			{
+				long operation() throws IOException
+				{
+					return load(file);
+				}
+			});
+			benchmarks.add(new Benchmark("loadTemplate[" + name + "]")
+			{
+				private LevelTemplate template;
+
+				void setUp() throws IOException
+				{
+					GameEngine engine = new GameEngine(1000, 20);
+					engine.loadGrid(file.getPath());
+					this.template = engine.getTemplate();
+					engine.close();
+				}
+
+				long operation()
+				{
+					GameEngine engine = new GameEngine(1000, 20);
+					engine.loadGrid(this.template);
+					engine.close();
+					return engine.getRequiredKeys();
+				}
+			});
+			benchmarks.add(new Benchmark("paint[" + name + "]")
+			{
+				private GameEngine engine;
+				private GamePanel panel;
+				private Graphics graphics;
+
+				void setUp() throws IOException
+				{
+					this.engine = new GameEngine(1000, 20);
+					this.engine.loadGrid(file.getPath());
+					this.panel = new GamePanel(null);
+					this.panel.addGameData(this.engine, new StatusBar(null,
+							this.panel), number);
+					this.graphics = new BufferedImage(PANEL_SIZE, PANEL_SIZE,
+							BufferedImage.TYPE_INT_RGB).getGraphics();
+				}
+
+				long operation()
+				{
+					this.panel.paintComponent(this.graphics);
+					return 1;
+				}
+
+				void tearDown()
+				{
+					this.graphics.dispose();
+					this.engine.close();
+				}
+			});
+			benchmarks.add(new SquareBenchmark("square[" + name + "]", file));
+			benchmarks.add(new Benchmark("findPath[" + name + "]")
+			{
+				private GameEngine engine;
+				private Solver solver;
+
+				void setUp() throws IOException
+				{
+					this.engine = new GameEngine(1000, 20);
+					this.engine.loadGrid(file.getPath());
+					this.solver = new Solver(this.engine);
+				}
+
+				long operation()
+				{
+					int[] path = this.solver.findPath();
+					return path == null ? 0 : path.length;
+				}
+
+				void tearDown()
+				{
+					this.engine.close();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Adds the benchmarks for a generated level
+	 * @param benchmarks The list to add the benchmarks to
+	 * @param size The number of rows and columns in the level
+	 * @param density The percent of squares holding an Enemy
+	 * @throws IOException If the level file can't be written
+	 */
+	private static void addGeneratedBenchmarks(List<Benchmark> benchmarks,
+			int size, int density) throws IOException
+	{
+		final File file = generateLevel(size, density);
+		String name = "[" + size + "," + density + "%]";
+
+		benchmarks.add(new Benchmark("loadGrid" + name)
+		{
+			long operation() throws IOException
+			{
+				return load(file);
+			}
+		});
+		benchmarks.add(new EngineBenchmark("move" + name, file)
+		{
+			private InputFrame right = input(InputFrame.RIGHT);
+			private InputFrame left = input(InputFrame.LEFT);
+			private boolean goingRight;
+
+			long operation()
+			{
+				this.goingRight = !this.goingRight;
+				this.engine.move(this.goingRight ? this.right : this.left);
+				return this.engine.getRobot().getLocation().column;
+			}
+		});
+		benchmarks.add(new EngineBenchmark("checkMove" + name, file)
+		{
+			long operation()
+			{
+				return this.engine.checkMove() ? 1 : 0;
+			}
+		});
+		benchmarks.add(new EngineBenchmark("tick" + name, file)
+		{
+			private InputFrame input = new InputFrame();
+			private int[] directions = { InputFrame.RIGHT, InputFrame.DOWN,
+					InputFrame.LEFT, InputFrame.UP };
+
+			long operation()
+			{
+				long tick = this.engine.getTick();
+				this.input.clear();
+				this.input.setKey(this.directions[(int) (tick / 140) % 4],
+						true);
+				this.input.attack();
+				this.engine.step(this.input);
+				return this.engine.getRobot().getLocation().row;
+			}
+
+			boolean needsReset()
+			{
+				return this.engine.isOver()
+						|| this.engine.getTick() + BATCH > TICKS_PER_GAME;
+			}
+		});
+		benchmarks.add(new SquareBenchmark("square" + name, file));
+	}
+
+	/**
+	 * Loads the given level into a new GameEngine
+	 * @param file The level file
+	 * @return The number of keys in the level
+	 * @throws IOException If the level can't be read
+	 */
+	private static long load(File file) throws IOException
+	{
+		GameEngine engine = new GameEngine(1000, 20);
+		if (!engine.loadGrid(file.getPath()))
+			throw new IOException(file + " didn't load");
+		engine.close();
+		return engine.getRequiredKeys();
+	}
+
+	/**
+	 * Creates an InputFrame with one key held down
+	 * @param key The key
+	 * @return The InputFrame
+	 */
+	private static InputFrame input(int key)
+	{
+		InputFrame input = new InputFrame();
+		input.setKey(key, true);
+		return input;
+	}
+
+	/**
+	 * Writes a square level with a wall around it, the start in the top left
+	 * corner, the exit in the bottom right corner and (always the same)
+	 * random walls, items and enemies in between
+	 * @param size The number of rows and columns
+	 * @param density The percent of squares holding an Enemy
+	 * @return The level file (deleted when the program ends)
+	 * @throws IOException If the file can't be written
+	 */
+	static File generateLevel(int size, int density) throws IOException
+	{
+		Random random = new Random(size * 101 + density);
+		File file = File.createTempFile("bench" + size + "_" + density,
+				".rbcq");
+		file.deleteOnExit();
+		BufferedWriter out = new BufferedWriter(new FileWriter(file));
+		try
+		{
+			out.write(size + " " + size);
+			out.newLine();
+			char[] line = new char[size];
+			for (int row = 0; row < size; row++)
+			{
+				for (int column = 0; column < size; column++)
+				{
+					int roll = random.nextInt(1000);
+					if (row == 0 || column == 0 || row == size - 1
+							|| column == size - 1)
+						line[column] = Game.WALL;
+					else if (row == 1 && column == 1)
+						line[column] = Game.START;
+					else if (row == 1 && column == 2)
+						line[column] = Game.OPEN;
+					else if (row == size - 2 && column == size - 2)
+						line[column] = Game.END;
+					else if (row == size - 2 && column == 1)
+						line[column] = Game.KEY;
+					else if (roll < density * 10)
+						line[column] = roll % 4 == 0 ? Game.HIDDEN_ENEMY
+								: Game.ENEMY;
+					else if (roll < density * 10 + 20)
+						line[column] = roll % 2 == 0 ? Game.HEALTH_BOOST
+								: Game.DAMAGE_BOOST;
+					else if (roll < density * 10 + 120)
+						line[column] = Game.WALL;
+					else
+						line[column] = Game.OPEN;
+				}
+				out.write(line);
+				out.newLine();
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+		return file;
+	}
+
+	/**
+	 * A benchmark using a GameEngine playing a level (loaded again by
+	 * reset())
+	 */
+	private abstract static class EngineBenchmark extends Benchmark
+	{
+		protected File file;
+		protected GameEngine engine;
+		private LevelTemplate template;
+
+		/**
+		 * Creates an EngineBenchmark
+		 * @param name The name of the benchmark
+		 * @param file The level file
+		 */
+		EngineBenchmark(String name, File file)
+		{
+			super(name);
+			this.file = file;
+		}
+
+		void setUp() throws IOException
+		{
+			this.reset();
+			this.template = this.engine.getTemplate();
+		}
+
+		void reset() throws IOException
+		{
+			if (this.engine != null)
+				this.engine.close();
+			// Robot strong enough to play until the time runs out
+			this.engine = new GameEngine(1000000, 100000);
+			if (this.template != null)
+				this.engine.loadGrid(this.template);
+			else if (!this.engine.loadGrid(this.file.getPath()))
+				throw new IOException(this.file + " didn't load");
+		}
+
+		void tearDown()
+		{
+			this.engine.close();
+		}
+	}
+
+	/**
+	 * Creates a Square for each square of a level in turn
+	 */
+	private static class SquareBenchmark extends EngineBenchmark
+	{
+		private int row;
+		private int column;
+
+		/**
+		 * Creates a SquareBenchmark
+		 * @param name The name of the benchmark
+		 * @param file The level file
+		 */
+		SquareBenchmark(String name, File file)
+		{
+			super(name, file);
+		}
+
+		long operation()
+		{
+			Grid grid = this.engine.getGrid();
+			if (++this.column == grid.getColumns())
+			{
+				this.column = 0;
+				if (++this.row == grid.getRows())
+					this.row = 0;
+			}
+			return grid.getSquare(this.row, this.column).getOverlay();
+		}
+	}
+}
@@ -0,0 +1,316 @@
+package game;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Decodes every image file once for the whole program and hands out the same
+ * (display compatible) BufferedImage to every JPanel that needs it, so starting
+ * a level, retrying or returning to the menu doesn't read any files; Images can
+ * also be decoded ahead of time in parallel with preload(), in which case
+ * getImage() only waits for the image it asked for
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class AssetCache
+{
+	private static HashMap<String, BufferedImage> images = new HashMap<String, BufferedImage>();
+	private static HashMap<String, SoftReference<BufferedImage>> softImages = new HashMap<String, SoftReference<BufferedImage>>();
+	private static HashMap<String, Future<BufferedImage>> pending = new HashMap<String, Future<BufferedImage>>();
+	private static boolean useSoftReferences = false;
+	private static int hits;
+	private static int misses;
+	private static ExecutorService executor;
+	private static final int MAX_THREADS = 4;
+
+	/*
+	 * Private constructor, only static methods are used
+	 */
+	private AssetCache()
+	{
+	}
+
+	/**
+	 * Returns the image stored in the given file, decoding it only the first
+	 * time it is requested (or after it was evicted)
+	 * @param fileName The image file to load
+	 * @return The shared image
+	 * @throws IOException If the file cannot be read
+	 */
+	public static BufferedImage getImage(String fileName) throws IOException
+	{
+		Future<BufferedImage> future;
+		FutureTask<BufferedImage> task = null;
+		synchronized (AssetCache.class)
+		{
+			BufferedImage image = getLoaded(fileName);
+			if (image != null)
+			{
+				hits++;
+				return image;
+			}
+
+			// Wait for a preload (or another thread) already decoding the file
+			future = pending.get(fileName);
+			if (future != null)
+				hits++;
+			else
+			{
+				task = decodeTask(fileName);
+				future = task;
+				pending.put(fileName, future);
+			}
+		}
+
+		// Decode outside of the lock so other images can still be requested
+		if (task != null)
+			task.run();
+		return finish(fileName, future);
+	}
+
+	/**
+	 * Starts decoding the given files in parallel on a bounded number of
+	 * background threads (in the given order); Files already loaded or being
+	 * loaded are skipped
+	 * @param fileNames The image files to load
+	 */
+	public static synchronized void preload(String... fileNames)
+	{
+		if (executor == null)
+		{
+			int threads = Math.min(MAX_THREADS, Runtime.getRuntime()
+					.availableProcessors());
+			executor = Executors.newFixedThreadPool(Math.max(threads, 1),
+					new ThreadFactory()
+					{
+						public Thread newThread(Runnable runnable)
+						{
+							Thread thread = new Thread(runnable, "AssetCache");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		}
+		for (String fileName : fileNames)
+		{
+			if (getLoaded(fileName) == null && !pending.containsKey(fileName))
+			{
+				FutureTask<BufferedImage> task = decodeTask(fileName);
+				pending.put(fileName, task);
+				executor.execute(task);
+			}
+		}
+	}
+
+	/**
+	 * Returns the given image if it is already stored
+	 * @param fileName The image file
+	 * @return The stored image (null if it isn't stored)
+	 */
+	private static BufferedImage getLoaded(String fileName)
+	{
+		BufferedImage image = images.get(fileName);
+		if (image == null)
+		{
+			SoftReference<BufferedImage> reference = softImages.get(fileName);
+			if (reference != null)
+				image = reference.get();
+		}
+		return image;
+	}
+
+	/**
+	 * Creates a task that decodes the given file
+	 * @param fileName The image file
+	 * @return The (not yet started) task
+	 */
+	private static FutureTask<BufferedImage> decodeTask(final String fileName)
+	{
+		return new FutureTask<BufferedImage>(new Callable<BufferedImage>()
+		{
+			public BufferedImage call() throws IOException
+			{
+				return decode(fileName);
+			}
+		});
+	}
+
+	/**
+	 * Waits for the given decode to finish and stores its image
+	 * @param fileName The image file
+	 * @param future The decode of the file
+	 * @return The decoded image
+	 * @throws IOException If the file couldn't be read
+	 */
+	private static BufferedImage finish(String fileName,
+			Future<BufferedImage> future) throws IOException
+	{
+		BufferedImage image;
+		try
+		{
+			image = future.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted loading " + fileName, e);
+		}
+		catch (ExecutionException e)
+		{
+			synchronized (AssetCache.class)
+			{
+				if (pending.get(fileName) == future)
+					pending.remove(fileName);
+			}
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException("Loading " + fileName, e.getCause());
+		}
+
+		synchronized (AssetCache.class)
+		{
+			if (pending.get(fileName) == future)
+			{
+				pending.remove(fileName);
+				put(fileName, image);
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * Reads and converts the given file (called without holding the lock)
+	 * @param fileName The image file
+	 * @return The display compatible image
+	 * @throws IOException If the file couldn't be read
+	 */
+	private static BufferedImage decode(String fileName) throws IOException
+	{
+		synchronized (AssetCache.class)
+		{
+			misses++;
+		}
+		long start = System.nanoTime();
+		BufferedImage image = ImageIO.read(new File(fileName));
+		if (image == null)
+			throw new IOException("Unknown image format: " + fileName);
+		image = toCompatible(image);
+		Metrics.ASSET_LOAD.recordSince(start);
+		Recorder.commit(Recorder.ASSET_DECODE, start, image.getWidth(),
+				image.getHeight());
+		return image;
+	}
+
+	/**
+	 * Stores the given image (using a SoftReference if eviction is on)
+	 * @param fileName The file the image was loaded from
+	 * @param image The image to store
+	 */
+	private static void put(String fileName, BufferedImage image)
+	{
+		if (useSoftReferences)
+			softImages.put(fileName, new SoftReference<BufferedImage>(image));
+		else
+			images.put(fileName, image);
+	}
+
+	/**
+	 * Copies the given image into the format of the screen (if there is one)
+	 * so drawing it doesn't need a conversion every time
+	 * @param image The decoded image
+	 * @return A display compatible copy of the image
+	 */
+	private static BufferedImage toCompatible(BufferedImage image)
+	{
+		if (GraphicsEnvironment.isHeadless())
+			return image;
+		GraphicsConfiguration config = GraphicsEnvironment
+				.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+				.getDefaultConfiguration();
+		if (image.getColorModel().equals(
+				config.getColorModel(image.getTransparency())))
+			return image;
+
+		BufferedImage compatible = config.createCompatibleImage(
+				image.getWidth(), image.getHeight(), image.getTransparency());
+		Graphics2D g = compatible.createGraphics();
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return compatible;
+	}
+
+	/**
+	 * Turns soft reference eviction on or off; When on, the garbage collector
+	 * may clear images that aren't being used when memory runs low (they are
+	 * decoded again the next time they are requested)
+	 * @param soft Whether or not to use SoftReferences
+	 */
+	public static synchronized void setSoftReferences(boolean soft)
+	{
+		if (soft == useSoftReferences)
+			return;
+		useSoftReferences = soft;
+		if (soft)
+		{
+			for (String fileName : images.keySet())
+				softImages.put(fileName, new SoftReference<BufferedImage>(
+						images.get(fileName)));
+			images.clear();
+		}
+		else
+		{
+			for (String fileName : softImages.keySet())
+			{
+				BufferedImage image = softImages.get(fileName).get();
+				if (image != null)
+					images.put(fileName, image);
+			}
+			softImages.clear();
+		}
+	}
+
+	/**
+	 * Removes every image from the cache
+	 */
+	public static synchronized void clear()
+	{
+		images.clear();
+		softImages.clear();
+		pending.clear();
+	}
+
+	/**
+	 * Getter for the number of requests that didn't need a decode
+	 * @return The number of cache hits
+	 */
+	public static synchronized int getHits()
+	{
+		return hits;
+	}
+
+	/**
+	 * Getter for the number of requests that decoded a file
+	 * @return The number of cache misses
+	 */
+	public static synchronized int getMisses()
+	{
+		return misses;
+	}
+}
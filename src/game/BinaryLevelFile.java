@@ -0,0 +1,308 @@
+package game;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * A level stored in the binary format written by LevelConverter, read through
+ * a memory mapped FileChannel so nothing is parsed until a Chunk is needed;
+ * The file is laid out as:
+ *
+ * <pre>
+ * header   magic, version, columns, rows, keys, start, exit, table size and
+ *          the CRC32 of everything after the header
+ * table    the index (int) and type (byte) of every Item and Enemy
+ * offsets  where each Chunk starts in the squares (int, one more than the
+ *          number of Chunk objects)
+ * squares  each Chunk's squares in row major order as (count, square) runs
+ * </pre>
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class BinaryLevelFile implements LevelSource
+{
+	public static final int MAGIC = 0x52424342; // "RBCB"
+	public static final short VERSION = 1;
+	public static final int HEADER_SIZE = 36;
+
+	// The size of each entry in the Item and Enemy table
+	public static final int ENTRY_SIZE = 5;
+
+	// The offset of the checksum in the header
+	private static final int CHECKSUM = HEADER_SIZE - 4;
+
+	private RandomAccessFile file;
+	private MappedByteBuffer buffer;
+	private int rows;
+	private int columns;
+	private int chunkColumns;
+	private int keys;
+	private int start;
+	private int exit;
+	private int tableSize;
+	private int offsets;
+	private int squares;
+
+	/**
+	 * Maps the given level file and checks its header and checksum
+	 * @param file The level file
+	 * @throws IOException If the file can't be read or is corrupted
+	 */
+	public BinaryLevelFile(File file) throws IOException
+	{
+		this.file = new RandomAccessFile(file, "r");
+		try
+		{
+			FileChannel channel = this.file.getChannel();
+			if (channel.size() < HEADER_SIZE
+					|| channel.size() > Integer.MAX_VALUE)
+				throw new IOException("File Corupted, bad size: "
+						+ channel.size());
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+			this.readHeader();
+		}
+		catch (IOException e)
+		{
+			this.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the header and checks that the rest of the file matches it
+	 * @throws IOException If the file is corrupted
+	 */
+	private void readHeader() throws IOException
+	{
+		ByteBuffer header = this.buffer;
+		if (header.getInt(0) != MAGIC)
+			throw new IOException("File Corupted, not a binary level");
+		if (header.getShort(4) != VERSION)
+			throw new IOException("Unsupported binary level version "
+					+ header.getShort(4));
+		this.columns = header.getInt(8);
+		this.rows = header.getInt(12);
+		this.keys = header.getInt(16);
+		this.start = header.getInt(20);
+		this.exit = header.getInt(24);
+		this.tableSize = header.getInt(28);
+		if (!Grid.isValidSize(this.rows, this.columns))
+			throw new IOException("File Corupted, bad level size: "
+					+ this.columns + " " + this.rows);
+		this.chunkColumns = (this.columns + Chunk.CHUNK_MASK)
+				>> Chunk.CHUNK_SHIFT;
+
+		// The start and exit are -1 if the level doesn't have them
+		int size = this.rows * this.columns;
+		if (this.start < -1 || this.start >= size || this.exit < -1
+				|| this.exit >= size)
+			throw new IOException("File Corupted, start or exit outside the "
+					+ "level");
+
+		// The table and offsets have to fit before the squares
+		long offsets = HEADER_SIZE + (long) this.tableSize * ENTRY_SIZE;
+		long squares = offsets + 4L
+				* (Grid.getNoOfChunks(this.rows, this.columns) + 1);
+		if (this.tableSize < 0 || squares > this.buffer.capacity())
+			throw new IOException("File Corupted, table doesn't fit");
+		this.offsets = (int) offsets;
+		this.squares = (int) squares;
+
+		CRC32 crc = new CRC32();
+		ByteBuffer body = this.buffer.duplicate();
+		body.position(HEADER_SIZE);
+		byte[] block = new byte[1 << 16];
+		while (body.hasRemaining())
+		{
+			int length = Math.min(block.length, body.remaining());
+			body.get(block, 0, length);
+			crc.update(block, 0, length);
+		}
+		if ((int) crc.getValue() != header.getInt(CHECKSUM))
+			throw new IOException("File Corupted, checksum doesn't match");
+
+		// Every Item and Enemy has to be inside the level
+		for (int entry = 0; entry < this.tableSize; entry++)
+		{
+			int cell = this.getTableCell(entry);
+			if (cell < 0 || cell >= size)
+				throw new IOException("File Corupted, table entry " + entry
+						+ " is outside the level");
+		}
+	}
+
+	/**
+	 * Checks whether the given file starts like a binary level
+	 * @param file The file to check
+	 * @return Whether the file is a binary level
+	 */
+	public static boolean isBinary(File file)
+	{
+		if (file.length() < HEADER_SIZE)
+			return false;
+		try
+		{
+			RandomAccessFile in = new RandomAccessFile(file, "r");
+			try
+			{
+				return in.readInt() == MAGIC;
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Reads the squares of one Chunk (see LevelSource) by expanding its runs
+	 * @param chunkRow The row of the Chunk
+	 * @param chunkColumn The column of the Chunk
+	 * @param squares The array to read the squares into
+	 * @throws IOException If the runs don't match the size of the Chunk
+	 */
+	public void readChunk(int chunkRow, int chunkColumn, byte[] squares)
+			throws IOException
+	{
+		int chunk = chunkRow * this.chunkColumns + chunkColumn;
+		int position = this.squares
+				+ this.buffer.getInt(this.offsets + chunk * 4);
+		int end = this.squares
+				+ this.buffer.getInt(this.offsets + chunk * 4 + 4);
+		int height = Math.min(Chunk.CHUNK_WIDTH, this.rows
+				- (chunkRow << Chunk.CHUNK_SHIFT));
+		int width = Math.min(Chunk.CHUNK_WIDTH, this.columns
+				- (chunkColumn << Chunk.CHUNK_SHIFT));
+		if (position < this.squares || end > this.buffer.capacity()
+				|| position > end)
+			throw new IOException("File Corupted, bad offset for chunk "
+					+ chunk);
+
+		// The runs cover the squares inside the level one row after another
+		int row = 0;
+		int column = 0;
+		while (row < height)
+		{
+			if (position + 2 > end)
+				throw new IOException("File Corupted, chunk " + chunk
+						+ " is too short");
+			int count = this.buffer.get(position) & 0xFF;
+			byte square = this.buffer.get(position + 1);
+			position += 2;
+			while (count-- > 0)
+			{
+				if (row == height)
+					throw new IOException("File Corupted, chunk " + chunk
+							+ " is too long");
+				squares[(row << Chunk.CHUNK_SHIFT) | column] = square;
+				if (++column == width)
+				{
+					column = 0;
+					row++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Getter for the number of rows
+	 * @return The number of rows
+	 */
+	public int getRows()
+	{
+		return this.rows;
+	}
+
+	/**
+	 * Getter for the number of columns
+	 * @return The number of columns
+	 */
+	public int getColumns()
+	{
+		return this.columns;
+	}
+
+	/**
+	 * Getter for the number of keys in the level
+	 * @return The number of keys
+	 */
+	public int getKeys()
+	{
+		return this.keys;
+	}
+
+	/**
+	 * Getter for the index of the start square
+	 * @return The index of the start square (-1 if there isn't one)
+	 */
+	public int getStart()
+	{
+		return this.start;
+	}
+
+	/**
+	 * Getter for the index of the exit square
+	 * @return The index of the exit square (-1 if there isn't one)
+	 */
+	public int getExit()
+	{
+		return this.exit;
+	}
+
+	/**
+	 * Getter for the number of Item and Enemy objects in the table
+	 * @return The number of entries in the table
+	 */
+	public int getTableSize()
+	{
+		return this.tableSize;
+	}
+
+	/**
+	 * Returns the index of the square of an entry in the table (checked to be
+	 * inside the level when the file was opened)
+	 * @param entry The entry in the table
+	 * @return The index of the square
+	 */
+	public int getTableCell(int entry)
+	{
+		return this.buffer.getInt(HEADER_SIZE + entry * ENTRY_SIZE);
+	}
+
+	/**
+	 * Returns the type of an entry in the table
+	 * @param entry The entry in the table
+	 * @return The constant representation (Game class) of the Item or Enemy
+	 */
+	public char getTableType(int entry)
+	{
+		return (char) this.buffer.get(HEADER_SIZE + entry * ENTRY_SIZE + 4);
+	}
+
+	/**
+	 * Closes the file (the mapping is released once it is garbage collected)
+	 */
+	public void close()
+	{
+		try
+		{
+			this.file.close();
+		}
+		catch (IOException e)
+		{
+			Log.warn("Closing a binary level: {}", e);
+		}
+	}
+}
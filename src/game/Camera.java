@@ -0,0 +1,91 @@
+package game;
+
+/**
+ * The part of the level shown in the game play area; Follows the Robot by
+ * keeping it in the centre of the view, without going past the edges of the
+ * level
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class Camera
+{
+	private int width;
+	private int height;
+	private int levelWidth;
+	private int levelHeight;
+	private int x;
+	private int y;
+
+	/**
+	 * Creates a Camera looking at the top left corner of the level
+	 * @param width The width of the view (in pixels)
+	 * @param height The height of the view (in pixels)
+	 * @param levelWidth The width of the whole level (in pixels)
+	 * @param levelHeight The height of the whole level (in pixels)
+	 */
+	public Camera(int width, int height, int levelWidth, int levelHeight)
+	{
+		this.width = width;
+		this.height = height;
+		this.levelWidth = levelWidth;
+		this.levelHeight = levelHeight;
+	}
+
+	/**
+	 * Moves the view so the given point is in its centre (or as close as the
+	 * edges of the level allow)
+	 * @param centreX The x coordinate in the level
+	 * @param centreY The y coordinate in the level
+	 * @return Whether or not the view moved
+	 */
+	public boolean centreOn(int centreX, int centreY)
+	{
+		int newX = Math.max(0, Math.min(centreX - this.width / 2,
+				this.levelWidth - this.width));
+		int newY = Math.max(0, Math.min(centreY - this.height / 2,
+				this.levelHeight - this.height));
+		if (newX == this.x && newY == this.y)
+			return false;
+		this.x = newX;
+		this.y = newY;
+		return true;
+	}
+
+	/**
+	 * Getter for the x coordinate of the left edge of the view
+	 * @return The x coordinate in the level
+	 */
+	public int getX()
+	{
+		return this.x;
+	}
+
+	/**
+	 * Getter for the y coordinate of the top edge of the view
+	 * @return The y coordinate in the level
+	 */
+	public int getY()
+	{
+		return this.y;
+	}
+
+	/**
+	 * Getter for the width of the view
+	 * @return The width (in pixels)
+	 */
+	public int getWidth()
+	{
+		return this.width;
+	}
+
+	/**
+	 * Getter for the height of the view
+	 * @return The height (in pixels)
+	 */
+	public int getHeight()
+	{
+		return this.height;
+	}
+}
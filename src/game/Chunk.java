@@ -0,0 +1,58 @@
+package game;
+
+/**
+ * The squares of one CHUNK_WIDTH by CHUNK_WIDTH block of a Grid, stored as
+ * parallel primitive arrays (indexed by row * CHUNK_WIDTH + column inside the
+ * block)
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+class Chunk
+{
+	static final int CHUNK_SHIFT = 5;
+	static final int CHUNK_WIDTH = 1 << CHUNK_SHIFT;
+	static final int CHUNK_MASK = CHUNK_WIDTH - 1;
+	static final int CHUNK_AREA = CHUNK_WIDTH * CHUNK_WIDTH;
+
+	final int index;
+	final byte[] overlay;
+	final short[] imageRef;
+	final byte[] flags;
+
+	// Whether any square changed since the Chunk was loaded
+	boolean modified;
+
+	// The Grid's use counter when the Chunk was last used (for LRU eviction)
+	long lastUsed;
+
+	// Whether the Chunk belongs to a LevelTemplate (and must be copied before
+	// it is changed)
+	boolean shared;
+
+	/**
+	 * Creates an empty Chunk
+	 * @param index The index of the Chunk in its Grid
+	 */
+	Chunk(int index)
+	{
+		this.index = index;
+		this.overlay = new byte[CHUNK_AREA];
+		this.imageRef = new short[CHUNK_AREA];
+		this.flags = new byte[CHUNK_AREA];
+	}
+
+	/**
+	 * Creates a copy of the given Chunk that can be changed
+	 * @param chunk The Chunk to copy
+	 */
+	Chunk(Chunk chunk)
+	{
+		this.index = chunk.index;
+		this.overlay = chunk.overlay.clone();
+		this.imageRef = chunk.imageRef.clone();
+		this.flags = chunk.flags.clone();
+		this.lastUsed = chunk.lastUsed;
+	}
+}
@@ -25,6 +25,12 @@ public class Direction
 	private static String[] directions = { "North", "North-East", "East",
 			"South-East", "South", "South-West", "West", "North-West" };
 
+	/**
+	 * The Direction constants in order of their number values
+	 */
+	private static final Direction[] byNumber = { NORTH, NORTH_EAST, EAST,
+			SOUTH_EAST, SOUTH, SOUTH_WEST, WEST, NORTH_WEST };
+
 	private int reference;
 
 	/*
@@ -44,6 +50,16 @@ public class Direction
 		return this.reference;
 	}
 
+	/**
+	 * Returns the Direction constant with the given number value
+	 * @param number The number value (0 to 7)
+	 * @return The Direction constant
+	 */
+	public static Direction fromNumber(int number)
+	{
+		return byNumber[number];
+	}
+
 	/**
 	 * Getter for the String value of the Direction constant
 	 * @return The String value of the current Direction constant
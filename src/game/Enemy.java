@@ -2,11 +2,6 @@ package game;
 
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.Image;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-
-import javax.swing.Timer;
 
 /**
  * The Enemy class An object that opposes the Robot object
@@ -15,50 +10,61 @@ import javax.swing.Timer;
  * @version January 2015
  *
  */
-public class Enemy implements ActionListener
+public class Enemy
 {
 	private boolean isHidden;
 	private int health, damage, tier;
 	private Location location;
-	private int healthPercentage;
-	Image image;
-	Game game;
-	GamePanel gamePanel;
-	private final int[] healthTiers = { 500, 150, 150 };
+	private int imageRef;
+	private GameEngine engine;
+	private static final int[] healthTiers = { 500, 150, 150 };
+
+	// The bits of getState() above the tier
+	private static final int HIDDEN = 1 << 2;
+	private static final int DISABLED = 1 << 3;
+	private static final int ENGAGED = 1 << 4;
+	private static final int ATTACKED = 1 << 5;
+	static final int SCHEDULED = 1 << 6;
 	private final int[] damageTiers = { 100, 50, 50 };
 	private boolean isDisabaled;
 	private Robot robot;
-	private Timer timer;
-	private final int delay = 1000;
+	private boolean isEngaged;
 	private boolean isAttacked;
-	private Square container;
+
+	// Used by EnemyScheduler to link the Enemy objects due in the same slot
+	long attackTick;
+	boolean isScheduled;
+	Enemy nextScheduled;
+	Enemy previousScheduled;
+	private Grid grid;
 
 	/**
 	 * Creates an Enemy object based on the tier 0 being a boss (highest
 	 * difficulty enemy) 1 being normal enemy 2 being a hidden enemy
 	 * @param type The type of enemy
+	 * @param engine The GameEngine the Enemy belongs to
+	 * @param location The position of the Enemy on the grid
+	 * @param grid The Grid the Enemy is in
 	 */
-	public Enemy(char type, Game game, Location location, GamePanel gamePanel,
-			Square container)
+	public Enemy(char type, GameEngine engine, Location location, Grid grid)
 	{
-		this.game = game;
-		this.gamePanel = gamePanel;
-		this.container = container;
+		this.engine = engine;
+		this.grid = grid;
 		this.location = new Location(location.row, location.column,
 				location.row * Game.SQUARE_WIDTH, location.column
 						* Game.SQUARE_WIDTH);
-		if (type == game.HIDDEN_ENEMY)
+		if (type == Game.HIDDEN_ENEMY)
 			this.tier = 2;
 		else
-			this.tier = (int) (type - game.BOSS);
+			this.tier = (int) (type - Game.BOSS);
 		
 		// Get the image based on the tier
 		if (this.tier == 2 || this.tier == 1)
-			this.image = this.gamePanel.getImage(11);
+			this.imageRef = 11;
 		else
-			this.image = this.gamePanel.getImage(10);
+			this.imageRef = 10;
 
-		this.health = this.healthTiers[this.tier];
+		this.health = healthTiers[this.tier];
 		this.damage = this.damageTiers[this.tier];
 
 		// Hides if it is a hidden enemy
@@ -67,68 +73,61 @@ public class Enemy implements ActionListener
 			this.isHidden = true;
 		}
 
-		// Cretae a timer for attacking the Robot
-		this.timer = new Timer(delay, this);
+		this.isEngaged = false;
 		this.isAttacked = false;
 	}
 
 	/**
-	 * Draws the Enemy object is it isn't hidden
-	 * @param g
+	 * Draws an Enemy and its health bar (from a FrameSnapshot, so nothing is
+	 * read from the Enemy object itself while it is being drawn)
+	 * @param g The Graphics object
+	 * @param atlas The TileAtlas holding the pre-scaled images
+	 * @param imageRef The image reference of the Enemy
+	 * @param x The x coordinate of the Enemy in the level
+	 * @param y The y coordinate of the Enemy in the level
+	 * @param healthPercentage The percentage of its starting health left
 	 */
-	public void draw(Graphics g)
+	public static void draw(Graphics g, TileAtlas atlas, int imageRef, int x,
+			int y, int healthPercentage)
 	{
-		// Draw the Enemy object if it isn't hidden
-		if (!this.isHidden)
-		{
-			g.drawImage(this.image, this.location.column * Game.SQUARE_WIDTH,
-					this.location.row
-							* Game.SQUARE_WIDTH,
-					Game.SQUARE_WIDTH, Game.SQUARE_WIDTH, this.game);
-
-			// Draw Health Bar
-			this.healthPercentage = (this.health * 100)
-					/ this.healthTiers[this.tier];
-			if (this.healthPercentage == 0 && this.health != 0)
-			{
-				this.healthPercentage = 1;
-			}
-
-			// Draw a health bar
-			g.setColor(Color.BLACK);
-			g.drawRect(this.location.x - 6, this.location.y - 6,
-					Game.SQUARE_WIDTH + 11, 11);
-			g.setColor(Color.RED);
-			g.fillRect(this.location.x - 5, this.location.y - 5,
-					Game.SQUARE_WIDTH + 10, 10);
-			g.setColor(Color.GREEN);
-			g.fillRect(
-					this.location.x - 5,
-					this.location.y - 5,
-					(int) ((this.healthPercentage / 100.0)
-							* Game.SQUARE_WIDTH + 10),
-					10);
-		}
+		atlas.drawTile(g, imageRef, x, y);
+
+		// Draw a health bar
+		g.setColor(Color.BLACK);
+		g.drawRect(x - 6, y - 6, Game.SQUARE_WIDTH + 11, 11);
+		g.setColor(Color.RED);
+		g.fillRect(x - 5, y - 5, Game.SQUARE_WIDTH + 10, 10);
+		g.setColor(Color.GREEN);
+		g.fillRect(x - 5, y - 5,
+				(int) ((healthPercentage / 100.0) * Game.SQUARE_WIDTH + 10),
+				10);
 	}
 
 	/**
-	 * Starts the Enemy object's Timer object (to attack Robot)
-	 * @param robot The robot to start attacking (using the Timer object)
+	 * Starts attacking the Robot once every GameEngine.ENEMY_ATTACK_DELAY ticks
+	 * (through the GameEngine's EnemyScheduler)
+	 * @param robot The robot to start attacking
 	 */
 	public void startBattle(Robot robot)
 	{
 		this.robot = robot;
-		timer.start();
+		if (!this.isEngaged)
+		{
+			this.changing();
+			this.isEngaged = true;
+			this.engine.scheduleAttack(this);
+		}
 	}
 
 	/**
-	 * "Deletes" this object by stopping the Timer
+	 * "Deletes" this object by no longer attacking and clearing its Square
 	 */
 	public void dispose()
 	{
-		if(this.timer.isRunning())
-			this.timer.stop();
-		this.container.enemyDefeated();
+		this.isEngaged = false;
+		this.grid.enemyDefeated(this.grid.index(this.location.row,
+				this.location.column));
+		this.engine.enemyDefeated(this);
 	}
 
 	/**
@@ -137,12 +136,13 @@ public class Enemy implements ActionListener
 	 */
 	public void loseHealth(int damage)
 	{
+		this.changing();
+
 		// "Delete" this object if the health is below 0
 		if (damage >= this.health)
 		{
 			this.health = 0;
 			this.isDisabaled = true;
-			this.gamePanel.setBattleState(false);
 			this.dispose();
 		}
 		// If not, reduce the health by the given damage parameter
@@ -152,8 +152,57 @@ public class Enemy implements ActionListener
 			this.robot.loseHealth(this.damage);
 			this.isAttacked = true;
 		}
-		// Tell the timer to not attack the robot this cycle
-		this.gamePanel.setAttackingState(false);
+	}
+
+	/**
+	 * Records the Enemy's state before it changes so the change can be undone
+	 * (see GameHistory); Also called by EnemyScheduler before it is removed
+	 * from the schedule
+	 */
+	void changing()
+	{
+		this.engine.enemyChanging(this.grid.index(this.location.row,
+				this.location.column), this);
+	}
+
+	/**
+	 * Returns the tier and flags of the Enemy packed into one number (for
+	 * GameHistory)
+	 * @return The tier in the low 2 bits and the hidden, disabled, engaged,
+	 *         attacked and scheduled flags above it
+	 */
+	int getState()
+	{
+		int state = this.tier;
+		if (this.isHidden)
+			state |= HIDDEN;
+		if (this.isDisabaled)
+			state |= DISABLED;
+		if (this.isEngaged)
+			state |= ENGAGED;
+		if (this.isAttacked)
+			state |= ATTACKED;
+		if (this.isScheduled)
+			state |= SCHEDULED;
+		return state;
+	}
+
+	/**
+	 * Puts the Enemy back the way it was on an earlier tick (its place in the
+	 * schedule is restored by the GameEngine)
+	 * @param health The health it had
+	 * @param state Its state from getState()
+	 * @param robot The Robot it attacks
+	 */
+	void restore(int health, int state, Robot robot)
+	{
+		this.health = health;
+		this.tier = state & 3;
+		this.isHidden = (state & HIDDEN) != 0;
+		this.isDisabaled = (state & DISABLED) != 0;
+		this.isEngaged = (state & ENGAGED) != 0;
+		this.isAttacked = (state & ATTACKED) != 0;
+		this.robot = robot;
 	}
 
 	/**
@@ -165,6 +214,40 @@ public class Enemy implements ActionListener
 		return this.health;
 	}
 
+	/**
+	 * Returns the percentage of its starting health the Enemy has left
+	 * @return The percentage (at least 1 unless the Enemy has no health)
+	 */
+	public int getHealthPercentage()
+	{
+		int healthPercentage = (this.health * 100) / healthTiers[this.tier];
+		if (healthPercentage == 0 && this.health != 0)
+			healthPercentage = 1;
+		return healthPercentage;
+	}
+
+	/**
+	 * Sets the health of the Enemy (used when it is loaded again after its
+	 * part of the level was evicted)
+	 * @param health The health the Enemy had
+	 */
+	void setHealth(int health)
+	{
+		this.health = health;
+	}
+
+	/**
+	 * Returns the health an Enemy of the given type starts with
+	 * @param type The type of enemy (Game class)
+	 * @return The starting health
+	 */
+	static int getStartingHealth(char type)
+	{
+		if (type == Game.HIDDEN_ENEMY)
+			return healthTiers[2];
+		return healthTiers[type - Game.BOSS];
+	}
+
 	/**
 	 * Getter for the damage variable
 	 * @return The current health of the Enemy object
@@ -200,6 +283,7 @@ public class Enemy implements ActionListener
 	{
 		if (this.isHidden)
 		{
+			this.changing();
 			this.tier--;
 			this.isHidden = false;
 		}
@@ -215,20 +299,53 @@ public class Enemy implements ActionListener
 	}
 
 	/**
-	 * ActionListener method to be called by the Timer object
+	 * Getter for the Location of the Enemy
+	 * @return The position of the Enemy on the grid
 	 */
-	public synchronized void actionPerformed(ActionEvent arg0)
+	public Location getLocation()
 	{
-		if (!this.isDisabaled)
+		return this.location;
+	}
+
+	/**
+	 * Getter for the image reference of the Enemy
+	 * @return The position of the Enemy's image in GamePanel's images
+	 */
+	public int getImageRef()
+	{
+		return this.imageRef;
+	}
+
+	/**
+	 * Getter for the isEngaged variable
+	 * @return Whether or not the Enemy is battling the Robot
+	 */
+	public boolean isEngaged()
+	{
+		return this.isEngaged && !this.isDisabaled;
+	}
+
+	/**
+	 * Called by the EnemyScheduler when this Enemy's attack is due
+	 * @return Whether or not the Robot was attacked
+	 */
+	boolean attack()
+	{
+		if (!this.isEngaged || this.isDisabaled)
+			return false;
+
+		// Attacks the robot if the current cycle isn't set to be ignored by
+		// the loseHealth() method
+		Log.trace("Entered attack in Enemy at: row: {}	Column: {}",
+				this.location.row, this.location.column);
+		if (!this.isAttacked)
 		{
-			// Attacks the robot if the current cycle isn't set to be ignored by
-			// the loseHealth() method
-			System.out.println("Entered ActionPerformed in Enemy at: row: "
-					+ this.location.row + "	Column: " + this.location.column);
-			if (!this.isAttacked)
-				this.robot.loseHealth(this.damage);
-			else
-				this.isAttacked = false;
+			this.robot.loseHealth(this.damage);
+			Recorder.commit(Recorder.ENEMY_ATTACK, System.nanoTime(),
+					this.damage, this.robot.getHealth());
+			return true;
 		}
+		this.isAttacked = false;
+		return false;
 	}
 }
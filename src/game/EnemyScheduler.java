@@ -0,0 +1,132 @@
+package game;
+
+/**
+ * Schedules the attacks of every engaged Enemy from the GameEngine's tick
+ * (replaces one Timer per Enemy); A hashed timing wheel whose slots are linked
+ * lists through the Enemy objects, so starting and stopping an Enemy is O(1)
+ * and each tick only looks at the Enemy objects due in its slot
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class EnemyScheduler
+{
+	// Must be a power of 2 so the slot can be found with a mask
+	private static final int NO_OF_SLOTS = 16;
+
+	private Enemy[] heads;
+	private Enemy[] tails;
+	private int size;
+	private int clears;
+
+	/**
+	 * Creates an empty EnemyScheduler
+	 */
+	public EnemyScheduler()
+	{
+		this.heads = new Enemy[NO_OF_SLOTS];
+		this.tails = new Enemy[NO_OF_SLOTS];
+		this.size = 0;
+	}
+
+	/**
+	 * Schedules the given Enemy to attack on the given tick; Enemy objects
+	 * due on the same tick attack in the order they were scheduled
+	 * @param enemy The Enemy to schedule (must not already be scheduled)
+	 * @param tick The tick to attack on
+	 */
+	public void schedule(Enemy enemy, long tick)
+	{
+		int slot = (int) (tick & (NO_OF_SLOTS - 1));
+		enemy.attackTick = tick;
+		enemy.isScheduled = true;
+		enemy.nextScheduled = null;
+		enemy.previousScheduled = this.tails[slot];
+		if (this.tails[slot] == null)
+			this.heads[slot] = enemy;
+		else
+			this.tails[slot].nextScheduled = enemy;
+		this.tails[slot] = enemy;
+		this.size++;
+	}
+
+	/**
+	 * Removes the given Enemy from the schedule (does nothing if it isn't
+	 * scheduled)
+	 * @param enemy The Enemy to remove
+	 */
+	public void cancel(Enemy enemy)
+	{
+		if (!enemy.isScheduled)
+			return;
+		enemy.changing();
+		int slot = (int) (enemy.attackTick & (NO_OF_SLOTS - 1));
+		if (enemy.previousScheduled == null)
+			this.heads[slot] = enemy.nextScheduled;
+		else
+			enemy.previousScheduled.nextScheduled = enemy.nextScheduled;
+		if (enemy.nextScheduled == null)
+			this.tails[slot] = enemy.previousScheduled;
+		else
+			enemy.nextScheduled.previousScheduled = enemy.previousScheduled;
+		enemy.nextScheduled = null;
+		enemy.previousScheduled = null;
+		enemy.isScheduled = false;
+		this.size--;
+	}
+
+	/**
+	 * Lets every Enemy due on the given tick attack and schedules its next
+	 * attack GameEngine.ENEMY_ATTACK_DELAY ticks later
+	 * @param tick The current tick
+	 * @return Whether or not the Robot was attacked
+	 */
+	public boolean advance(long tick)
+	{
+		boolean attacked = false;
+		int clears = this.clears;
+		Enemy enemy = this.heads[(int) (tick & (NO_OF_SLOTS - 1))];
+		while (enemy != null)
+		{
+			Enemy next = enemy.nextScheduled;
+			if (enemy.attackTick == tick)
+			{
+				this.cancel(enemy);
+				Metrics.ENEMY_ATTACKS.incrementAndGet();
+				if (enemy.attack())
+					attacked = true;
+
+				// Stop if the attack ended the level (and cleared the schedule)
+				if (clears != this.clears)
+					return attacked;
+				if (enemy.isEngaged())
+					this.schedule(enemy, tick + GameEngine.ENEMY_ATTACK_DELAY);
+			}
+			enemy = next;
+		}
+		return attacked;
+	}
+
+	/**
+	 * Removes every Enemy from the schedule
+	 */
+	public void clear()
+	{
+		this.clears++;
+		for (int slot = 0; slot < NO_OF_SLOTS; slot++)
+		{
+			while (this.heads[slot] != null)
+				this.cancel(this.heads[slot]);
+		}
+	}
+
+	/**
+	 * Getter for the number of scheduled Enemy objects
+	 * @return The number of engaged Enemy objects waiting to attack
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+}
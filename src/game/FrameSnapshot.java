@@ -0,0 +1,341 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * Everything needed to draw one frame, copied from the GameEngine at the end
+ * of a tick by the thread stepping it: the tiles around the view, the Robot,
+ * the visible Enemy objects (with their health) and the values shown by the
+ * StatusBar; GamePanel, GridRenderer and StatusBar only draw from these, so
+ * painting never reads the Grid, Robot or Enemy objects while they change
+ *
+ * The arrays are allocated once and reused (through a SnapshotBuffer), and a
+ * FrameSnapshot is never changed while another thread can see it
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public final class FrameSnapshot
+{
+	// The size of the copied area (the GridRenderer's layer with one more
+	// square on each side for the Enemy health bars)
+	private final int windowRows;
+	private final int windowColumns;
+	private final int levelRows;
+	private final int levelColumns;
+	private final Camera camera;
+
+	// The square in the top left corner of the copied area and the image
+	// reference of each square in it (0 for an empty square or an Enemy)
+	private int firstRow;
+	private int firstColumn;
+	private final int[] tiles;
+
+	// The Robot
+	private int robotRow;
+	private int robotColumn;
+	private Direction robotDirection;
+
+	// The Enemy objects in the copied area that aren't hidden or defeated
+	private int noOfEnemies;
+	private int[] enemyRows;
+	private int[] enemyColumns;
+	private int[] enemyImages;
+	private int[] enemyHealth;
+
+	// The StatusBar
+	private long tick;
+	private int state;
+	private int statusVersion;
+	private int robotHealth;
+	private int robotMaxHealth;
+	private int timeLeft;
+	private int currentKeys;
+	private int requiredKeys;
+
+	// Set when published and cleared when taken by the Event Dispatch Thread
+	// (only read and written around the SnapshotBuffer's atomic swaps)
+	boolean fresh;
+
+	/**
+	 * Creates an empty FrameSnapshot for the given level and view
+	 * @param grid The Grid of the level
+	 * @param width The width (and height) of the game play area
+	 */
+	public FrameSnapshot(Grid grid, int width)
+	{
+		this.levelRows = grid.getRows();
+		this.levelColumns = grid.getColumns();
+		this.camera = new Camera(width, width, this.levelColumns
+				* Game.SQUARE_WIDTH, this.levelRows * Game.SQUARE_WIDTH);
+
+		// GridRenderer's layer is one square larger than the view
+		this.windowRows = (width + Game.SQUARE_WIDTH - 1) / Game.SQUARE_WIDTH
+				+ 3;
+		this.windowColumns = this.windowRows;
+		this.tiles = new int[this.windowRows * this.windowColumns];
+		this.enemyRows = new int[16];
+		this.enemyColumns = new int[16];
+		this.enemyImages = new int[16];
+		this.enemyHealth = new int[16];
+	}
+
+	/**
+	 * Copies the current state of the given GameEngine (only called on the
+	 * thread stepping it, while no other thread can see this FrameSnapshot)
+	 * @param engine The GameEngine
+	 * @param statusVersion Changed by the caller whenever the values shown by
+	 *            the StatusBar change
+	 */
+	void capture(GameEngine engine, int statusVersion)
+	{
+		Grid grid = engine.getGrid();
+		Robot robot = engine.getRobot();
+		Location location = robot.getLocation();
+		this.robotRow = location.row;
+		this.robotColumn = location.column;
+		this.robotDirection = robot.getDirection();
+
+		// Copy the squares the Camera following the Robot can see
+		this.camera.centreOn(this.robotColumn * Game.SQUARE_WIDTH
+				+ Game.SQUARE_WIDTH / 2, this.robotRow * Game.SQUARE_WIDTH
+				+ Game.SQUARE_WIDTH / 2);
+		this.firstRow = this.camera.getY() / Game.SQUARE_WIDTH - 1;
+		this.firstColumn = this.camera.getX() / Game.SQUARE_WIDTH - 1;
+		int tile = 0;
+		for (int row = this.firstRow; row < this.firstRow + this.windowRows; row++)
+		{
+			for (int column = this.firstColumn; column < this.firstColumn
+					+ this.windowColumns; column++)
+			{
+				int imageRef = 0;
+				if (grid.isInside(row, column))
+				{
+					int cell = grid.index(row, column);
+					if (!grid.isEnemyHere(cell))
+						imageRef = grid.getImageRef(cell);
+				}
+				this.tiles[tile++] = imageRef;
+			}
+		}
+
+		SpatialIndex enemies = grid.getEnemyIndex();
+		int found = enemies.queryArea(this.firstRow, this.firstColumn,
+				this.firstRow + this.windowRows - 1, this.firstColumn
+						+ this.windowColumns - 1);
+		this.noOfEnemies = 0;
+		for (int result = 0; result < found; result++)
+		{
+			int cell = enemies.getResult(result);
+			Enemy enemy = grid.getEnemy(cell);
+			if (enemy == null || enemy.isDisabled() || enemy.isHidden())
+				continue;
+			if (this.noOfEnemies == this.enemyRows.length)
+				this.growEnemies();
+			this.enemyRows[this.noOfEnemies] = cell / this.levelColumns;
+			this.enemyColumns[this.noOfEnemies] = cell % this.levelColumns;
+			this.enemyImages[this.noOfEnemies] = enemy.getImageRef();
+			this.enemyHealth[this.noOfEnemies] = enemy.getHealthPercentage();
+			this.noOfEnemies++;
+		}
+
+		this.tick = engine.getTick();
+		this.state = engine.getState();
+		this.statusVersion = statusVersion;
+		this.robotHealth = robot.getHealth();
+		this.robotMaxHealth = robot.MAX_HEALTH;
+		this.timeLeft = engine.getTimeLeft();
+		this.currentKeys = engine.getCurrentKeys();
+		this.requiredKeys = engine.getRequiredKeys();
+	}
+
+	/**
+	 * Doubles the size of the Enemy arrays
+	 */
+	private void growEnemies()
+	{
+		int size = this.enemyRows.length * 2;
+		this.enemyRows = Arrays.copyOf(this.enemyRows, size);
+		this.enemyColumns = Arrays.copyOf(this.enemyColumns, size);
+		this.enemyImages = Arrays.copyOf(this.enemyImages, size);
+		this.enemyHealth = Arrays.copyOf(this.enemyHealth, size);
+	}
+
+	/**
+	 * Returns the stationary tile of the given square
+	 * @param row The row of the square
+	 * @param column The column of the square
+	 * @return The image reference (0 if there is no tile, an Enemy is there
+	 *         or the square wasn't copied)
+	 */
+	public int getTile(int row, int column)
+	{
+		int windowRow = row - this.firstRow;
+		int windowColumn = column - this.firstColumn;
+		if (windowRow < 0 || windowColumn < 0 || windowRow >= this.windowRows
+				|| windowColumn >= this.windowColumns)
+			return 0;
+		return this.tiles[windowRow * this.windowColumns + windowColumn];
+	}
+
+	/**
+	 * Getter for the number of Enemy objects to draw
+	 * @return The number of Enemy objects
+	 */
+	public int getNoOfEnemies()
+	{
+		return this.noOfEnemies;
+	}
+
+	/**
+	 * Getter for the row of an Enemy
+	 * @param enemy The position of the Enemy (0 to getNoOfEnemies() - 1)
+	 * @return The row
+	 */
+	public int getEnemyRow(int enemy)
+	{
+		return this.enemyRows[enemy];
+	}
+
+	/**
+	 * Getter for the column of an Enemy
+	 * @param enemy The position of the Enemy (0 to getNoOfEnemies() - 1)
+	 * @return The column
+	 */
+	public int getEnemyColumn(int enemy)
+	{
+		return this.enemyColumns[enemy];
+	}
+
+	/**
+	 * Getter for the image reference of an Enemy
+	 * @param enemy The position of the Enemy (0 to getNoOfEnemies() - 1)
+	 * @return The image reference
+	 */
+	public int getEnemyImage(int enemy)
+	{
+		return this.enemyImages[enemy];
+	}
+
+	/**
+	 * Getter for the health of an Enemy
+	 * @param enemy The position of the Enemy (0 to getNoOfEnemies() - 1)
+	 * @return The percentage of its starting health left
+	 */
+	public int getEnemyHealth(int enemy)
+	{
+		return this.enemyHealth[enemy];
+	}
+
+	/**
+	 * Getter for the number of ticks played
+	 * @return The tick
+	 */
+	public long getTick()
+	{
+		return this.tick;
+	}
+
+	/**
+	 * Getter for the state of the game (GameEngine.PLAYING, WON, LOST or
+	 * TIME_RAN_OUT)
+	 * @return The state
+	 */
+	public int getState()
+	{
+		return this.state;
+	}
+
+	/**
+	 * Checks if the level has ended
+	 * @return Whether or not the level is over
+	 */
+	public boolean isOver()
+	{
+		return this.state != GameEngine.PLAYING
+				&& this.state != GameEngine.IN_BATTLE;
+	}
+
+	/**
+	 * Getter for the status version (different from the last FrameSnapshot
+	 * drawn if the values shown by the StatusBar changed)
+	 * @return The status version
+	 */
+	public int getStatusVersion()
+	{
+		return this.statusVersion;
+	}
+
+	/**
+	 * Getter for the row of the Robot
+	 * @return The row
+	 */
+	public int getRobotRow()
+	{
+		return this.robotRow;
+	}
+
+	/**
+	 * Getter for the column of the Robot
+	 * @return The column
+	 */
+	public int getRobotColumn()
+	{
+		return this.robotColumn;
+	}
+
+	/**
+	 * Getter for the Direction the Robot is facing
+	 * @return The Direction
+	 */
+	public Direction getRobotDirection()
+	{
+		return this.robotDirection;
+	}
+
+	/**
+	 * Getter for the health of the Robot
+	 * @return The health
+	 */
+	public int getRobotHealth()
+	{
+		return this.robotHealth;
+	}
+
+	/**
+	 * Getter for the most health the Robot can have
+	 * @return The most health
+	 */
+	public int getRobotMaxHealth()
+	{
+		return this.robotMaxHealth;
+	}
+
+	/**
+	 * Getter for the number of seconds left
+	 * @return The time left
+	 */
+	public int getTimeLeft()
+	{
+		return this.timeLeft;
+	}
+
+	/**
+	 * Getter for the number of keys found
+	 * @return The number of keys
+	 */
+	public int getCurrentKeys()
+	{
+		return this.currentKeys;
+	}
+
+	/**
+	 * Getter for the number of keys needed to open the exit
+	 * @return The number of keys
+	 */
+	public int getRequiredKeys()
+	{
+		return this.requiredKeys;
+	}
+}
@@ -9,13 +9,13 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.HashMap;
+import java.util.List;
 
-import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
 
 /**
  * The Main JFrame of Robot Conquest (contains main method) Sets up JFrame,
@@ -27,79 +27,134 @@ import javax.swing.JMenuItem;
  */
 public class Game extends JFrame implements ActionListener
 {
-	private Square[][] grid;
+	private GameEngine engine;
 	private LevelSelector levelSelector;
 	private final String RETURN_TO_MENU = "Return to Main Menu";
 	private Menu menu;
-	private Robot robot;
 	private int width, height;
 	private GamePanel gamePanel;
 	private StatusBar statusBar;
 	private GameOver gameOver;
-	private int noOfEnemies;
-	private ArrayList<Enemy> enemies;
-	private int enemyTotalHealth;
 	private String currentPlayer = "Player 1";
 	private String[] allPlayers;
+
+	// The levels already read this session (see LevelTemplate)
+	private HashMap<Integer, LevelTemplate> levelTemplates =
+			new HashMap<Integer, LevelTemplate>();
 	public static Image icon;
-	private int noOfKeys;
 	public static final String NEW_PLAYER = "Create new player...";
 	public static final int MAX_NAME_LENGTH = 8;
 
 	// Ma in variables
+	// The number of squares across the screen (and the size of level files
+	// that don't declare their own)
 	public static final int NO_OF_ROWS = 24;
 	// public final int PIXEL_SHRINK = 1;
 	public static final int SQUARE_WIDTH = 30;
 
+	// Active rendering (-DactiveRendering=true -DtargetFps=60)
+	public static final boolean ACTIVE_RENDERING = Boolean
+			.getBoolean("activeRendering");
+	public static final int TARGET_FPS = Integer.getInteger("targetFps",
+			GameCanvas.DEFAULT_FPS);
+
 	// General objects
-	public final char OPEN = 'a';
-	public final char WALL = 'b';
-	public final char START = 'c';
-	public final char END = 'd'; // Becomes a 'e' when passable
-	public final char NORTH_ONLY = 'f';
-	public final char EAST_ONLY = 'g';
-	public final char SOUTH_ONLY = 'h';
-	public final char WEST_ONLY = 'i';
+	public static final char OPEN = 'a';
+	public static final char WALL = 'b';
+	public static final char START = 'c';
+	public static final char END = 'd'; // Becomes a 'e' when passable
+	public static final char NORTH_ONLY = 'f';
+	public static final char EAST_ONLY = 'g';
+	public static final char SOUTH_ONLY = 'h';
+	public static final char WEST_ONLY = 'i';
 
 	// Items that could be picked up
-	public final char REVEALED_IMAGE = 'j'; // All items are hidden 'a'
+	public static final char REVEALED_IMAGE = 'j'; // All items are hidden 'a'
 											// until revealed
-	public final char KEY = 'z';
-	public final char HEALTH_BOOST = 'x';
-	public final char DAMAGE_BOOST = 'w';
+	public static final char KEY = 'z';
+	public static final char HEALTH_BOOST = 'x';
+	public static final char DAMAGE_BOOST = 'w';
 
 	// Enemies *** Becomes an 'a' (an open square) when defeated
-	public final char BOSS = 'k';
-	public final char ENEMY = 'l';
-	public final char HIDDEN_ENEMY = 'v'; // Becomes a normal enemy when
+	public static final char BOSS = 'k';
+	public static final char ENEMY = 'l';
+	public static final char HIDDEN_ENEMY = 'v'; // Becomes a normal enemy when
 											// detected
 
+	// The generator each level's random numbers come from (-Dseed=number
+	// plays a session again)
+	private GameRandom random;
+
 	// Data File variables
 	private int robotHealth;
 	private int robotDamage;
 
+	// Start up timing
+	private static long startTime;
+	private static boolean firstFramePainted;
+
 	/**
 	 * Main method
 	 * @param args
 	 */
 	public static void main(String[] args)
 	{
+		startTime = System.nanoTime();
+		preloadImages();
 		new Game();
 	}
 
+	/**
+	 * Starts decoding every image in parallel (the menu's images first) so
+	 * each screen only waits for the images it draws
+	 */
+	private static void preloadImages()
+	{
+		String[] fileNames = new String[Menu.NO_OF_IMAGES
+				+ GamePanel.NO_OF_IMAGES + Robot.NO_OF_IMAGES + 2];
+		int file = 0;
+		for (int image = 0; image < Menu.NO_OF_IMAGES; image++)
+			fileNames[file++] = "MenuImage" + image + ".png";
+		fileNames[file++] = "Image10.png";
+		for (int image = 0; image < GamePanel.NO_OF_IMAGES; image++)
+			if (image != 10)
+				fileNames[file++] = "Image" + image + ".png";
+		for (int image = 0; image < Robot.NO_OF_IMAGES; image++)
+			fileNames[file++] = "Robot" + image + ".png";
+		fileNames[file++] = "Victory.png";
+		fileNames[file++] = "Defeat.png";
+		AssetCache.preload(fileNames);
+	}
+
+	/**
+	 * Called by Menu each time it is painted; Prints the time from start up to
+	 * the first frame
+	 */
+	static synchronized void framePainted()
+	{
+		if (!firstFramePainted)
+		{
+			firstFramePainted = true;
+			Log.info("Start up to first frame: {} ms",
+					(System.nanoTime() - startTime) / 1000000);
+		}
+	}
+
 	/**
 	 * Main JFrame constructor, never closes until user ends game
 	 */
 	public Game()
 	{
 		super("Robot Conquest");
+		this.random = new GameRandom(GameRandom.newSeed());
+		Log.info("Session seed: {}", this.random.getSeed());
 		try
 		{
 			this.loadData();
 		}
 		catch (IOException e)
 		{
-			System.err.println("trying loadData() in Game");
+			Log.error("trying loadData() in Game: {}", e);
 			System.exit(-1);
 		}
 		// this.setSize((this.resolution.height+((this.resolution.width-this.resolution.height)
@@ -111,7 +166,14 @@ public class Game extends JFrame implements ActionListener
 		this.setSize(this.width, this.height);
 		this.setResizable(false);
 		this.setLocationRelativeTo(null);
-		this.newMenu();
+
+		// -Dreplay.file=name plays a recorded level instead of showing the
+		// Menu
+		Replay replay = Replay.fromProperty();
+		if (replay != null)
+			this.playReplay(replay);
+		else
+			this.newMenu();
 		this.setVisible(true);
 
 	}
@@ -133,12 +195,11 @@ public class Game extends JFrame implements ActionListener
 	private void loadData() throws IOException
 	{
 		// Load the game Icon
-		File file = new File("Image10.png");
-		icon = ImageIO.read(file);
+		icon = AssetCache.getImage("Image10.png");
 		this.setIconImage(icon);
 
 		// Load game data
-		file = new File("Data.rbcq");
+		File file = new File("Data.rbcq");
 		BufferedReader in = null;
 		try
 		{
@@ -146,8 +207,7 @@ public class Game extends JFrame implements ActionListener
 		}
 		catch (FileNotFoundException e)
 		{
-			System.err
-					.println("Trying to read file data.txt in loadData() method in Game");
+			Log.error("Trying to read file data.txt in loadData() method in Game");
 			System.exit(-1);
 		}
 
@@ -202,32 +262,88 @@ public class Game extends JFrame implements ActionListener
 	 * @param level The level selected by the user
 	 */
 	public void newLevel(int level)
+	{
+		// Every attempt at a level gets the same random numbers
+		this.startLevel(level, new GameEngine(this.robotHealth,
+				this.robotDamage, this.random.fork(level)), null);
+	}
+
+	/**
+	 * Plays a level recorded by an InputLog in real time
+	 * @param replay The Replay of the level
+	 */
+	public void playReplay(Replay replay)
+	{
+		Log.info("Playing a recording of level {}", replay.getLevel());
+		this.startLevel(replay.getLevel(), new GameEngine(replay
+				.getRobotHealth(), replay.getRobotDamage(), new GameRandom(
+				replay.getSeed())), replay);
+	}
+
+	/**
+	 * Returns the file a level is loaded from; Binary levels (made with
+	 * LevelConverter) are used when there are any
+	 * @param level The level
+	 * @return The name of the level file
+	 */
+	static String getLevelFileName(int level)
+	{
+		String fileName = "Level" + level + ".rbcb";
+		if (!new File(fileName).exists())
+			fileName = "Level" + level + ".rbcq";
+		return fileName;
+	}
+
+	/**
+	 * Creates new GamePanel and StatusBar objects for the given GameEngine
+	 * and starts the level
+	 * @param level The level to load
+	 * @param engine The GameEngine to load it into
+	 * @param replay The Replay to play (null for the user's input)
+	 */
+	private void startLevel(int level, GameEngine engine, Replay replay)
 	{
 		// Create the grid (and in turn the main variables, i.e. Enemies)
 		this.setVisible(false);
-		this.noOfKeys = 0;
-		this.enemies = new ArrayList<Enemy>();
+		this.engine = engine;
 		this.gamePanel = new GamePanel(this);
-		try
+		// Levels that were already played are copied from their LevelTemplate
+		long start = System.nanoTime();
+		LevelTemplate template = this.levelTemplates.get(level);
+		if (template != null)
+			this.engine.loadGrid(template);
+		else
 		{
-			boolean goodFile = this.loadGrid("Level" + level + ".rbcq");
-			if (!goodFile)
+			String fileName = getLevelFileName(level);
+			try
+			{
+				boolean goodFile = this.engine.loadGrid(fileName);
+				if (!goodFile)
+				{
+					this.levelNotLoaded(fileName, this.engine.getLoadErrors());
+					return;
+				}
+			}
+			catch (FileNotFoundException e)
 			{
-				System.err.println("File is corrupted!");
-				System.exit(0);
+				Log.error("catch FileNotFound Exception in newLevel() method in Game loading level file #{}",
+						level);
+				this.levelNotLoaded(fileName, this.engine.getLoadErrors());
+				return;
 			}
+			if (this.engine.getTemplate() != null)
+				this.levelTemplates.put(level, this.engine.getTemplate());
 		}
-		catch (FileNotFoundException e)
-		{
-			System.err
-					.println("catch FileNotFound Exception in newLevel() method in Game loading level file #"
-							+ level);
-		}
+		Metrics.LEVEL_LOAD.recordSince(start);
+		Grid grid = this.engine.getGrid();
+		Recorder.commit(Recorder.LEVEL_LOAD, start, level, (long) grid
+				.getRows() * grid.getColumns(), template != null ? 1 : 0);
 
 		// Initialize the objects
 		this.statusBar = new StatusBar(this, gamePanel);
-		this.gamePanel.addGameData(robot, statusBar, level);
+		this.gamePanel.addGameData(this.engine, statusBar, level);
 		this.statusBar.loadData();
+		this.statusBar.update(this.gamePanel.getFrame());
 
 		// Creates a border layout to place the GamePanel and StatusBar JPanel
 		this.setLayout(new BorderLayout());
@@ -242,83 +358,29 @@ public class Game extends JFrame implements ActionListener
 
 		// Give focus to the GamePanel to allow for listening events
 		this.gamePanel.requestFocusInWindow();
+		if (replay != null)
+			this.gamePanel.setReplay(replay);
 		this.gamePanel.startGame();
 	}
 
 	/**
-	 * Throwing FileNotFoundException because try/catch causes
-	 * "in (BufferedReader) not initialized" errors
-	 * @param fileName The File to load the Square array from
-	 * @return If a valid grid was loaded
-	 * @throws FileNotFoundException If the given fileName didn't reference a
-	 *             proper file
+	 * Tells the user why a level couldn't be loaded and returns to the
+	 * LevelSelector
+	 * @param fileName The name of the level file
+	 * @param errors The problems found in the file
 	 */
-	private boolean loadGrid(String fileName) throws FileNotFoundException
+	private void levelNotLoaded(String fileName, List<LevelError> errors)
 	{
-		File file = new File(fileName);
-		Scanner in = new Scanner(file);
-		String nextLine;
-		this.grid = new Square[NO_OF_ROWS][NO_OF_ROWS];
-		boolean[] requiredElements = new boolean[2];
-
-		// Loads the array of Square objects and checks for required elements
-		for (int row = 0; row < NO_OF_ROWS; row++)
-		{
-			nextLine = in.nextLine().toLowerCase();
-			for (int pos = 0; pos < NO_OF_ROWS; pos++)
-			{
-				try
-				{
-					char test = nextLine.charAt(pos);
-					this.grid[row][pos] = new Square(test, this, gamePanel,
-							row, pos);
-				}
-				catch (IndexOutOfBoundsException e)
-				{
-					System.err.println(e);
-					System.err.println("File Corupted, line " + (row + 1)
-							+ " doesn't have " + NO_OF_ROWS
-							+ " elements in it!");
-					in.close();
-					return false;
-				}
-				if (!requiredElements[0]
-						&& this.grid[row][pos].isStartHere())
-				{
-					this.loadRobot(row, pos);
-					requiredElements[0] = true;
-				}
-				else if (!requiredElements[1]
-						&& this.grid[row][pos].isExitHere())
-				{
-					requiredElements[1] = true;
-					this.gamePanel.setExitLocation(row, pos);
-				}
-			}
-		}
-		in.close();
-
-		// Check for validity
-		for (int element = 0; element < requiredElements.length; element++)
-		{
-			if (!requiredElements[element])
-			{
-				System.err.println("Doesn't have all required elements");
-				return false;
-			}
-		}
-		return true;
-	}
-
-	/**
-	 * Loads the Robot object at the start (given) position
-	 * @param row The row the Robot is to start at
-	 * @param column The column the Robot is to start at
-	 */
-	public void loadRobot(int row, int column)
-	{
-		this.robot = new Robot(row, column, this.robotHealth, this.robotDamage,
-				this, this.gamePanel);
+		StringBuilder message = new StringBuilder(fileName
+				+ " couldn't be loaded");
+		int shown = Math.min(errors.size(), 10);
+		for (int error = 0; error < shown; error++)
+			message.append("\n").append(errors.get(error));
+		if (errors.size() > shown)
+			message.append("\n...");
+		JOptionPane.showMessageDialog(this, message.toString(),
+				"Level Not Loaded", JOptionPane.ERROR_MESSAGE);
+		this.newLevelSelector();
 	}
 
 	/**
@@ -375,7 +437,9 @@ public class Game extends JFrame implements ActionListener
 	synchronized void gameOver(int state)
 	{
 		int timeLeft = statusBar.getTimeLeft();
-		System.out.println("State: " + state);
+		Log.debug("State: {}", state);
+		Recorder.commit(Recorder.GAME_OVER, System.nanoTime(), this.gamePanel
+				.getLevel(), state, timeLeft);
 		this.setVisible(false);
 		try
 		{
@@ -383,7 +447,7 @@ public class Game extends JFrame implements ActionListener
 		}
 		catch (InterruptedException e)
 		{
-			System.err.println("tried Thread.sleep for 1000 ms in gameOver");
+			Log.warn("tried Thread.sleep for 1000 ms in gameOver");
 		}
 		this.refresh();
 		this.gameOver = new GameOver(this.gamePanel, state, timeLeft, this);
@@ -404,9 +468,7 @@ public class Game extends JFrame implements ActionListener
 
 		// Sets these variables to null so garbage collector can clear memory
 		this.statusBar = null;
-		this.enemies = null;
-		this.robot = null;
-		this.grid = null;
+		this.engine = null;
 	}
 
 	/**
@@ -427,61 +489,6 @@ public class Game extends JFrame implements ActionListener
 		return this.width;
 	}
 
-	/**
-	 * Getter for the grid of Square objects
-	 * @return the current grid
-	 */
-	public Square[][] getGrid()
-	{
-		return this.grid;
-	}
-
-	/**
-	 * Adds the given Enemy to the arrayList of Enemy objects
-	 * @param enemy The Enemy object to add the the ArrayList
-	 */
-	public void addEnemy(Enemy enemy)
-	{
-		this.enemies.add(enemy);
-		this.enemyTotalHealth += enemy.getHealth();
-		this.noOfEnemies++;
-	}
-
-	/**
-	 * Getter for the total health pool of Enemy Objects
-	 * @return The total health pool of the Enemy objects
-	 */
-	public int getEnemyTotalHealth()
-	{
-		return this.enemyTotalHealth;
-	}
-
-	/**
-	 * Adds a key to noOfKeys
-	 */
-	public void addKey()
-	{
-		this.noOfKeys++;
-	}
-
-	/**
-	 * Getter for the required number of keys
-	 * @return The current number of keys
-	 */
-	public int getNoOfKeys()
-	{
-		return this.noOfKeys;
-	}
-
-	/**
-	 * Getter for the total number of enemies
-	 * @return The number of enemies
-	 */
-	public int getNoOfEnemies()
-	{
-		return this.noOfEnemies;
-	}
-
 	/**
 	 * Exits the program
 	 */
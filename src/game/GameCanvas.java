@@ -0,0 +1,278 @@
+package game;
+
+import java.awt.Canvas;
+import java.awt.Graphics;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.util.Arrays;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Optional active rendering mode for GamePanel (turned on with
+ * -DactiveRendering=true); Its own thread steps the GameEngine on a fixed
+ * timestep and draws to a BufferStrategy at a target frame rate
+ * (-DtargetFps=60), interpolating the Robot between ticks, so the drawing rate
+ * doesn't depend on the simulation rate; Frames are drawn from its own
+ * FrameSnapshot, and the StatusBar's values are published to the Event
+ * Dispatch Thread through a SnapshotBuffer
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class GameCanvas extends Canvas implements Runnable
+{
+	public static final int DEFAULT_FPS = 60;
+	private static final long MAX_FRAME_TIME = 250000000L;
+	private static final long REPORT_INTERVAL = 5000000000L;
+	private static final int NO_OF_SAMPLES = 1024;
+
+	private GamePanel gamePanel;
+	private GameEngine engine;
+	private InputQueue queue;
+	private InputFrame input;
+	private SnapshotBuffer snapshots;
+	private Runnable frameReady;
+	private FrameSnapshot view;
+	private GridRenderer renderer;
+	private Camera camera;
+	private Thread thread;
+	private volatile boolean running;
+	private long frameLength;
+	private long tickLength;
+
+	// Where the Robot was before the last tick (for interpolation)
+	private int previousRow;
+	private int previousColumn;
+
+	// The most recent frame times (in nanoseconds)
+	private long[] frameTimes;
+	private int noOfFrames;
+
+	/**
+	 * Creates the Canvas for the given GamePanel
+	 * @param gamePanel The GamePanel this Canvas draws for
+	 * @param engine The GameEngine to step
+	 * @param queue The input from GamePanel's KeyListener
+	 * @param snapshots Where to publish the StatusBar's values
+	 * @param renderer The GridRenderer holding the cached layer
+	 * @param camera The Camera following the Robot
+	 * @param targetFps The number of frames to draw each second
+	 */
+	public GameCanvas(final GamePanel gamePanel, GameEngine engine,
+			InputQueue queue, SnapshotBuffer snapshots, GridRenderer renderer,
+			Camera camera, int targetFps)
+	{
+		this.gamePanel = gamePanel;
+		this.engine = engine;
+		this.queue = queue;
+		this.input = new InputFrame();
+		this.snapshots = snapshots;
+		this.frameReady = new Runnable()
+		{
+			public void run()
+			{
+				gamePanel.frameReady();
+			}
+		};
+		this.view = new FrameSnapshot(engine.getGrid(), gamePanel.getWidth());
+		this.renderer = renderer;
+		this.camera = camera;
+		this.frameLength = 1000000000L / Math.max(targetFps, 1);
+		this.tickLength = GameEngine.TICK_LENGTH * 1000000L;
+		this.frameTimes = new long[NO_OF_SAMPLES];
+		this.setIgnoreRepaint(true);
+		this.setFocusable(true);
+		this.setPreferredSize(gamePanel.getPreferredSize());
+	}
+
+	/**
+	 * Creates the BufferStrategy and starts the game loop thread
+	 */
+	public void start()
+	{
+		this.createBufferStrategy(2);
+		Location location = this.engine.getRobot().getLocation();
+		this.previousRow = location.row;
+		this.previousColumn = location.column;
+		this.view.capture(this.engine, 0);
+		this.running = true;
+		this.thread = new Thread(this, "GameCanvas");
+		this.thread.start();
+	}
+
+	/**
+	 * Stops the game loop thread and waits for it to finish its frame
+	 */
+	public void stop()
+	{
+		this.running = false;
+		if (this.thread != null && Thread.currentThread() != this.thread)
+		{
+			try
+			{
+				this.thread.join();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * The game loop; Steps the GameEngine once for every TICK_LENGTH that has
+	 * passed and draws a frame, then sleeps until the next frame is due
+	 */
+	public void run()
+	{
+		long previous = System.nanoTime();
+		long accumulator = 0;
+		long lastReport = previous;
+		while (this.running)
+		{
+			long frameStart = System.nanoTime();
+			long elapsed = Math.min(frameStart - previous, MAX_FRAME_TIME);
+			previous = frameStart;
+
+			if (!this.gamePanel.isPaused())
+			{
+				accumulator += elapsed;
+				while (this.running && accumulator >= this.tickLength)
+				{
+					accumulator -= this.tickLength;
+					this.step();
+				}
+			}
+			else
+			{
+				accumulator = 0;
+				this.queue.drainTo(this.input, this.engine.getSteps() + 1);
+			}
+
+			if (this.running && this.isVisible())
+				this.render((double) accumulator / this.tickLength);
+
+			long frameTime = System.nanoTime() - frameStart;
+			this.frameTimes[this.noOfFrames % NO_OF_SAMPLES] = frameTime;
+			this.noOfFrames++;
+			if (frameStart - lastReport >= REPORT_INTERVAL)
+			{
+				lastReport = frameStart;
+				Log.info("Frame time (us): p50 {}  p95 {}  p99 {}",
+						this.getFrameTimePercentile(50) / 1000,
+						this.getFrameTimePercentile(95) / 1000,
+						this.getFrameTimePercentile(99) / 1000);
+			}
+
+			// Sleep for the rest of the frame
+			long sleep = this.frameLength - (System.nanoTime() - frameStart);
+			if (sleep > 0)
+			{
+				try
+				{
+					Thread.sleep(sleep / 1000000, (int) (sleep % 1000000));
+				}
+				catch (InterruptedException e)
+				{
+					this.running = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Steps the GameEngine once, copies it for drawing and hands the new
+	 * status (or the end of the level) to the Event Dispatch Thread
+	 */
+	private void step()
+	{
+		Location location = this.engine.getRobot().getLocation();
+		this.previousRow = location.row;
+		this.previousColumn = location.column;
+		long tick = this.engine.getTick();
+		this.queue.drainTo(this.input, this.engine.getSteps() + 1);
+		this.engine.step(this.input);
+		this.input.clearAttack();
+
+		// A rewind jumps straight back instead of sliding there
+		if (this.engine.getTick() < tick)
+		{
+			this.previousRow = location.row;
+			this.previousColumn = location.column;
+		}
+
+		if (this.engine.hasGridChanged())
+			this.view.capture(this.engine, 0);
+
+		boolean over = this.engine.isOver();
+		if (over)
+			this.running = false;
+		if ((over || this.engine.hasStatusChanged())
+				&& this.snapshots.publish(this.engine))
+			SwingUtilities.invokeLater(this.frameReady);
+	}
+
+	/**
+	 * Draws one frame to the BufferStrategy
+	 * @param alpha How far (0 to 1) the current time is between two ticks
+	 */
+	private void render(double alpha)
+	{
+		long start = System.nanoTime();
+		double column = this.previousColumn
+				+ (this.view.getRobotColumn() - this.previousColumn) * alpha;
+		double row = this.previousRow
+				+ (this.view.getRobotRow() - this.previousRow) * alpha;
+		int x = (int) Math.round(column * Game.SQUARE_WIDTH);
+		int y = (int) Math.round(row * Game.SQUARE_WIDTH);
+
+		// The Camera follows the interpolated position so the view scrolls
+		// smoothly
+		this.camera.centreOn(x + Game.SQUARE_WIDTH / 2, y + Game.SQUARE_WIDTH
+				/ 2);
+
+		BufferStrategy strategy = this.getBufferStrategy();
+		do
+		{
+			do
+			{
+				Graphics g = strategy.getDrawGraphics();
+				try
+				{
+					this.renderer.drawWorld(g, this.camera, this.view);
+					this.renderer.drawRobot(g, this.camera, this.view
+							.getRobotDirection(), x, y);
+				}
+				finally
+				{
+					g.dispose();
+				}
+			}
+			while (strategy.contentsRestored());
+			strategy.show();
+		}
+		while (strategy.contentsLost());
+		Toolkit.getDefaultToolkit().sync();
+		Metrics.FRAME.recordSince(start);
+		Recorder.commit(Recorder.PAINT, start, this.renderer.takeTilesDrawn(),
+				this.renderer.getEnemiesDrawn());
+	}
+
+	/**
+	 * Returns the given percentile of the most recent frame times
+	 * @param percentile The percentile (0 to 100)
+	 * @return The frame time in nanoseconds
+	 */
+	public long getFrameTimePercentile(double percentile)
+	{
+		int count = Math.min(this.noOfFrames, NO_OF_SAMPLES);
+		if (count == 0)
+			return 0;
+		long[] sorted = Arrays.copyOf(this.frameTimes, count);
+		Arrays.sort(sorted);
+		int position = (int) Math.ceil(percentile / 100.0 * count) - 1;
+		return sorted[Math.max(0, Math.min(position, count - 1))];
+	}
+}
@@ -0,0 +1,933 @@
+package game;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The rules of a single level, without any Swing dependency; Owns the grid,
+ * the Robot, the Enemy objects, the keys, the exit and the clock and is
+ * advanced one tick at a time with step() (GamePanel and StatusBar only
+ * draw its state)
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class GameEngine
+{
+	// Simulation constants
+	public static final int TICK_LENGTH = 100;
+	public static final int TICKS_PER_SECOND = 1000 / TICK_LENGTH;
+	public static final int ENEMY_ATTACK_DELAY = 1000 / TICK_LENGTH;
+	public static final int HEALTH_DRAIN = 2;
+	public static final int HEALING_BOOST = 100 / TICKS_PER_SECOND;
+	public static final int MAX_GAME_TIME = 4 * 60;
+	public static final int REVEAL_RADIUS = 2;
+	public static final int ENGAGE_RADIUS = 1;
+
+	// How far back a rewind from the input goes
+	public static final int REWIND_TICKS = 5 * TICKS_PER_SECOND;
+
+	// The seed used when no GameRandom is given
+	public static final long DEFAULT_SEED = 0;
+
+	// States
+	public static final int PLAYING = 0;
+	public static final int WON = 1;
+	public static final int IN_BATTLE = 2;
+	public static final int LOST = -1;
+	public static final int TIME_RAN_OUT = -2;
+
+	private Grid grid;
+	private Robot robot;
+	private EnemyScheduler scheduler;
+	private Enemy currentEnemy;
+	private int enemyTotalHealth;
+	private int requiredKeys;
+	private int currentKeys;
+	private Location exitLocation;
+	private int state;
+	private boolean isBattling;
+	private long tick;
+	private long steps;
+	private int timeLeft;
+	private int robotHealth;
+	private int robotDamage;
+	private boolean gridChanged;
+	private boolean statusChanged;
+	private int squaresScanned;
+	private int revealRadius;
+	private int engageRadius;
+	private boolean diagonalEngage;
+	private List<LevelError> loadErrors;
+	private LevelTemplate template;
+	private GameRandom random;
+	private GameHistory history;
+
+	/**
+	 * Creates an empty GameEngine using DEFAULT_SEED for its random numbers
+	 * (so benchmarks and tests always play out the same way); call loadGrid()
+	 * before step()
+	 * @param robotHealth The starting health of the Robot
+	 * @param robotDamage The starting damage of the Robot
+	 */
+	public GameEngine(int robotHealth, int robotDamage)
+	{
+		this(robotHealth, robotDamage, new GameRandom(DEFAULT_SEED));
+	}
+
+	/**
+	 * Creates an empty GameEngine; call loadGrid() before step()
+	 * @param robotHealth The starting health of the Robot
+	 * @param robotDamage The starting damage of the Robot
+	 * @param random The generator for everything random in the level
+	 */
+	public GameEngine(int robotHealth, int robotDamage, GameRandom random)
+	{
+		this.random = random;
+		this.robotHealth = robotHealth;
+		this.robotDamage = robotDamage;
+		this.scheduler = new EnemyScheduler();
+		this.history = new GameHistory();
+		this.state = PLAYING;
+		this.timeLeft = MAX_GAME_TIME;
+		this.revealRadius = REVEAL_RADIUS;
+		this.engageRadius = ENGAGE_RADIUS;
+		this.diagonalEngage = false;
+	}
+
+	/**
+	 * Loads the Grid (and in turn the Robot, Enemy and Item objects) from the
+	 * given level file (see LevelParser); Levels too big to keep in memory are
+	 * read a Chunk at a time as the Robot gets close, as are binary level files
+	 * (see BinaryLevelFile)
+	 * @param fileName The File to load the Grid from
+	 * @return If a valid grid was loaded (see getLoadErrors() if it wasn't)
+	 * @throws FileNotFoundException If the given fileName didn't reference a
+	 *             proper file
+	 */
+	public boolean loadGrid(String fileName) throws FileNotFoundException
+	{
+		File file = new File(fileName);
+		this.loadErrors = new ArrayList<LevelError>();
+		this.template = null;
+		if (BinaryLevelFile.isBinary(file))
+			return this.loadBinary(file);
+
+		ParsedLevel level;
+		try
+		{
+			level = new LevelParser(Grid.MAX_LOADED_CHUNKS).parse(file);
+		}
+		catch (FileNotFoundException e)
+		{
+			this.loadErrors.add(new LevelError(0, 0, e.getMessage()));
+			throw e;
+		}
+		catch (IOException e)
+		{
+			return this.loadFailed(e.toString());
+		}
+		if (!level.isValid())
+		{
+			for (LevelError error : level.getErrors())
+				Log.error("{}: {}", fileName, error);
+			this.loadErrors.addAll(level.getErrors());
+			return false;
+		}
+
+		if (level.hasSquares())
+		{
+			try
+			{
+				return this.loadGrid(new LevelTemplate(level, level.getStart(),
+						level.getExit(), level.getKeys(), level.getEnemyHealth()));
+			}
+			catch (IOException e)
+			{
+				return this.loadFailed(e.toString());
+			}
+		}
+
+		// Big levels are only looked through by the parser
+		try
+		{
+			this.grid = new Grid(new LevelFile(file, level.getLineStarts(),
+					level.getRows(), level.getColumns()), this);
+		}
+		catch (IOException e)
+		{
+			return this.loadFailed(e.toString());
+		}
+		this.setUpLevel(level.getColumns(), level.getStart(), level.getExit(),
+				level.getKeys(), level.getEnemyHealth());
+		return true;
+	}
+
+	/**
+	 * Loads the Grid from a level that was already read, sharing its squares
+	 * until they change (see Grid(LevelTemplate, GameEngine))
+	 * @param template The LevelTemplate of the level
+	 * @return true (the template was checked when it was read)
+	 */
+	public boolean loadGrid(LevelTemplate template)
+	{
+		this.loadErrors = new ArrayList<LevelError>();
+		this.template = template;
+		this.grid = new Grid(template, this);
+		this.setUpLevel(template.getColumns(), template.getStart(),
+				template.getExit(), template.getKeys(),
+				template.getEnemyHealth());
+		return true;
+	}
+
+	/**
+	 * Getter for the LevelTemplate the Grid was made from, which can be used
+	 * to play the level again without reading its file
+	 * @return The LevelTemplate (null if the level is too big to keep in
+	 *         memory)
+	 */
+	public LevelTemplate getTemplate()
+	{
+		return this.template;
+	}
+
+	/**
+	 * Loads a binary level file, whose start, exit, keys and Enemy objects are
+	 * read from its header and table; The Grid loads its squares from the file
+	 * when they are needed
+	 * @param file The binary level file
+	 * @return If a valid grid was loaded
+	 */
+	private boolean loadBinary(File file)
+	{
+		BinaryLevelFile source;
+		try
+		{
+			source = new BinaryLevelFile(file);
+		}
+		catch (IOException e)
+		{
+			return this.loadFailed(e.getMessage());
+		}
+		if (source.getStart() < 0 || source.getExit() < 0)
+		{
+			source.close();
+			return this.loadFailed("Doesn't have all required elements");
+		}
+
+		int enemyHealth = 0;
+		for (int entry = 0; entry < source.getTableSize(); entry++)
+		{
+			char object = source.getTableType(entry);
+			if (object == Game.BOSS || object == Game.HIDDEN_ENEMY
+					|| object == Game.ENEMY)
+				enemyHealth += Enemy.getStartingHealth(object);
+		}
+
+		// Levels small enough to keep in memory are read all at once
+		if (Grid.getNoOfChunks(source.getRows(), source.getColumns())
+				<= Grid.MAX_LOADED_CHUNKS)
+		{
+			try
+			{
+				return this.loadGrid(new LevelTemplate(source,
+						source.getStart(), source.getExit(), source.getKeys(),
+						enemyHealth));
+			}
+			catch (IOException e)
+			{
+				return this.loadFailed(e.getMessage());
+			}
+			finally
+			{
+				source.close();
+			}
+		}
+		this.grid = new Grid(source, this);
+		this.setUpLevel(source.getColumns(), source.getStart(),
+				source.getExit(), source.getKeys(), enemyHealth);
+		return true;
+	}
+
+	/**
+	 * Records why the level couldn't be loaded
+	 * @param message What went wrong
+	 * @return false (the level wasn't loaded)
+	 */
+	private boolean loadFailed(String message)
+	{
+		Log.error(message);
+		this.loadErrors.add(new LevelError(0, 0, message));
+		return false;
+	}
+
+	/**
+	 * Places the Robot at the start and records the exit, keys and Enemy
+	 * health of the level just loaded into the Grid
+	 * @param columns The number of columns in the level
+	 * @param start The index of the start square
+	 * @param exit The index of the exit square
+	 * @param keys The number of keys in the level
+	 * @param enemyHealth The total starting health of every Enemy
+	 */
+	private void setUpLevel(int columns, int start, int exit, int keys,
+			int enemyHealth)
+	{
+		this.loadRobot(start / columns, start % columns);
+		this.exitLocation = new Location(exit / columns, exit % columns);
+		this.requiredKeys = keys;
+		this.enemyTotalHealth = enemyHealth;
+		this.grid.focus(this.robot.getLocation().row,
+				this.robot.getLocation().column, Math.max(this.revealRadius,
+						this.engageRadius));
+	}
+
+	/**
+	 * Getter for the problems found by the last call to loadGrid()
+	 * @return The problems with the level file (empty if it loaded)
+	 */
+	public List<LevelError> getLoadErrors()
+	{
+		return this.loadErrors;
+	}
+
+	/**
+	 * Loads the Robot object at the start (given) position
+	 * @param row The row the Robot is to start at
+	 * @param column The column the Robot is to start at
+	 */
+	private void loadRobot(int row, int column)
+	{
+		this.robot = new Robot(row, column, this.robotHealth,
+				this.robotDamage, this);
+	}
+
+	/**
+	 * Advances the level by one tick (TICK_LENGTH milliseconds) using the given
+	 * input, or rewinds it by REWIND_TICKS if the input asks for a rewind
+	 * @param input The keys held down and attacks pressed during this tick
+	 */
+	public void step(InputFrame input)
+	{
+		this.gridChanged = false;
+		this.statusChanged = false;
+		if (this.isOver())
+			return;
+		this.steps++;
+		if (input.takeRewind())
+		{
+			this.rewind(REWIND_TICKS);
+			return;
+		}
+		long start = System.nanoTime();
+		this.squaresScanned = 0;
+		this.history.checkpoint(this);
+		this.update(input);
+		Metrics.TICK.recordSince(start);
+		Recorder.commit(Recorder.TICK, start, this.tick, this.squaresScanned,
+				this.scheduler.size());
+	}
+
+	/**
+	 * Puts the level back the way it was the given number of ticks ago (or as
+	 * far back as its GameHistory goes, GameHistory.SECONDS), without loading
+	 * it again; Also works once the level is over
+	 * @param noOfTicks The number of ticks to go back
+	 * @return The number of ticks it went back
+	 */
+	public long rewind(long noOfTicks)
+	{
+		long start = System.nanoTime();
+		long rewound = this.history.rewind(this, noOfTicks);
+		if (rewound == 0)
+			return 0;
+		Location robotPos = this.robot.getLocation();
+		this.grid.focus(robotPos.row, robotPos.column, Math.max(
+				this.revealRadius, this.engageRadius));
+		this.gridChanged = true;
+		this.statusChanged = true;
+		Metrics.REWIND.recordSince(start);
+		Log.debug("Rewound {} ticks", rewound);
+		return rewound;
+	}
+
+	/**
+	 * Saves the values GameHistory checkpoints before every tick
+	 * @param values The array to save them in
+	 * @param offset Where to start (GameHistory.CHECKPOINT_SIZE values are
+	 *            written)
+	 */
+	void saveState(int[] values, int offset)
+	{
+		Location robotPos = this.robot.getLocation();
+		values[offset] = this.timeLeft;
+		values[offset + 1] = this.currentKeys;
+		values[offset + 2] = this.state;
+		values[offset + 3] = this.isBattling ? 1 : 0;
+		values[offset + 4] = this.currentEnemy == null ? -1 : this.grid.index(
+				this.currentEnemy.getLocation().row,
+				this.currentEnemy.getLocation().column);
+		values[offset + 5] = robotPos.row;
+		values[offset + 6] = robotPos.column;
+		values[offset + 7] = this.robot.getDirection().number();
+		values[offset + 8] = this.robot.getHealth();
+		values[offset + 9] = this.robot.getDamage();
+		values[offset + 10] = this.robot.isDisabled() ? 1 : 0;
+	}
+
+	/**
+	 * Puts back the values saved by saveState()
+	 * @param values The array they were saved in
+	 * @param offset Where they start
+	 * @param tick The tick they were saved on
+	 */
+	void restoreState(int[] values, int offset, long tick)
+	{
+		this.tick = tick;
+		this.timeLeft = values[offset];
+		this.currentKeys = values[offset + 1];
+		this.state = values[offset + 2];
+		this.isBattling = values[offset + 3] != 0;
+		this.currentEnemy = values[offset + 4] == -1 ? null : this.grid
+				.getEnemy(values[offset + 4]);
+		this.robot.restore(values[offset + 5], values[offset + 6], Direction
+				.fromNumber(values[offset + 7]), values[offset + 8],
+				values[offset + 9], values[offset + 10] != 0);
+	}
+
+	/**
+	 * Called by an Enemy before it changes, so GameHistory can undo it
+	 * @param cell The index of the Enemy's square
+	 * @param enemy The Enemy
+	 */
+	void enemyChanging(int cell, Enemy enemy)
+	{
+		this.history.saveEnemy(cell, enemy.getHealth(), enemy.getState(),
+				enemy.attackTick);
+	}
+
+	/**
+	 * Puts an Enemy back the way it was recorded by enemyChanging() (used by
+	 * GameHistory to rewind the level)
+	 * @param cell The index of the Enemy's square
+	 * @param health The health it had
+	 * @param state Its state from Enemy.getState()
+	 * @param attackTick The tick it was scheduled to attack on
+	 */
+	void restoreEnemy(int cell, int health, int state, long attackTick)
+	{
+		Enemy enemy = this.grid.getEnemy(cell);
+		if (enemy == null)
+			return;
+		this.scheduler.cancel(enemy);
+		enemy.restore(health, state, this.robot);
+		if ((state & Enemy.SCHEDULED) != 0)
+			this.scheduler.schedule(enemy, attackTick);
+	}
+
+	/**
+	 * Runs one tick of the level (the level isn't over)
+	 * @param input The keys held down and attacks pressed during this tick
+	 */
+	private void update(InputFrame input)
+	{
+		this.tick++;
+
+		// Heal the Robot while it is on the start marker
+		Location robotPos = this.robot.getLocation();
+		if (this.grid.isStartHere(this.grid.index(robotPos.row,
+				robotPos.column)))
+			this.robot.healthBoost(HEALING_BOOST);
+
+		// Attack the engaged Enemy once for every press during the tick (until
+		// one side is defeated), as pressing attack did before ticks
+		for (int attack = 0; attack < input.getAttacks() && this.isBattling
+				&& !this.isOver(); attack++)
+		{
+			this.currentEnemy.loseHealth(this.robot.getDamage());
+			this.gridChanged = true;
+			this.statusChanged = true;
+		}
+
+		// Only check changes to grid if user moved the Robot
+		if (!this.isOver() && this.move(input))
+		{
+			this.gridChanged = true;
+			this.checkMove();
+
+			// Time from the key being pressed to the tick that used it
+			if (input.getPressedTime() != 0)
+			{
+				Metrics.INPUT_LATENCY.recordSince(input.getPressedTime());
+				input.clearPressedTime();
+			}
+		}
+
+		// Engaged enemies attack the Robot once every ENEMY_ATTACK_DELAY ticks
+		if (!this.isOver() && this.scheduler.advance(this.tick))
+			this.statusChanged = true;
+
+		// Count down the game clock and drain the Robot's health
+		if (!this.isOver() && this.tick % TICKS_PER_SECOND == 0)
+			this.secondElapsed();
+	}
+
+	/**
+	 * Called once every TICKS_PER_SECOND ticks to update the clock
+	 */
+	private void secondElapsed()
+	{
+		this.timeLeft--;
+		this.statusChanged = true;
+		Recorder.sampleCollections();
+		if (this.timeLeft >= 0)
+			this.robot.loseHealth(HEALTH_DRAIN);
+		else
+			this.finish(TIME_RAN_OUT);
+	}
+
+	/**
+	 * Looks for keys pressed by the user and moves the Robot
+	 * @param input The keys held down this tick
+	 * @return Whether or not the Robot moved this cycle
+	 */
+	boolean move(InputFrame input)
+	{
+		boolean moved = false;
+
+		// Only moves if the Robot isn't engaged to an Enemy
+		// Changes moved boolean to true if any action is performed
+		if (!this.isBattling)
+		{
+			int rowChange = 0;
+			int columnChange = 0;
+			Location original = this.robot.getLocation();
+			if (input.isKeyPressed(InputFrame.UP))
+			{
+				rowChange--;
+				moved = true;
+			}
+			if (input.isKeyPressed(InputFrame.RIGHT))
+			{
+				columnChange++;
+				moved = true;
+			}
+			if (input.isKeyPressed(InputFrame.DOWN))
+			{
+				rowChange++;
+				moved = true;
+			}
+			if (input.isKeyPressed(InputFrame.LEFT))
+			{
+				columnChange--;
+				moved = true;
+			}
+
+			// Only updates the Robot if their was a row or column change (i.e
+			// if a user presses down and up there was no change so it wouldn't
+			// enter this loop)
+			if (moved && (rowChange != 0 || columnChange != 0))
+			{
+				int originalCell = this.grid.index(original.row,
+						original.column);
+				int newRow = rowChange + original.row;
+				int newColumn = columnChange + original.column;
+				this.robot.changeDirection(rowChange, columnChange);
+
+				// Moves the Robot to the new location if possible (levels don't
+				// need a wall around the edge)
+				if (this.grid.isInside(newRow, newColumn)
+						&& this.grid.isEmpty(this.grid.index(newRow, newColumn)))
+				{
+					// Checks if the Robot is traveling in the correct direction
+					if (this.grid.isDirectionHere(originalCell))
+					{
+						int directionDifference = Math.abs(this.robot
+								.getDirection().number()
+								- this.grid.passableDirection(originalCell)
+										.number());
+
+						// Allows for a one direction difference (the 7 is there
+						// for the North(0) to North-West(7) special case
+						if (directionDifference <= 1
+								|| directionDifference == 7)
+							this.robot.move(rowChange, columnChange);
+					}
+					// If there isn't a direction marker, move as usual
+					else
+						this.robot.move(rowChange, columnChange);
+				}
+			}
+		}
+		return moved;
+	}
+
+	/**
+	 * Checks and reveals Item objects within revealRadius squares and calls
+	 * the engage() method in any enemies are found within engageRadius squares
+	 * @return whether or not any objects were revealed
+	 */
+	boolean checkMove()
+	{
+		// Set up required variables and checks for Item on respective grid
+		// square
+		Location robotPos = this.robot.getLocation();
+		int row = robotPos.row;
+		int column = robotPos.column;
+		boolean revealed = false;
+		this.grid.focus(row, column, Math.max(this.revealRadius,
+				this.engageRadius));
+		if (this.pickUpItem(row, column))
+			revealed = true;
+
+		// Ends game if exit is underneath Robot
+		if (this.grid.isExitHere(this.grid.index(row, column)))
+		{
+			this.finish(WON);
+			return revealed;
+		}
+
+		// Reveals all hidden items and enemies within revealRadius squares
+		// (only the squares that still hold something hidden are looked at)
+		SpatialIndex hidden = this.grid.getHiddenIndex();
+		int found = hidden.query(row, column, this.revealRadius, true);
+		this.squaresScanned += found;
+		for (int result = 0; result < found; result++)
+		{
+			if (this.reveal(hidden.getResult(result)))
+				revealed = true;
+		}
+
+		// Checks horizontally and vertically (and diagonally if turned on) for
+		// an enemy within engageRadius squares and engages it
+		SpatialIndex enemies = this.grid.getEnemyIndex();
+		found = enemies.query(row, column, this.engageRadius,
+				this.diagonalEngage);
+		this.squaresScanned += found;
+		for (int result = 0; result < found; result++)
+		{
+			if (this.engage(enemies.getResult(result)))
+				revealed = true;
+		}
+		return revealed;
+	}
+
+	/**
+	 * Looks for an an Item or Enemy in the given square and reveals it
+	 * @param cell The index of the square to look at
+	 * @return Whether or not anything was found
+	 */
+	private boolean reveal(int cell)
+	{
+		if (this.grid.isItemHere(cell))
+		{
+			this.grid.itemDetected(cell);
+			return true;
+		}
+		if (this.grid.isEnemyHere(cell))
+		{
+			this.grid.enemyDetected(cell);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Look for an Enemy in the given square and engage it
+	 * @param cell The index of the square a potential Enemy is in
+	 * @return Whether or not an Enemy was found in the given square
+	 */
+	private boolean engage(int cell)
+	{
+		if (this.grid.isEnemyHere(cell))
+		{
+			this.currentEnemy = this.grid.getEnemy(cell);
+			this.currentEnemy.startBattle(this.robot);
+			this.isBattling = true;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks for item and calls the Grid's itemPickedUp method
+	 * @param row The row position on the Grid
+	 * @param column The column position on the Grid
+	 * @return Whether or not an Item was picked up
+	 */
+	private boolean pickUpItem(int row, int column)
+	{
+		// Only calls itemPickedUp if their is an item there
+		int cell = this.grid.index(row, column);
+		if (this.grid.isItemHere(cell))
+		{
+			this.itemPickedUp(this.grid.itemPickedUp(cell));
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Determines the consequence of picking up the given item
+	 * @param item The item that was picked up
+	 */
+	private void itemPickedUp(Item item)
+	{
+		Recorder.commit(Recorder.ITEM_PICKUP, System.nanoTime(), item
+				.getType(), item.getValue());
+		if (item.getType() == Game.DAMAGE_BOOST)
+		{
+			int value = item.getValue();
+			Log.debug("Damage Boost: {}", value);
+			this.robot.damageBoost(value);
+		}
+		else if (item.getType() == Game.HEALTH_BOOST)
+		{
+			int value = item.getValue() * 5;
+			Log.debug("Health Boost: {}", value);
+			this.robot.healthBoost(value);
+		}
+		else if (item.getType() == Game.KEY)
+		{
+			Log.debug("Key Found!");
+			this.keyFound();
+			Log.debug("Number of Keys: {}", this.currentKeys);
+		}
+		this.statusChanged = true;
+	}
+
+	/**
+	 * Called when a key Item is picked up, unlocks the exit if the number of
+	 * keys has reached the required amount
+	 */
+	private void keyFound()
+	{
+		this.currentKeys++;
+		if (this.currentKeys >= this.requiredKeys)
+			this.grid.exitUnlocked(this.grid.index(this.exitLocation.row,
+					this.exitLocation.column));
+	}
+
+	/**
+	 * Ends the level with the given state; only the first call has an effect
+	 * @param state The state the level ended in
+	 */
+	void finish(int state)
+	{
+		if (this.isOver())
+			return;
+		this.state = state;
+		this.isBattling = false;
+		this.scheduler.clear();
+		this.gridChanged = true;
+		this.statusChanged = true;
+	}
+
+	/**
+	 * Releases the level file of a Grid too big to keep in memory (call once
+	 * the level is no longer played or drawn)
+	 */
+	public void close()
+	{
+		if (this.grid != null)
+			this.grid.close();
+	}
+
+	/**
+	 * Called by the Robot when its health reaches 0
+	 */
+	void robotDestroyed()
+	{
+		this.finish(LOST);
+	}
+
+	/**
+	 * Called by an Enemy when it starts battling the Robot; schedules its first
+	 * attack ENEMY_ATTACK_DELAY ticks from now
+	 * @param enemy The engaged Enemy
+	 */
+	void scheduleAttack(Enemy enemy)
+	{
+		this.scheduler.schedule(enemy, this.tick + ENEMY_ATTACK_DELAY);
+	}
+
+	/**
+	 * Called by an Enemy when it is defeated
+	 * @param enemy The defeated Enemy
+	 */
+	void enemyDefeated(Enemy enemy)
+	{
+		this.scheduler.cancel(enemy);
+		if (enemy == this.currentEnemy)
+			this.isBattling = false;
+	}
+
+	/**
+	 * Sets how far away hidden Item and Enemy objects are revealed
+	 * @param revealRadius The number of squares in each direction
+	 */
+	public void setRevealRadius(int revealRadius)
+	{
+		this.revealRadius = revealRadius;
+	}
+
+	/**
+	 * Sets how far away an Enemy engages the Robot
+	 * @param engageRadius The number of squares in each direction
+	 * @param diagonal Whether or not an Enemy diagonal to the Robot engages it
+	 */
+	public void setEngageRadius(int engageRadius, boolean diagonal)
+	{
+		this.engageRadius = engageRadius;
+		this.diagonalEngage = diagonal;
+	}
+
+	/**
+	 * Whether or not the level has ended
+	 * @return If the Robot won, lost or ran out of time
+	 */
+	public boolean isOver()
+	{
+		return this.state != PLAYING && this.state != IN_BATTLE;
+	}
+
+	/**
+	 * Whether or not the grid or Robot changed during the last tick
+	 * @return If the game play area needs to be redrawn
+	 */
+	public boolean hasGridChanged()
+	{
+		return this.gridChanged;
+	}
+
+	/**
+	 * Whether or not the clock, health or keys changed during the last tick
+	 * @return If the StatusBar needs to be redrawn
+	 */
+	public boolean hasStatusChanged()
+	{
+		return this.statusChanged;
+	}
+
+	/**
+	 * Getter for the GameHistory used to rewind the level
+	 * @return The GameHistory
+	 */
+	GameHistory getHistory()
+	{
+		return this.history;
+	}
+
+	/**
+	 * Getter for the generator of the level's random numbers
+	 * @return The GameRandom
+	 */
+	public GameRandom getRandom()
+	{
+		return this.random;
+	}
+
+	/**
+	 * Getter for the Grid
+	 * @return the current Grid
+	 */
+	public Grid getGrid()
+	{
+		return this.grid;
+	}
+
+	/**
+	 * Getter for the Robot
+	 * @return The current Robot
+	 */
+	public Robot getRobot()
+	{
+		return this.robot;
+	}
+
+	/**
+	 * Getter for the total health pool of Enemy Objects
+	 * @return The total health pool of the Enemy objects
+	 */
+	public int getEnemyTotalHealth()
+	{
+		return this.enemyTotalHealth;
+	}
+
+	/**
+	 * Getter for the location of the exit
+	 * @return The exit Location
+	 */
+	public Location getExitLocation()
+	{
+		return this.exitLocation;
+	}
+
+	/**
+	 * Getter for the required number of keys
+	 * @return The required number of keys
+	 */
+	public int getRequiredKeys()
+	{
+		return this.requiredKeys;
+	}
+
+	/**
+	 * Getter for the current number of keys
+	 * @return The current number of keys acquired by the user
+	 */
+	public int getCurrentKeys()
+	{
+		return this.currentKeys;
+	}
+
+	/**
+	 * Getter for the battling state of the Robot
+	 * @return If the Robot is engaged to an Enemy
+	 */
+	public boolean isBattling()
+	{
+		return this.isBattling;
+	}
+
+	/**
+	 * Getter for the current state of the game
+	 * @return The current state
+	 */
+	public int getState()
+	{
+		return this.state;
+	}
+
+	/**
+	 * Getter for the number of ticks simulated
+	 * @return The current tick
+	 */
+	public long getTick()
+	{
+		return this.tick;
+	}
+
+	/**
+	 * Getter for the number of times step() played or rewound the level;
+	 * Unlike the tick it never goes back, so InputLog records input against it
+	 * @return The number of steps
+	 */
+	public long getSteps()
+	{
+		return this.steps;
+	}
+
+	/**
+	 * Return the current time left
+	 * @return the current time left (in seconds)
+	 */
+	public int getTimeLeft()
+	{
+		return this.timeLeft;
+	}
+}
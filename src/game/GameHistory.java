@@ -0,0 +1,179 @@
+package game;
+
+/**
+ * Remembers the last SECONDS of a level so it can be rewound (see
+ * GameEngine.rewind()) without loading it again; Kept as two fixed rings of
+ * numbers, so its memory never grows:
+ *
+ * A checkpoint taken before every tick holds the few values that change all
+ * the time (the clock, keys, state and the Robot), and a journal holds what
+ * each changed square and Enemy was like just before it changed; Rewinding
+ * undoes the journal back to the checkpoint and copies the checkpoint's
+ * values back, so taking a checkpoint only costs a few array writes
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class GameHistory
+{
+	// How far back a level can be rewound
+	public static final int SECONDS = 30;
+	private static final int NO_OF_CHECKPOINTS = SECONDS
+			* GameEngine.TICKS_PER_SECOND + 1;
+
+	// The number of values GameEngine saves in each checkpoint
+	static final int CHECKPOINT_SIZE = 11;
+
+	// The journal has room for this many changes each tick on average (older
+	// checkpoints are dropped if it fills up)
+	private static final int NO_OF_RECORDS = NO_OF_CHECKPOINTS * 16;
+	private static final int RECORD_SIZE = 5;
+	private static final int SQUARE = 0;
+	private static final int ENEMY = 1;
+
+	// The checkpoints, one for each tick from the first to the next
+	private long[] ticks;
+	private long[] journalStarts;
+	private int[] checkpoints;
+	private long first;
+	private long next;
+
+	// The journal and the number of records written to it
+	private int[] journal;
+	private long head;
+	private boolean restoring;
+
+	/**
+	 * Creates an empty GameHistory
+	 */
+	public GameHistory()
+	{
+		this.ticks = new long[NO_OF_CHECKPOINTS];
+		this.journalStarts = new long[NO_OF_CHECKPOINTS];
+		this.checkpoints = new int[NO_OF_CHECKPOINTS * CHECKPOINT_SIZE];
+		this.journal = new int[NO_OF_RECORDS * RECORD_SIZE];
+	}
+
+	/**
+	 * Saves the values of the GameEngine before it plays its next tick (the
+	 * oldest checkpoint is dropped once there are SECONDS worth)
+	 * @param engine The GameEngine
+	 */
+	void checkpoint(GameEngine engine)
+	{
+		if (this.next - this.first == NO_OF_CHECKPOINTS)
+			this.first++;
+		int entry = (int) (this.next % NO_OF_CHECKPOINTS);
+		this.ticks[entry] = engine.getTick();
+		this.journalStarts[entry] = this.head;
+		engine.saveState(this.checkpoints, entry * CHECKPOINT_SIZE);
+		this.next++;
+	}
+
+	/**
+	 * Journals a square of the Grid before it changes
+	 * @param cell The index of the square
+	 * @param overlay Its overlay
+	 * @param imageRef Its image reference
+	 * @param flags Its flags (and which SpatialIndex objects it is in, see
+	 *            Grid.restoreSquare())
+	 */
+	void saveSquare(int cell, int overlay, int imageRef, int flags)
+	{
+		this.write(SQUARE, cell, overlay, imageRef, flags);
+	}
+
+	/**
+	 * Journals an Enemy before it changes
+	 * @param cell The index of its square
+	 * @param health Its health
+	 * @param state The rest of its state (Enemy.getState())
+	 * @param attackTick The tick it is scheduled to attack on
+	 */
+	void saveEnemy(int cell, int health, int state, long attackTick)
+	{
+		this.write(ENEMY, cell, health, state, (int) attackTick);
+	}
+
+	/**
+	 * Adds a record to the journal
+	 * @param type SQUARE or ENEMY
+	 * @param cell The index of the square
+	 * @param first The first value
+	 * @param second The second value
+	 * @param third The third value
+	 */
+	private void write(int type, int cell, int first, int second, int third)
+	{
+		// Changes made while loading or rewinding are never undone
+		if (this.restoring || this.first == this.next)
+			return;
+		int record = (int) (this.head % NO_OF_RECORDS) * RECORD_SIZE;
+		this.journal[record] = type;
+		this.journal[record + 1] = cell;
+		this.journal[record + 2] = first;
+		this.journal[record + 3] = second;
+		this.journal[record + 4] = third;
+		this.head++;
+
+		// Checkpoints whose changes were overwritten can't be rewound to
+		while (this.first < this.next
+				&& this.journalStarts[(int) (this.first % NO_OF_CHECKPOINTS)]
+				< this.head - NO_OF_RECORDS)
+			this.first++;
+	}
+
+	/**
+	 * Returns the oldest tick the level can be rewound to
+	 * @return The tick (-1 if there are no checkpoints)
+	 */
+	public long getOldestTick()
+	{
+		if (this.first == this.next)
+			return -1;
+		return this.ticks[(int) (this.first % NO_OF_CHECKPOINTS)];
+	}
+
+	/**
+	 * Puts the GameEngine back the way it was the given number of ticks ago
+	 * (or as far back as the GameHistory goes)
+	 * @param engine The GameEngine
+	 * @param noOfTicks The number of ticks to go back
+	 * @return The number of ticks it went back
+	 */
+	long rewind(GameEngine engine, long noOfTicks)
+	{
+		long oldest = this.getOldestTick();
+		if (oldest == -1 || noOfTicks <= 0)
+			return 0;
+		long target = Math.max(engine.getTick() - noOfTicks, oldest);
+
+		// There is a checkpoint for every tick since the oldest
+		long checkpoint = this.first + (target - oldest);
+		int entry = (int) (checkpoint % NO_OF_CHECKPOINTS);
+		long start = this.journalStarts[entry];
+		Grid grid = engine.getGrid();
+		this.restoring = true;
+		for (long written = this.head - 1; written >= start; written--)
+		{
+			int record = (int) (written % NO_OF_RECORDS) * RECORD_SIZE;
+			int cell = this.journal[record + 1];
+			if (this.journal[record] == SQUARE)
+				grid.restoreSquare(cell, this.journal[record + 2],
+						this.journal[record + 3], this.journal[record + 4]);
+			else
+				engine.restoreEnemy(cell, this.journal[record + 2],
+						this.journal[record + 3], this.journal[record + 4]);
+		}
+		long rewound = engine.getTick() - target;
+		engine.restoreState(this.checkpoints, entry * CHECKPOINT_SIZE,
+				target);
+		this.restoring = false;
+
+		// The ticks after the checkpoint are played again from here
+		this.head = start;
+		this.next = checkpoint;
+		return rewound;
+	}
+}
@@ -0,0 +1,141 @@
+package game;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * The simulation thread used when GamePanel draws with Swing (the default);
+ * The only thread that touches the GameEngine while a level is played: it
+ * takes the user's input from an InputQueue, steps the GameEngine every
+ * TICK_LENGTH milliseconds and publishes a FrameSnapshot through a
+ * SnapshotBuffer for each tick that changed something, telling the Event
+ * Dispatch Thread only when it has taken the previous one
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class GameLoop implements Runnable
+{
+	// Ticks further behind than this are skipped instead of played at once
+	private static final int MAX_CATCH_UP = 5;
+
+	private GamePanel gamePanel;
+	private GameEngine engine;
+	private InputQueue queue;
+	private SnapshotBuffer snapshots;
+	private Runnable frameReady;
+	private InputFrame input;
+	private Thread thread;
+	private volatile boolean running;
+	private long tickLength;
+
+	/**
+	 * Creates the GameLoop for the given GamePanel
+	 * @param gamePanel The GamePanel drawing the FrameSnapshot objects
+	 * @param engine The GameEngine to step
+	 * @param queue The input from GamePanel's KeyListener
+	 * @param snapshots Where to publish each FrameSnapshot
+	 */
+	public GameLoop(final GamePanel gamePanel, GameEngine engine,
+			InputQueue queue, SnapshotBuffer snapshots)
+	{
+		this.gamePanel = gamePanel;
+		this.engine = engine;
+		this.queue = queue;
+		this.snapshots = snapshots;
+		this.frameReady = new Runnable()
+		{
+			public void run()
+			{
+				gamePanel.frameReady();
+			}
+		};
+		this.input = new InputFrame();
+		this.tickLength = GameEngine.TICK_LENGTH * 1000000L;
+	}
+
+	/**
+	 * Starts the simulation thread
+	 */
+	public void start()
+	{
+		this.running = true;
+		this.thread = new Thread(this, "GameLoop");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Stops the simulation thread and waits for it to finish its tick
+	 */
+	public void stop()
+	{
+		this.running = false;
+		if (this.thread != null && Thread.currentThread() != this.thread)
+		{
+			this.thread.interrupt();
+			try
+			{
+				this.thread.join();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Steps the GameEngine once every TICK_LENGTH (while the game isn't
+	 * paused) until the level ends or stop() is called
+	 */
+	public void run()
+	{
+		long nextTick = System.nanoTime() + this.tickLength;
+		while (this.running)
+		{
+			long sleep = nextTick - System.nanoTime();
+			if (sleep > 0)
+			{
+				try
+				{
+					Thread.sleep(sleep / 1000000, (int) (sleep % 1000000));
+				}
+				catch (InterruptedException e)
+				{
+					return;
+				}
+			}
+			if (!this.running)
+				return;
+
+			// Drop ticks that are too late (i.e. after the computer slept)
+			nextTick += this.tickLength;
+			long now = System.nanoTime();
+			if (now - nextTick > MAX_CATCH_UP * this.tickLength)
+				nextTick = now + this.tickLength;
+
+			if (!this.gamePanel.isPaused())
+				this.tick();
+			else
+				this.queue.drainTo(this.input, this.engine.getSteps() + 1);
+		}
+	}
+
+	/**
+	 * Steps the GameEngine once and publishes what it looks like now
+	 */
+	private void tick()
+	{
+		this.queue.drainTo(this.input, this.engine.getSteps() + 1);
+		this.engine.step(this.input);
+		this.input.clearAttack();
+
+		boolean over = this.engine.isOver();
+		if (over)
+			this.running = false;
+		if ((over || this.engine.hasGridChanged() || this.engine
+				.hasStatusChanged()) && this.snapshots.publish(this.engine))
+			SwingUtilities.invokeLater(this.frameReady);
+	}
+}
@@ -7,10 +7,8 @@ import java.awt.Graphics;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 
-import javax.imageio.ImageIO;
 import javax.swing.JPanel;
 
 /**
@@ -51,7 +49,7 @@ public class GameOver extends JPanel implements MouseListener
 	public GameOver(GamePanel gamePanel, int state, int timeLeft, Game game)
 	{
 		super();
-		System.out.println("State: "+state);
+		Log.debug("State: {}", state);
 
 		// Set up the JPanel
 		this.game = game;
@@ -71,7 +69,7 @@ public class GameOver extends JPanel implements MouseListener
 		}
 		catch (IOException e)
 		{
-			System.err.println("Trying loadImages() in GameOver");
+			Log.error("Trying loadImages() in GameOver: {}", e);
 		}
 
 		// Optimize for MouseListener and display the components
@@ -141,12 +139,10 @@ public class GameOver extends JPanel implements MouseListener
 	 */
 	private void loadImages() throws IOException
 	{
-		File file;
 		if (this.state > 0)
-			file = new File("Victory.png");
+			this.image = AssetCache.getImage("Victory.png");
 		else
-			file = new File("Defeat.png");
-		this.image = ImageIO.read(file);
+			this.image = AssetCache.getImage("Defeat.png");
 	}
 
 	/**
@@ -220,7 +216,7 @@ public class GameOver extends JPanel implements MouseListener
 	 */
 	public void mouseClicked(MouseEvent e)
 	{
-		System.out.println("Entered MouseClicked()");
+		Log.trace("Entered MouseClicked()");
 		int x = e.getX();
 		int y = e.getY();
 
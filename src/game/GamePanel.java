@@ -1,66 +1,65 @@
 package game;
 
+import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Image;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 
-import javax.imageio.ImageIO;
 import javax.swing.JPanel;
-import javax.swing.Timer;
 
 /**
  * The main JPanel of the game, called when user starts playing a new level
- * Handles all game play and drawing (except the robot, which draws itself)
+ * Starts the thread stepping the GameEngine (a GameLoop, or a GameCanvas when
+ * active rendering is on), passes it the user's input through an InputQueue
+ * and draws the game play from the FrameSnapshot objects it publishes (the
+ * rules themselves live in GameEngine)
  * 
  * @author Bimesh De Silva
  * @version January 2014
  *
  */
-public class GamePanel extends JPanel implements KeyListener, ActionListener,
-		MouseListener
+public class GamePanel extends JPanel implements KeyListener, MouseListener
 {
 	private int width;
 	private Game game;
-	public Square[][] grid;
-	private int state;
-	private boolean isBattling;
-	private Robot robot;
-	private Location robotPos;
-	private Enemy currentEnemy;
-	private static boolean[] keysPressed;
+	private GameEngine engine;
+	private InputQueue queue;
+	private Replay replay;
+	private SnapshotBuffer snapshots;
+	private FrameSnapshot frame;
+	private int statusVersion;
 	private static final String[] titles = { "        Resume",
 			"        Restart", "    Main Menu",
 			"  Level Selector", "           Help" };
-	private final int DELAY = 100;
-	public final int HEALTH_DRAIN = 2;
-	public final int HEALING_BOOST = 100 / (1000 / DELAY);
-	private int requiredKeys;
-	private int currentKeys;
-	private Location exitLocation;
 	private StatusBar statusBar;
-	private Timer timer;
+	private GameLoop loop;
 	private int level;
 	private boolean drawMenu;
 
 	// Stores all of the required images
-	private final int NO_OF_IMAGES = 12;
+	static final int NO_OF_IMAGES = 12;
 	public BufferedImage[] images;
 	public BufferedImage[] robotImages;
-	private boolean isAttacking;
+	private TileAtlas atlas;
+	private GridRenderer renderer;
+	private int robotRow;
+	private int robotColumn;
+	private Direction robotDirection;
+	private int[] enemySquares;
+	private int noOfEnemySquares;
 	private int[] rowPositions;
 	private MenuItem[] rectangles;
 	private int buttonWidth;
-	private boolean paused;
+	private volatile boolean paused;
+	private GameCanvas canvas;
+	private Camera camera;
 	private boolean showHelp;
 	private BufferedImage help;
 
@@ -111,32 +110,48 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener,
 	}
 
 	/**
-	 * Loads images required to draw the game components
+	 * Loads images required to draw the game components (shared through the
+	 * AssetCache, so only the first level decodes them)
 	 */
 	private void loadImages()
 	{
 		// Loads the images into a new BufferedImage array
-		this.images = new BufferedImage[this.NO_OF_IMAGES];
-		for (int picture = 0; picture < this.NO_OF_IMAGES; picture++)
+		this.images = new BufferedImage[NO_OF_IMAGES];
+		for (int picture = 0; picture < NO_OF_IMAGES; picture++)
 		{
 			try
 			{
-				this.images[picture] = ImageIO.read(new File("Image" + picture
-						+ ".png"));
+				this.images[picture] = AssetCache.getImage("Image" + picture
+						+ ".png");
 			}
 			catch (IOException e)
 			{
-				System.err.println("Loading image #" + picture
-						+ " - loadImages() in Main class");
+				Log.error("Loading image #{} - loadImages() in Main class",
+						picture);
+			}
+		}
+		this.robotImages = new BufferedImage[Robot.NO_OF_IMAGES];
+		for (int image = 0; image < Robot.NO_OF_IMAGES; image++)
+		{
+			try
+			{
+				this.robotImages[image] = AssetCache.getImage("Robot" + image
+						+ ".png");
+				Log.trace("Loaded Image: Robot{}", image);
+			}
+			catch (IOException e)
+			{
+				Log.error("loading ROBOT image #{} - loadImages() in GamePanel",
+						image);
 			}
 		}
 		try
 		{
-			this.help = ImageIO.read(new File("MenuImage2.png"));
+			this.help = AssetCache.getImage("MenuImage2.png");
 		}
 		catch (IOException e)
 		{
-			System.out.println("Loading MenuImage2.png in loadImages() in GamePanel");
+			Log.error("Loading MenuImage2.png in loadImages() in GamePanel");
 		}
 	}
 
@@ -145,6 +160,7 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener,
 	 */
 	public void retry()
 	{
+		this.stop();
 		this.setVisible(false);
 		this.setEnabled(false);
 		this.game.remove(this);
@@ -157,6 +173,7 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener,
 	 */
 	public void returnToMainMenu()
 	{
+		this.stop();
 		this.setVisible(false);
 		this.setEnabled(false);
 		this.game.remove(this);
@@ -169,6 +186,7 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener,
 	 */
 	public void toLevelSelector()
 	{
+		this.stop();
 		this.setVisible(false);
 		this.setEnabled(false);
 		this.game.remove(this);
@@ -198,25 +216,49 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener,
 	/**
 	 * Allows Game to add required data to this object
 	 * 
-	 * @param robot The Robot object previously created by game
+	 * @param engine The GameEngine previously loaded by game
 	 * @param statusBar The StatusBar that displays important information
+	 * @param level The level being played
 	 */
-	public void addGameData(Robot robot, StatusBar statusBar, int level)
+	public void addGameData(GameEngine engine, StatusBar statusBar, int level)
 	{
-		this.state = 0;
 		this.level = level;
-		this.robot = robot;
+		this.engine = engine;
 		this.statusBar = statusBar;
-		this.grid = game.getGrid();
 		this.paused = false;
 		this.showHelp = false;
-		this.requiredKeys = game.getNoOfKeys();
-		keysPressed = new boolean[4];
+		this.queue = new InputQueue();
 		this.drawMenu = false;
 		this.width = Game.SQUARE_WIDTH * Game.NO_OF_ROWS;
+		this.snapshots = new SnapshotBuffer(engine, this.width);
+		this.frame = this.snapshots.acquire();
+		this.statusVersion = this.frame.getStatusVersion();
+		this.enemySquares = new int[32];
+		this.noOfEnemySquares = 0;
 		this.setEnabled(true);
 		this.setPreferredSize(new Dimension(this.width, this.width));
 		this.setMinimumSize(new Dimension(this.width, this.width));
+		this.atlas = TileAtlas.getAtlas(Game.SQUARE_WIDTH, this.width,
+				this.images, this.robotImages);
+		this.renderer = new GridRenderer(this.atlas, this.width);
+		Grid grid = engine.getGrid();
+		this.camera = new Camera(this.width, this.width, grid.getColumns()
+				* Game.SQUARE_WIDTH, grid.getRows() * Game.SQUARE_WIDTH);
+		this.robotRow = this.frame.getRobotRow();
+		this.robotColumn = this.frame.getRobotColumn();
+		this.robotDirection = this.frame.getRobotDirection();
+		this.followRobot();
+
+		// Use a Canvas with its own game loop if active rendering is on
+		if (Game.ACTIVE_RENDERING)
+		{
+			this.canvas = new GameCanvas(this, engine, this.queue,
+					this.snapshots, this.renderer, this.camera,
+					Game.TARGET_FPS);
+			this.canvas.addKeyListener(this);
+			this.setLayout(new BorderLayout());
+			this.add(this.canvas, BorderLayout.CENTER);
+		}
 
 		// Loads MenuItem objects required for menu
 		this.loadRectangles();
@@ -227,13 +269,13 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener,
 	}
 
 	/**
-	 * Allows other objects to get the current Robot object
+	 * Allows other objects to get the GameEngine being drawn
 	 * 
-	 * @return The current Robot
+	 * @return The current GameEngine
 	 */
-	public Robot getRobot()
+	public GameEngine getEngine()
 	{
-		return this.robot;
+		return this.engine;
 	}
 
 	@Override
@@ -249,51 +291,19 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener,
 	 */
 	public void paintComponent(final Graphics g)
 	{
+		long start = System.nanoTime();
 		super.paintComponent(g);
 
 		// Draw the game grid if the drawMenu flag isn't in place
 		if (!this.drawMenu)
 		{
-
-			Image image = this.images[0];
-
-			// Draws the game play grid if the state is correct
-			if (this.state == 0 || this.state == 2)
+			// Draws the game play grid if the state is correct (GameCanvas
+			// draws it on its own thread in active rendering mode)
+			if (this.canvas == null && !this.frame.isOver())
 			{
-				// Draw the background
-				g.drawImage(image, 0, 0, this.width, this.width, this.game);
-
-				// Draw all stationary items the cycling through all grid
-				// squares
-				for (int row = 0; row < Game.NO_OF_ROWS; row++)
-				{
-					for (int column = 0; column < Game.NO_OF_ROWS; column++)
-					{
-						char overlay = this.grid[row][column].getOverlay();
-						if (this.grid[row][column].itemImgRef != 0)
-						{
-							if (overlay != game.BOSS
-									&& overlay != game.HIDDEN_ENEMY
-									&& overlay != game.ENEMY)
-							{
-								image = this.images[this.grid[row][column].itemImgRef];
-								g.drawImage(image, column * Game.SQUARE_WIDTH,
-										row * Game.SQUARE_WIDTH,
-										Game.SQUARE_WIDTH,
-										Game.SQUARE_WIDTH, this.game);
-							}
-							else
-							{
-								this.grid[row][column].getEnemy().draw(g);
-							}
-
-						}
-					}
-				}
-
-				// Calls Robot object to draw it self on the given Graphics
-				// object
-				this.robot.draw(g);
+				// Draw the cached background and tiles, then the Enemy objects
+				// and the Robot on top
+				this.renderer.draw(g, this.camera, this.frame);
 			}
 		}
 		// If the flag is up, draw the in-game menu
@@ -314,406 +324,206 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener,
 				g.drawImage(this.help, 5, 5, this.width-10, this.width-10, this.game);
 			}
 		}
+		if (this.canvas == null)
+		{
+			Metrics.FRAME.recordSince(start);
+			Recorder.commit(Recorder.PAINT, start, this.renderer
+					.takeTilesDrawn(), this.renderer.getEnemiesDrawn());
+		}
 	}
 
 	/**
-	 * Allows Game to set the exit location when creating the grid of Squares
-	 * 
-	 * @param row The row position on the Square object array
-	 * @param column The column position on the Square object array
+	 * Plays the given Replay instead of the user's input (call before
+	 * startGame())
+	 * @param replay The Replay of this level
 	 */
-	public void setExitLocation(int row, int column)
+	public void setReplay(Replay replay)
 	{
-		this.exitLocation = new Location(row, column);
+		this.replay = replay;
+		this.queue.setReplay(replay);
 	}
 
 	/**
-	 * Creates a new Timer object
+	 * Starts the thread stepping the GameEngine, recording the user's input
+	 * (see InputLog) unless a Replay is being played
 	 */
 	public void startGame()
 	{
-		this.timer = new Timer(DELAY, this);
-		this.timer.start();
-		this.statusBar.start();
-		this.currentKeys = 0;
-		this.isBattling = false;
-		this.isAttacking = false;
-	}
-
-	/**
-	 * Main game play method, called with each timer tick Checks for any input
-	 * by user, calls repaint() if any changes are made to objects
-	 */
-	private void process()
-	{
-		robotPos = robot.getLocation();
-		if (this.grid[robotPos.row][robotPos.column].isStartHere())
-		{
-			this.robot.healthBoost(this.HEALING_BOOST);
-		}
-
-		// Only check changes to grid if user moved the Robot
-		if (this.move())
+		if (this.replay == null)
+			this.queue.setLog(InputLog.create(this.level, this.engine));
+		if (this.canvas != null)
 		{
-			this.paintImmediately(0, 0, this.width, this.width);
-			if (this.checkMove())
-				this.repaint();
+			this.canvas.start();
+			this.canvas.requestFocusInWindow();
 		}
-	}
-
-	/**
-	 * Using the health and damage parameters of the Robot and Enemy objects,
-	 * perform one "trade" of health between the two objects.
-	 * 
-	 * @deprecated Replaced with Timer in Enemy object and actionPerformed for
-	 *             user's Robot object
-	 * @param square The square of which the enemy is in
-	 */
-	private void battle(Square square)
-	{
-		// Sets up required variables
-		Enemy enemy = square.getEnemy();
-		System.out.println("Start battle!");
-		this.isBattling = true;
-		int robotDmg = this.robot.getDamage();
-		int enemyDmg = enemy.getDamage();
-		System.out.println("Robot Health: " + this.robot.getHealth());
-		System.out.println("Enemy Health: " + enemy.getHealth());
-
-		// Performs the "trade" of health using the given damage parameters
-		robot.loseHealth(enemyDmg);
-		enemy.loseHealth(robotDmg);
-
-		// Checks for any end results of the battle
-		if (this.robot.isDisabled())
-		{
-			this.isBattling = false;
-			this.state = -1;
-			this.endGame();
-		}
-		else if (enemy.isDisabled())
+		else
 		{
-			this.isBattling = false;
-			System.out.println("EPIC SOUND \n AND STARS");
-			square.enemyDefeated();
+			this.loop = new GameLoop(this, this.engine, this.queue,
+					this.snapshots);
+			this.loop.start();
 		}
 	}
 
 	/**
-	 * Returns the width of the JPanel
-	 * 
-	 * @return the width of the JPanel
-	 */
-	public int getWidth()
-	{
-		return this.width;
-	}
-
-	public synchronized void repaintHealthBar()
-	{
-		this.statusBar.repaintHealthBar();
-	}
-
-	/**
-	 * Checks for item and calls the respective Square object's itemPickedUp
-	 * method
-	 * 
-	 * @param row The row position on the Square object 2-D array
-	 * @param column The column position on the Square object 2-D array
-	 * @return
+	 * Stops stepping the GameEngine (either the GameLoop or the GameCanvas),
+	 * finishes the recording of the user's input and releases its level file
 	 */
-	private boolean pickUpItem(int row, int column)
+	private void stop()
 	{
-		// Only calls itemPickedUp if their is an item there
-		if (this.grid[row][column].isItemHere())
+		if (this.loop != null)
+			this.loop.stop();
+		if (this.canvas != null)
+			this.canvas.stop();
+		InputLog log = this.queue.getLog();
+		if (log != null)
 		{
-			this.itemPickedUp(this.grid[row][column].itemPickedUp());
-			return true;
+			log.close(this.engine.getSteps(), this.engine.getState());
+			this.queue.setLog(null);
 		}
-		return false;
+		this.engine.close();
 	}
 
 	/**
-	 * Determines the consequence of picking up the given item
-	 * 
-	 * @param item The item that was picked up
+	 * Shows the latest FrameSnapshot (called on the Event Dispatch Thread
+	 * after one is published); Repaints the squares that changed, redraws the
+	 * StatusBar and ends the level once it is over
 	 */
-	public void itemPickedUp(Item item)
+	void frameReady()
 	{
-		if (item.getType() == game.DAMAGE_BOOST)
+		// Frames can still arrive after the level was left through the menu
+		if (!this.isEnabled())
+			return;
+		FrameSnapshot frame = this.snapshots.acquire();
+		if (frame == null)
+			return;
+		this.frame = frame;
+		if (frame.isOver())
 		{
-			int value = item.getValue();
-			System.out.println("Damage Boost: " + value);
-			this.robot.damageBoost(value);
+			this.endGame();
+			return;
 		}
-		else if (item.getType() == game.HEALTH_BOOST)
+
+		// A GameCanvas draws the grid itself
+		if (this.canvas == null)
 		{
-			int value = item.getValue() * 5;
-			System.out.println("Health Boost: " + value);
-			this.robot.healthBoost(value);
+			// Scrolling changes the whole view, otherwise only the squares
+			// that changed are repainted
+			if (this.followRobot())
+			{
+				this.repaint();
+				this.robotRow = frame.getRobotRow();
+				this.robotColumn = frame.getRobotColumn();
+				this.robotDirection = frame.getRobotDirection();
+				this.noOfEnemySquares = 0;
+			}
+			else
+				this.repaintChanges();
 		}
-		else if (item.getType() == game.KEY)
+		if (frame.getStatusVersion() != this.statusVersion)
 		{
-			System.out.println("Key Found!");
-			this.keyFound();
-			System.out.println("Number of Keys: " + this.currentKeys);
+			this.statusVersion = frame.getStatusVersion();
+			this.statusBar.update(frame);
 		}
-		this.statusBar.update();
-	}
-
-	/**
-	 * Called when a key Item is picked up, determines consequence
-	 */
-	private void keyFound()
-	{
-		this.currentKeys++;
-
-		// Unlocks exit if the number of keys has reached the required amount
-		if (this.currentKeys >= this.requiredKeys)
-			this.exitUnlocked();
 	}
 
 	/**
-	 * Called by keyFound method with the correct number of keys; Unlocks the
-	 * exit by calling exitUnlocked in its respective location
+	 * Centres the Camera on the Robot
+	 * @return Whether or not the Camera moved
 	 */
-	private void exitUnlocked()
+	private boolean followRobot()
 	{
-		this.grid[exitLocation.row][exitLocation.column].exitUnlocked();
+		return this.camera.centreOn(this.frame.getRobotColumn()
+				* Game.SQUARE_WIDTH + Game.SQUARE_WIDTH / 2,
+				this.frame.getRobotRow() * Game.SQUARE_WIDTH
+						+ Game.SQUARE_WIDTH / 2);
 	}
 
 	/**
-	 * Checks and reveals Item objects within 2 squares and calls the engage()
-	 * method in any enemies are found within 1 grid square
-	 * 
-	 * @return whether or not any objects were revealed
+	 * Redraws the squares whose tiles changed into the GridRenderer's layer
+	 * and repaints only those squares, the Robot's old and new squares and the
+	 * squares of the Enemy objects (whose health bars may have changed) in the
+	 * last and the new FrameSnapshot
 	 */
-	private boolean checkMove()
+	private void repaintChanges()
 	{
-		// Set up required variables and checks for Item on respective grid
-		// square
-		int row = robotPos.row;
-		int column = robotPos.column;
-		boolean revealed = false;
-		if (this.pickUpItem(row, column))
-			revealed = true;
-
-		// Ends game if exit is underneath Robot
-		if (this.grid[row][column].isExitHere())
-		{
-			this.state = 1;
-			this.endGame();
-		}
-
-		// Reveals all items within 2 grid squares
-		for (int addColumn = -2; addColumn <= 2; addColumn++)
-		{
-			for (int addRow = -2; addRow <= 2; addRow++)
-			{
-				row += addRow;
-				column += addColumn;
-				if (row >= 0 && column >= 0 && row <= 23 && column <= 23)
-				{
-					if (this.reveal(row, column))
-						revealed = true;
-				}
-				row -= addRow;
-				column -= addColumn;
-			}
-		}
+		int changed = this.renderer.sync(this.camera, this.frame);
+		for (int change = 0; change < changed; change++)
+			this.repaintSquare(this.renderer.getChangedX(change),
+					this.renderer.getChangedY(change));
 
-		// Checks horizontally and vertically for an enemy within
-		// 1 square and engages it (not diagonally)
-		for (int change = -1; change <= 1; change++)
+		int row = this.frame.getRobotRow();
+		int column = this.frame.getRobotColumn();
+		if (row != this.robotRow || column != this.robotColumn
+				|| this.frame.getRobotDirection() != this.robotDirection)
 		{
-			row += change;
-			if (this.engage(row, column))
-			{
-				revealed = true;
-				this.isBattling = true;
-			}
-			row -= change;
-			column += change;
-			if (this.engage(row, column))
-			{
-				revealed = true;
-				this.isBattling = true;
-			}
-			column -= change;
+			this.repaintSquare(this.robotColumn * Game.SQUARE_WIDTH,
+					this.robotRow * Game.SQUARE_WIDTH);
+			this.repaintSquare(column * Game.SQUARE_WIDTH, row
+					* Game.SQUARE_WIDTH);
+			this.robotRow = row;
+			this.robotColumn = column;
+			this.robotDirection = this.frame.getRobotDirection();
 		}
 
-		// Code for additional diagonal checks
-		// for (int addColumn = -1; addColumn <= 1; addColumn++)
-		// {
-		// for (int addRow = -1; addRow <= 1; addRow++)
-		// {
-		// row += addRow;
-		// column += addColumn;
-		// if(this.engage(row, column))
-		// revealed = true;
-		// row -= addRow;
-		// column -= addColumn;
-		// }
-		// }
-
-		return revealed;
-	}
-
-	/**
-	 * Looks for an Enemy that is currently engaged and attack it
-	 * 
-	 * @return If an Enemy is currently engaged
-	 */
-	private boolean findBattle()
-	{
-		if (this.isBattling)
+		// The last FrameSnapshot may be reused already, so its Enemy squares
+		// are kept here
+		for (int square = 0; square < this.noOfEnemySquares; square += 2)
+			this.repaintSquare(this.enemySquares[square],
+					this.enemySquares[square + 1]);
+		int noOfEnemies = this.frame.getNoOfEnemies();
+		if (this.enemySquares.length < noOfEnemies * 2)
+			this.enemySquares = new int[noOfEnemies * 4];
+		this.noOfEnemySquares = 0;
+		for (int enemy = 0; enemy < noOfEnemies; enemy++)
 		{
-			currentEnemy.loseHealth(robot.getDamage());
-			return true;
+			int x = this.frame.getEnemyColumn(enemy) * Game.SQUARE_WIDTH;
+			int y = this.frame.getEnemyRow(enemy) * Game.SQUARE_WIDTH;
+			this.repaintSquare(x, y);
+			this.enemySquares[this.noOfEnemySquares++] = x;
+			this.enemySquares[this.noOfEnemySquares++] = y;
 		}
-
-		return false;
 	}
 
 	/**
-	 * End the current level by calling Game and reseting important variables
+	 * Repaints one square (and the Enemy health bar that may overlap it)
+	 * @param x The x coordinate of the square in the level
+	 * @param y The y coordinate of the square in the level
 	 */
-	synchronized void endGame()
+	private void repaintSquare(int x, int y)
 	{
-		statusBar.gameOver();
-		timer.stop();
-		game.gameOver(state);
-		currentEnemy.dispose();
-		this.setEnabled(false);
+		this.repaint(x - this.camera.getX() - 6, y - this.camera.getY() - 6,
+				Game.SQUARE_WIDTH + 12, Game.SQUARE_WIDTH + 12);
 	}
 
 	/**
-	 * Looks for an an Enemy in the given position
-	 * @param row The row to look at
-	 * @param column The column to look at
-	 * @return Whether or not an enemy was found
+	 * Returns the width of the JPanel
+	 * 
+	 * @return the width of the JPanel
 	 */
-	private boolean reveal(int row, int column)
+	public int getWidth()
 	{
-		if (this.grid[row][column].isItemHere())
-		{
-			this.grid[row][column].itemDetected();
-			return true;
-		}
-		if (this.grid[row][column].isEnemyHere())
-		{
-			this.grid[row][column].enemyDetected();
-			return true;
-		}
-		return false;
+		return this.width;
 	}
 
 	/**
-	 * Look for an engage in the given position and engage
-	 * @param row The row that a potential Enemy is in
-	 * @param column The row that a potential Enemy is in
-	 * @return Whether or not an Enemy was found in the given position
+	 * End the current level by calling Game and reseting important variables
+	 * (only called on the Event Dispatch Thread, by frameReady())
 	 */
-	private boolean engage(int row, int column)
+	private void endGame()
 	{
-		if (grid[row][column].isEnemyHere())
-		{
-			// this.battle(grid[row][column]);
-			this.currentEnemy = grid[row][column].getEnemy();
-			this.currentEnemy.startBattle(this.robot);
-			this.isBattling = true;
-			return true;
-		}
-		return false;
+		this.stop();
+		this.setEnabled(false);
+		this.game.gameOver(this.frame.getState());
 	}
 
 	/**
-	 * Looks for keys pressed by the user and moves the Robot
-	 * @return Whether or not the Robot moved this cycle
+	 * Getter for the FrameSnapshot being drawn (only valid on the Event
+	 * Dispatch Thread, until the next one is taken)
+	 * @return The FrameSnapshot
 	 */
-	private boolean move()
+	public FrameSnapshot getFrame()
 	{
-		boolean moved = false;
-
-		// Only moves if the Robot isn't engaged to an Enemy
-		// Changes moved boolean to true if any action is performed
-		if (!this.isBattling)
-		{
-			int rowChange = 0;
-			int columnChange = 0;
-			Location original = robot.getLocation();
-			if (keysPressed[0])
-			{
-				rowChange--;
-				moved = true;
-			}
-			if (keysPressed[1])
-			{
-				columnChange++;
-				moved = true;
-			}
-			if (keysPressed[2])
-			{
-				rowChange++;
-				moved = true;
-			}
-			if (keysPressed[3])
-			{
-				columnChange--;
-				moved = true;
-			}
-
-			// Only updates the Robot if their was a row or column change (i.e
-			// if a user presses down and up there was no change so it wouldn't
-			// enter this loop)
-			if (moved && (rowChange != 0 || columnChange != 0))
-			{
-				int newRow = rowChange + original.row;
-				int newColumn = columnChange + original.column;
-				// Check if the new point is an available location
-				robot.changeDirection(rowChange, columnChange);
-				// if (this.grid[newRow][newColumn].isEmpty())
-				// {
-				// if (grid[newRow][newColumn].isDirectionHere())
-				// {
-				// if (robot.getDirection().equals(
-				// grid[newRow][newColumn].passableDirection()))
-				// this.robot.move(row, column);
-				// }
-				// else
-				// this.robot.move(row, column);
-				// this.repaint();
-				// return true;
-				// }
-				// else
-				// this.repaint();
-
-				// Moves theRobot to the new location if possible
-				if (this.grid[newRow][newColumn].isEmpty())
-				{
-
-					// Checks if the Robot is traveling in the correct direction
-					if (this.grid[original.row][original.column]
-							.isDirectionHere())
-					{
-						int directionDifference = Math.abs(this.robot
-								.getDirection().number()
-								- this.grid[original.row][original.column]
-										.passableDirection().number());
-
-						// Allows for a one direction difference (the 7 is there
-						// for the North(0) to North-West(7) special case
-						if (directionDifference <= 1
-								|| directionDifference == 7)
-							this.robot.move(rowChange, columnChange);
-					}
-					// If there isn't a direction marker, move as usual
-					else
-						this.robot.move(rowChange, columnChange);
-				}
-			}
-		}
-		return moved;
+		return this.frame;
 	}
 
 	/**
@@ -722,7 +532,7 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener,
 	 */
 	public int getRequiredKeys()
 	{
-		return this.requiredKeys;
+		return this.frame.getRequiredKeys();
 	}
 
 	/**
@@ -731,7 +541,7 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener,
 	 */
 	public int getCurrentKeys()
 	{
-		return this.currentKeys;
+		return this.frame.getCurrentKeys();
 	}
 
 	/**
@@ -740,88 +550,54 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener,
 	 */
 	public int getState()
 	{
-		return this.state;
-	}
-
-	/**
-	 * Setter for the game's state
-	 * @param state The state to set the game in
-	 */
-	void setState(int state)
-	{
-		if (state >= -2 && state <= 2)
-			this.state = state;
-		System.out.println("State set to: " + this.state);
+		return this.frame.getState();
 	}
 
 	/**
-	 * Receives KeyEvents from the JFrame; Changes the keysPressed array for use
-	 * by the move() method
+	 * Receives KeyEvents from the JFrame; Queues them for the thread stepping
+	 * the GameEngine to use on its next tick
 	 * @Override The KeyListener keyPressed() method
 	 */
 	public void keyPressed(KeyEvent e)
 	{
-		if (!paused)
+		// F3 shows or hides the metrics in the StatusBar
+		if (e.getKeyCode() == KeyEvent.VK_F3)
+			this.statusBar.toggleOverlay();
+		else if (!paused)
 		{
 			int key = e.getKeyCode();
-
-			// If the Robot is currently attacking, don't accept KeyEvents
-			if (!isAttacking)
-			{
-				// Only accept movement KeyEvents if the Robot isn't engaged
-				if (!this.isBattling)
-				{
-					if (key == KeyEvent.VK_UP || key == KeyEvent.VK_W)
-						keysPressed[0] = true;
-					else if (key == KeyEvent.VK_RIGHT || key == KeyEvent.VK_D)
-						keysPressed[1] = true;
-					else if (key == KeyEvent.VK_DOWN || key == KeyEvent.VK_S)
-						keysPressed[2] = true;
-					else if (key == KeyEvent.VK_LEFT || key == KeyEvent.VK_A)
-						keysPressed[3] = true;
-				}
-				// Only accept attacking KeyEvents if the Robot is engaged
-				else if (key == KeyEvent.VK_F || key == KeyEvent.VK_SPACE)
-				{
-					// If there was a battle, repaint the JPanel
-					if (this.findBattle())
-					{
-						this.repaint();
-						this.statusBar.update();
-					}
-				}
-			}
+			if (key == KeyEvent.VK_UP || key == KeyEvent.VK_W)
+				this.queue.pressKey(InputFrame.UP);
+			else if (key == KeyEvent.VK_RIGHT || key == KeyEvent.VK_D)
+				this.queue.pressKey(InputFrame.RIGHT);
+			else if (key == KeyEvent.VK_DOWN || key == KeyEvent.VK_S)
+				this.queue.pressKey(InputFrame.DOWN);
+			else if (key == KeyEvent.VK_LEFT || key == KeyEvent.VK_A)
+				this.queue.pressKey(InputFrame.LEFT);
+			// Attacks are ignored by the GameEngine unless the Robot is
+			// engaged
+			else if (key == KeyEvent.VK_F || key == KeyEvent.VK_SPACE)
+				this.queue.attack();
+			// Backspace rewinds the level by GameEngine.REWIND_TICKS
+			else if (key == KeyEvent.VK_BACK_SPACE)
+				this.queue.rewind();
 		}
 	}
 
-	/**
-	 * Sets the attacking state of the Robot using the given boolean
-	 * @param state Set the attacking state of the Robot
-	 */
-	public void setAttackingState(boolean state)
-	{
-		this.isAttacking = state;
-	}
-
-	/**
-	 * Sets the battling state of the Robot using the given boolean
-	 * @param state Set the battling state of the Robot
-	 */
-	public void setBattleState(boolean state)
-	{
-		this.isBattling = state;
-	}
-
 	/**
 	 * Sets the drawMenu flag to true for paintComponent to draw the in-game
 	 * menu and start listening for mouseEvents
 	 */
 	public void drawMenu()
 	{
-		System.out.println("Entered drawMenu() in GamePanel");
+		Log.trace("Entered drawMenu() in GamePanel");
 		this.drawMenu = true;
 		this.addMouseListener(this);
 		this.paused = true;
+		this.queue.pause();
+		this.queue.releaseAll();
+		if (this.canvas != null)
+			this.canvas.setVisible(false);
 		this.repaint();
 	}
 
@@ -834,10 +610,24 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener,
 		this.drawMenu = false;
 		this.removeMouseListener(this);
 		this.paused = false;
-		this.statusBar.menuClosed();
+		this.queue.resume();
+		if (this.canvas != null)
+		{
+			this.canvas.setVisible(true);
+			this.canvas.requestFocusInWindow();
+		}
 		this.repaint();
 	}
 
+	/**
+	 * Getter for the paused flag
+	 * @return Whether or not the in-game menu has paused the game
+	 */
+	public boolean isPaused()
+	{
+		return this.paused;
+	}
+
 	/**
 	 * Close the JFrame
 	 */
@@ -865,14 +655,14 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener,
 	{
 		int key = e.getKeyCode();
 		if (key == KeyEvent.VK_UP || key == KeyEvent.VK_W)
-			keysPressed[0] = false;
+			this.queue.releaseKey(InputFrame.UP);
 		else if (key == KeyEvent.VK_RIGHT || key == KeyEvent.VK_D)
-			keysPressed[1] = false;
+			this.queue.releaseKey(InputFrame.RIGHT);
 		else if (key == KeyEvent.VK_DOWN || key == KeyEvent.VK_S)
-			keysPressed[2] = false;
+			this.queue.releaseKey(InputFrame.DOWN);
 		else if (key == KeyEvent.VK_LEFT || key == KeyEvent.VK_A)
-			keysPressed[3] = false;
-		else if (key == KeyEvent.VK_ESCAPE)
+			this.queue.releaseKey(InputFrame.LEFT);
+		if (key == KeyEvent.VK_ESCAPE)
 			this.statusBar.openMenu();
 
 	}
@@ -901,15 +691,6 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener,
 		}
 	}
 
-	/**
-	 * Called by the in-game Timer
-	 * @Override The ActionListener actionPerformed() method
-	 */
-	public void actionPerformed(ActionEvent e)
-	{
-		this.process();
-	}
-
 	// Filler methods for KeyListener
 	@Override
 	public void keyTyped(KeyEvent e)
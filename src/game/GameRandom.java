@@ -0,0 +1,130 @@
+package game;
+
+/**
+ * The only source of random numbers in the game; A seeded SplitMix64
+ * generator, so the same seed always gives the same numbers on every JVM
+ *
+ * Game seeds one for the session (-Dseed=number to repeat a session) and each
+ * level gets its own generator from it; Anything created in an order that
+ * depends on how the level is played (i.e. Item objects, which are made when
+ * their part of the level is loaded) takes a generator forked from the
+ * level's by its position instead of drawing from the level's, so together
+ * with the fixed tick the same input always plays out the same way
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public final class GameRandom
+{
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private final long seed;
+	private long state;
+
+	/**
+	 * Creates a generator with the given seed
+	 * @param seed The seed
+	 */
+	public GameRandom(long seed)
+	{
+		this.seed = seed;
+		this.state = seed;
+	}
+
+	/**
+	 * Returns a seed for a new session: the value of -Dseed if it is set,
+	 * otherwise one based on the current time
+	 * @return The seed
+	 */
+	public static long newSeed()
+	{
+		Long seed = Long.getLong("seed");
+		if (seed != null)
+			return seed;
+		return mix(System.currentTimeMillis() ^ System.nanoTime());
+	}
+
+	/**
+	 * Scrambles the bits of the given number (the SplitMix64 finaliser)
+	 * @param value The number
+	 * @return The scrambled number
+	 */
+	private static long mix(long value)
+	{
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+
+	/**
+	 * Getter for the seed the generator was created with
+	 * @return The seed
+	 */
+	public long getSeed()
+	{
+		return this.seed;
+	}
+
+	/**
+	 * Returns the next random number
+	 * @return Any long value
+	 */
+	public long nextLong()
+	{
+		this.state += GOLDEN_GAMMA;
+		return mix(this.state);
+	}
+
+	/**
+	 * Returns the next random number below the given bound
+	 * @param bound The bound (at least 1)
+	 * @return A number from 0 to bound - 1
+	 */
+	public int nextInt(int bound)
+	{
+		if (bound <= 0)
+			throw new IllegalArgumentException("bound must be positive: "
+					+ bound);
+
+		// Numbers past the last whole multiple of bound are drawn again so
+		// every result is as likely
+		long limit = (1L << 31) - (1L << 31) % bound;
+		long value = this.nextLong() >>> 33;
+		while (value >= limit)
+			value = this.nextLong() >>> 33;
+		return (int) (value % bound);
+	}
+
+	/**
+	 * Returns the next random number from 0 (inclusive) to 1 (exclusive)
+	 * @return The number
+	 */
+	public double nextDouble()
+	{
+		return (this.nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Creates a new generator with a seed drawn from this one (which is
+	 * advanced), i.e. for each level of a session
+	 * @return The new generator
+	 */
+	public GameRandom split()
+	{
+		return new GameRandom(this.nextLong());
+	}
+
+	/**
+	 * Creates a generator for the given key without advancing this one, so
+	 * the same key always gives the same numbers no matter when it is asked
+	 * for (i.e. one for each square of a level)
+	 * @param key The key
+	 * @return The new generator
+	 */
+	public GameRandom fork(long key)
+	{
+		return new GameRandom(mix(this.seed ^ mix(key * GOLDEN_GAMMA
+				+ GOLDEN_GAMMA)));
+	}
+}
@@ -0,0 +1,969 @@
+package game;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * The level grid stored as Chunk objects of CHUNK_WIDTH by CHUNK_WIDTH squares
+ * (each square is still addressed by its index row * columns + column) instead
+ * of one Square object per square; A Grid read from a LevelSource only keeps a
+ * bounded number of Chunk objects in memory, loading them as the Robot gets
+ * close and evicting the least recently used ones when it moves away (changed
+ * Chunk objects are written to a swap file and read back from there); A Grid
+ * made from a LevelTemplate shares its Chunk objects until they change
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class Grid
+{
+	// Flags stored for each square
+	public static final byte ENTERABLE = 1;
+	public static final byte DIRECTION = 1 << 1;
+	public static final byte ITEM = 1 << 2;
+	public static final byte ENEMY = 1 << 3;
+	public static final byte START = 1 << 4;
+	public static final byte EXIT = 1 << 5;
+	public static final byte ROCK = 1 << 6;
+
+	// Which SpatialIndex objects a square was in when changing() recorded it
+	private static final int HIDDEN_INDEXED = 1 << 8;
+	private static final int ENEMY_INDEXED = 1 << 9;
+
+	// The largest number of rows or columns a level can have
+	public static final int MAX_SIZE = 4096;
+
+	// The number of Chunk objects kept in memory (-DloadedChunks=64)
+	public static final int MAX_LOADED_CHUNKS = Math.max(
+			Integer.getInteger("loadedChunks", 64), 16);
+
+	// The size of a Chunk in the swap file (overlay, image reference, flags
+	// and the value of the Item or health of the Enemy in each square)
+	private static final int SWAP_RECORD = Chunk.CHUNK_AREA * (1 + 2 + 1 + 4);
+
+	/**
+	 * The Direction of each direction marker (NORTH_ONLY to WEST_ONLY)
+	 */
+	private static final Direction[] directions = { Direction.NORTH,
+			Direction.EAST, Direction.SOUTH, Direction.WEST };
+
+	private int rows;
+	private int columns;
+	private GameEngine engine;
+	private HashMap<Integer, Item> items;
+	private HashMap<Integer, Enemy> enemies;
+	private SpatialIndex hiddenIndex;
+	private SpatialIndex enemyIndex;
+
+	// Chunk storage
+	private int chunkColumns;
+	private Chunk[] chunks;
+	private Chunk lastChunk;
+	private ArrayList<Chunk> loadedChunks;
+	private long uses;
+	private int focusRow;
+	private int focusColumn;
+
+	// Where evicted Chunk objects are loaded from (null if every Chunk stays
+	// in memory)
+	private LevelSource source;
+	private byte[] sourceSquares;
+	private File swapFile;
+	private RandomAccessFile swap;
+	private boolean[] swapped;
+
+	/**
+	 * Creates an empty Grid of the given size which keeps every square in
+	 * memory (the squares are filled in with set())
+	 * @param rows The number of rows
+	 * @param columns The number of columns
+	 * @param engine The GameEngine the grid belongs to
+	 */
+	public Grid(int rows, int columns, GameEngine engine)
+	{
+		if (!isValidSize(rows, columns))
+			throw new IllegalArgumentException("Grid size " + columns + "x"
+					+ rows + " isn't between 1x1 and " + MAX_SIZE + "x"
+					+ MAX_SIZE);
+		this.rows = rows;
+		this.columns = columns;
+		this.engine = engine;
+		this.items = new HashMap<Integer, Item>();
+		this.enemies = new HashMap<Integer, Enemy>();
+		this.hiddenIndex = new SpatialIndex(rows, columns);
+		this.enemyIndex = new SpatialIndex(rows, columns);
+		this.chunkColumns = (columns + Chunk.CHUNK_MASK) >> Chunk.CHUNK_SHIFT;
+		int chunkRows = (rows + Chunk.CHUNK_MASK) >> Chunk.CHUNK_SHIFT;
+		this.chunks = new Chunk[chunkRows * this.chunkColumns];
+		this.loadedChunks = new ArrayList<Chunk>();
+	}
+
+	/**
+	 * Creates a Grid that loads its squares from the given level file when
+	 * they are first used, keeping at most MAX_LOADED_CHUNKS Chunk objects in
+	 * memory
+	 * @param source The level file to read the squares from
+	 * @param engine The GameEngine the grid belongs to
+	 */
+	public Grid(LevelSource source, GameEngine engine)
+	{
+		this(source.getRows(), source.getColumns(), engine);
+		this.source = source;
+		this.sourceSquares = new byte[Chunk.CHUNK_AREA];
+		this.swapped = new boolean[this.chunks.length];
+	}
+
+	/**
+	 * Creates a Grid that shares the squares of the given LevelTemplate until
+	 * they are changed (each Chunk is copied the first time one of its squares
+	 * changes); The Item and Enemy objects are created when they are first used
+	 * @param template The LevelTemplate of the level
+	 * @param engine The GameEngine the grid belongs to
+	 */
+	public Grid(LevelTemplate template, GameEngine engine)
+	{
+		this(template.getRows(), template.getColumns(), engine);
+		for (int chunk = 0; chunk < this.chunks.length; chunk++)
+		{
+			this.chunks[chunk] = template.getChunk(chunk);
+			this.loadedChunks.add(this.chunks[chunk]);
+		}
+		this.hiddenIndex = new SpatialIndex(template.getHiddenIndex());
+		this.enemyIndex = new SpatialIndex(template.getEnemyIndex());
+	}
+
+	/**
+	 * Checks if a Grid can have the given size
+	 * @param rows The number of rows
+	 * @param columns The number of columns
+	 * @return Whether or not both are between 1 and MAX_SIZE
+	 */
+	public static boolean isValidSize(int rows, int columns)
+	{
+		return rows >= 1 && columns >= 1 && rows <= MAX_SIZE
+				&& columns <= MAX_SIZE;
+	}
+
+	/**
+	 * Returns the number of Chunk objects a Grid of the given size is split
+	 * into
+	 * @param rows The number of rows
+	 * @param columns The number of columns
+	 * @return The number of Chunk objects
+	 */
+	public static int getNoOfChunks(int rows, int columns)
+	{
+		return ((rows + Chunk.CHUNK_MASK) >> Chunk.CHUNK_SHIFT)
+				* ((columns + Chunk.CHUNK_MASK) >> Chunk.CHUNK_SHIFT);
+	}
+
+	/**
+	 * Returns the Chunk holding the given square, loading it if it isn't in
+	 * memory
+	 * @param cell The index of the square
+	 * @return The Chunk
+	 */
+	private Chunk chunk(int cell)
+	{
+		Chunk chunk = this.lastChunk;
+		int index = this.chunkIndex(cell);
+		if (chunk == null || chunk.index != index)
+		{
+			chunk = this.chunks[index];
+			if (chunk == null)
+				chunk = this.loadChunk(index);
+			this.lastChunk = chunk;
+		}
+		chunk.lastUsed = ++this.uses;
+		return chunk;
+	}
+
+	/**
+	 * Returns the Chunk holding the given square, first copying it if it is
+	 * shared with a LevelTemplate
+	 * @param cell The index of the square
+	 * @return The Chunk (which can be changed)
+	 */
+	private Chunk writableChunk(int cell)
+	{
+		Chunk chunk = this.chunk(cell);
+		if (!chunk.shared)
+			return chunk;
+		Chunk copy = new Chunk(chunk);
+		this.chunks[copy.index] = copy;
+		this.loadedChunks.set(this.loadedChunks.indexOf(chunk), copy);
+		this.lastChunk = copy;
+		return copy;
+	}
+
+	/**
+	 * Returns the index of the Chunk holding the given square
+	 * @param cell The index of the square
+	 * @return The index in the chunks array
+	 */
+	private int chunkIndex(int cell)
+	{
+		return ((cell / this.columns) >> Chunk.CHUNK_SHIFT) * this.chunkColumns
+				+ ((cell % this.columns) >> Chunk.CHUNK_SHIFT);
+	}
+
+	/**
+	 * Returns the position of the given square inside its Chunk
+	 * @param cell The index of the square
+	 * @param columns The number of columns in the Grid
+	 * @return The index in the Chunk's arrays
+	 */
+	static int local(int cell, int columns)
+	{
+		return (((cell / columns) & Chunk.CHUNK_MASK) << Chunk.CHUNK_SHIFT)
+				| ((cell % columns) & Chunk.CHUNK_MASK);
+	}
+
+	/**
+	 * Creates the given Chunk, reading its squares from the swap file (if it
+	 * was changed and evicted) or the level file; Evicts the least recently
+	 * used Chunk if too many are loaded
+	 * @param index The index of the Chunk
+	 * @return The loaded Chunk
+	 */
+	private Chunk loadChunk(int index)
+	{
+		if (this.source != null
+				&& this.loadedChunks.size() >= MAX_LOADED_CHUNKS)
+			this.evictChunk();
+
+		Chunk chunk = new Chunk(index);
+		this.chunks[index] = chunk;
+		this.loadedChunks.add(chunk);
+		if (this.source == null)
+			return chunk;
+		try
+		{
+			if (this.swapped[index])
+				this.readSwap(chunk);
+			else
+				this.readSource(chunk);
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException("Loading part of the level", e);
+		}
+		return chunk;
+	}
+
+	/**
+	 * Fills the given Chunk with the squares in the level file
+	 * @param chunk The Chunk to fill
+	 * @throws IOException If the level file can't be read
+	 */
+	private void readSource(Chunk chunk) throws IOException
+	{
+		this.source.readChunk(chunk.index / this.chunkColumns, chunk.index
+				% this.chunkColumns, this.sourceSquares);
+		int firstRow = this.getFirstRow(chunk);
+		int firstColumn = this.getFirstColumn(chunk);
+		int height = Math.min(Chunk.CHUNK_WIDTH, this.rows - firstRow);
+		int width = Math.min(Chunk.CHUNK_WIDTH, this.columns - firstColumn);
+		for (int row = 0; row < height; row++)
+		{
+			for (int column = 0; column < width; column++)
+			{
+				char object = (char) this.sourceSquares[(row << Chunk.CHUNK_SHIFT)
+						| column];
+				this.setSquare(chunk, this.index(firstRow + row, firstColumn
+						+ column), Character.toLowerCase(object));
+			}
+		}
+	}
+
+	/**
+	 * Fills the given Chunk with the squares it had when it was evicted
+	 * @param chunk The Chunk to fill
+	 * @throws IOException If the swap file can't be read
+	 */
+	private void readSwap(Chunk chunk) throws IOException
+	{
+		byte[] record = new byte[SWAP_RECORD];
+		this.swap.seek((long) chunk.index * SWAP_RECORD);
+		this.swap.readFully(record);
+		ByteBuffer buffer = ByteBuffer.wrap(record);
+		buffer.get(chunk.overlay);
+		buffer.asShortBuffer().get(chunk.imageRef);
+		buffer.position(buffer.position() + Chunk.CHUNK_AREA * 2);
+		buffer.get(chunk.flags);
+
+		// Recreate the Item and Enemy objects with their saved values
+		int firstRow = this.getFirstRow(chunk);
+		int firstColumn = this.getFirstColumn(chunk);
+		for (int square = 0; square < Chunk.CHUNK_AREA; square++)
+		{
+			int value = buffer.getInt();
+			byte flags = chunk.flags[square];
+			if ((flags & (ITEM | ENEMY)) == 0)
+				continue;
+			int row = firstRow + (square >> Chunk.CHUNK_SHIFT);
+			int column = firstColumn + (square & Chunk.CHUNK_MASK);
+			int cell = this.index(row, column);
+			char overlay = (char) chunk.overlay[square];
+			if ((flags & ITEM) != 0)
+			{
+				Item item = new Item(overlay, this.engine.getRandom().fork(
+						cell));
+				item.setValue(value);
+				this.items.put(cell, item);
+				if (chunk.imageRef[square] == 0)
+					this.hiddenIndex.add(cell);
+			}
+			else
+			{
+				Enemy enemy = new Enemy(overlay, this.engine, new Location(
+						row, column), this);
+				enemy.setHealth(value);
+				this.enemies.put(cell, enemy);
+				this.enemyIndex.add(cell);
+				if (overlay == Game.HIDDEN_ENEMY)
+					this.hiddenIndex.add(cell);
+			}
+		}
+	}
+
+	/**
+	 * Removes the least recently used Chunk that isn't next to the Robot,
+	 * writing it to the swap file if it was changed
+	 */
+	private void evictChunk()
+	{
+		Chunk oldest = null;
+		for (int chunk = 0; chunk < this.loadedChunks.size(); chunk++)
+		{
+			Chunk next = this.loadedChunks.get(chunk);
+			if (!this.isPinned(next)
+					&& (oldest == null || next.lastUsed < oldest.lastUsed))
+				oldest = next;
+		}
+		if (oldest == null)
+			return;
+
+		ByteBuffer buffer = null;
+		if (oldest.modified)
+		{
+			buffer = ByteBuffer.allocate(SWAP_RECORD);
+			buffer.put(oldest.overlay);
+			buffer.asShortBuffer().put(oldest.imageRef);
+			buffer.position(buffer.position() + Chunk.CHUNK_AREA * 2);
+			for (int square = 0; square < Chunk.CHUNK_AREA; square++)
+				buffer.put(oldest.flags[square]);
+		}
+
+		// Forget the Item and Enemy objects of the Chunk
+		int firstRow = this.getFirstRow(oldest);
+		int firstColumn = this.getFirstColumn(oldest);
+		for (int square = 0; square < Chunk.CHUNK_AREA; square++)
+		{
+			int value = 0;
+			if ((oldest.flags[square] & (ITEM | ENEMY)) != 0)
+			{
+				int cell = this.index(firstRow
+						+ (square >> Chunk.CHUNK_SHIFT), firstColumn
+						+ (square & Chunk.CHUNK_MASK));
+				if ((oldest.flags[square] & ITEM) != 0)
+					value = this.items.remove(cell).getValue();
+				else
+					value = this.enemies.remove(cell).getHealth();
+				this.hiddenIndex.remove(cell);
+				this.enemyIndex.remove(cell);
+			}
+			if (buffer != null)
+				buffer.putInt(value);
+		}
+
+		if (buffer != null)
+		{
+			try
+			{
+				// The swap file is only created once a changed Chunk is evicted
+				if (this.swap == null)
+				{
+					this.swapFile = File.createTempFile("level", ".swap");
+					this.swapFile.deleteOnExit();
+					this.swap = new RandomAccessFile(this.swapFile, "rw");
+				}
+				this.swap.seek((long) oldest.index * SWAP_RECORD);
+				this.swap.write(buffer.array());
+				this.swapped[oldest.index] = true;
+			}
+			catch (IOException e)
+			{
+				throw new IllegalStateException("Saving part of the level", e);
+			}
+		}
+		this.chunks[oldest.index] = null;
+		this.loadedChunks.remove(oldest);
+		if (this.lastChunk == oldest)
+			this.lastChunk = null;
+	}
+
+	/**
+	 * Checks if the given Chunk is (or is next to) the one the Robot is in,
+	 * which are never evicted
+	 * @param chunk The Chunk to check
+	 * @return Whether or not the Chunk must stay in memory
+	 */
+	private boolean isPinned(Chunk chunk)
+	{
+		return Math.abs(chunk.index / this.chunkColumns
+				- (this.focusRow >> Chunk.CHUNK_SHIFT)) <= 1
+				&& Math.abs(chunk.index % this.chunkColumns
+						- (this.focusColumn >> Chunk.CHUNK_SHIFT)) <= 1;
+	}
+
+	/**
+	 * Returns the row of the top left square of the given Chunk
+	 * @param chunk The Chunk
+	 * @return The row on the grid
+	 */
+	private int getFirstRow(Chunk chunk)
+	{
+		return (chunk.index / this.chunkColumns) << Chunk.CHUNK_SHIFT;
+	}
+
+	/**
+	 * Returns the column of the top left square of the given Chunk
+	 * @param chunk The Chunk
+	 * @return The column on the grid
+	 */
+	private int getFirstColumn(Chunk chunk)
+	{
+		return (chunk.index % this.chunkColumns) << Chunk.CHUNK_SHIFT;
+	}
+
+	/**
+	 * Tells the Grid where the Robot is and loads every square within the given
+	 * radius of it (the Chunk objects around the Robot are never evicted)
+	 * @param row The row of the Robot
+	 * @param column The column of the Robot
+	 * @param radius The number of squares around the Robot that must be loaded
+	 */
+	public void focus(int row, int column, int radius)
+	{
+		this.focusRow = row;
+		this.focusColumn = column;
+		int firstRow = Math.max(row - radius, 0) >> Chunk.CHUNK_SHIFT;
+		int lastRow = Math.min(row + radius, this.rows - 1) >> Chunk.CHUNK_SHIFT;
+		int firstColumn = Math.max(column - radius, 0) >> Chunk.CHUNK_SHIFT;
+		int lastColumn = Math.min(column + radius, this.columns - 1) >> Chunk.CHUNK_SHIFT;
+		for (int chunkRow = firstRow; chunkRow <= lastRow; chunkRow++)
+		{
+			for (int chunkColumn = firstColumn; chunkColumn <= lastColumn; chunkColumn++)
+				this.chunk(this.index(chunkRow << Chunk.CHUNK_SHIFT,
+						chunkColumn << Chunk.CHUNK_SHIFT));
+		}
+	}
+
+	/**
+	 * Closes the level file and deletes the swap file (if there are any)
+	 */
+	public void close()
+	{
+		if (this.source != null)
+			this.source.close();
+		if (this.swap != null)
+		{
+			try
+			{
+				this.swap.close();
+			}
+			catch (IOException e)
+			{
+				Log.warn("Closing the swap file: {}", e);
+			}
+			this.swapFile.delete();
+			this.swap = null;
+		}
+	}
+
+	/**
+	 * Sets the overlay of the given square and its flags, Image reference and
+	 * any Enemy or Item it contains
+	 * @param chunk The Chunk holding the square
+	 * @param cell The index of the square
+	 * @param overlay The constant representation (Game class)
+	 */
+	private void setSquare(Chunk chunk, int cell, char overlay)
+	{
+		int square = local(cell, this.columns);
+		fillSquare(chunk, square, overlay);
+		if ((chunk.flags[square] & ITEM) != 0)
+		{
+			this.items.put(cell, new Item(overlay, this.engine.getRandom()
+					.fork(cell)));
+			this.hiddenIndex.add(cell);
+		}
+		else if ((chunk.flags[square] & ENEMY) != 0)
+		{
+			if (overlay == Game.HIDDEN_ENEMY)
+				this.hiddenIndex.add(cell);
+			Enemy enemy = new Enemy(overlay, this.engine, new Location(cell
+					/ this.columns, cell % this.columns), this);
+			this.enemies.put(cell, enemy);
+			this.enemyIndex.add(cell);
+		}
+	}
+
+	/**
+	 * Sets the overlay of the given square of a Chunk, its flags and Image
+	 * reference (without creating any Enemy or Item)
+	 * @param chunk The Chunk holding the square
+	 * @param square The index of the square in the Chunk
+	 * @param overlay The constant representation (Game class)
+	 */
+	static void fillSquare(Chunk chunk, int square, char overlay)
+	{
+		chunk.overlay[square] = (byte) overlay;
+		chunk.imageRef[square] = (short) (overlay - Game.OPEN);
+
+		// Open
+		if (overlay == Game.OPEN)
+		{
+			chunk.flags[square] = ENTERABLE;
+		}
+		// Direction Marker
+		else if (overlay >= Game.NORTH_ONLY && overlay <= Game.WEST_ONLY)
+		{
+			chunk.flags[square] = DIRECTION | ENTERABLE;
+		}
+		// Wall
+		else if (overlay == Game.WALL)
+		{
+			chunk.flags[square] = ROCK;
+		}
+		// Start
+		else if (overlay == Game.START)
+		{
+			chunk.flags[square] = START | ENTERABLE;
+		}
+		// Exit
+		else if (overlay == Game.END)
+		{
+			chunk.flags[square] = EXIT;
+		}
+		// Item
+		else if (overlay >= Game.DAMAGE_BOOST && overlay <= Game.KEY)
+		{
+			chunk.imageRef[square] = 0;
+			chunk.flags[square] = ITEM;
+		}
+		// Enemy
+		else if (overlay == Game.BOSS || overlay == Game.HIDDEN_ENEMY
+				|| overlay == Game.ENEMY)
+		{
+			if (overlay == Game.HIDDEN_ENEMY)
+				chunk.imageRef[square] = 0;
+			chunk.flags[square] = ENEMY;
+		}
+		else
+			chunk.flags[square] = 0;
+	}
+
+	/**
+	 * Marks the Chunk holding the given square as changed so it is saved if
+	 * it is evicted (frames are drawn from a FrameSnapshot copied every tick,
+	 * so the squares themselves don't need to be tracked)
+	 * @param cell The index of the square
+	 */
+	private void markModified(int cell)
+	{
+		this.writableChunk(cell).modified = true;
+	}
+
+	/**
+	 * Returns the index of the given position
+	 * @param row The row position on the grid
+	 * @param column The column position on the grid
+	 * @return row * columns + column
+	 */
+	public int index(int row, int column)
+	{
+		return row * this.columns + column;
+	}
+
+	/**
+	 * Checks if the given position is on the grid
+	 * @param row The row position
+	 * @param column The column position
+	 * @return Whether or not the position has a square
+	 */
+	public boolean isInside(int row, int column)
+	{
+		return row >= 0 && column >= 0 && row < this.rows
+				&& column < this.columns;
+	}
+
+	/**
+	 * Getter for the number of rows
+	 * @return The number of rows
+	 */
+	public int getRows()
+	{
+		return this.rows;
+	}
+
+	/**
+	 * Getter for the number of columns
+	 * @return The number of columns
+	 */
+	public int getColumns()
+	{
+		return this.columns;
+	}
+
+	/**
+	 * Getter for the number of squares
+	 * @return rows * columns
+	 */
+	public int size()
+	{
+		return this.rows * this.columns;
+	}
+
+	/**
+	 * Getter for the number of Chunk objects in memory
+	 * @return The number of loaded Chunk objects
+	 */
+	public int getLoadedChunks()
+	{
+		return this.loadedChunks.size();
+	}
+
+	/**
+	 * Returns a Square view of the given position
+	 * @param row The row position on the grid
+	 * @param column The column position on the grid
+	 * @return A Square backed by this Grid
+	 */
+	public Square getSquare(int row, int column)
+	{
+		return new Square(this, this.index(row, column));
+	}
+
+	/**
+	 * Returns the overlay of the given square
+	 * @param cell The index of the square
+	 * @return The constant representation (Game class)
+	 */
+	public char getOverlay(int cell)
+	{
+		return (char) this.chunk(cell).overlay[local(cell, this.columns)];
+	}
+
+	/**
+	 * Returns the Image reference of the given square
+	 * @param cell The index of the square
+	 * @return The position of the image in GamePanel's images (0 for none)
+	 */
+	public int getImageRef(int cell)
+	{
+		return this.chunk(cell).imageRef[local(cell, this.columns)];
+	}
+
+	/**
+	 * Checks the given flag of the given square
+	 * @param cell The index of the square
+	 * @param flag The flag to check
+	 * @return Whether or not the flag is set
+	 */
+	public boolean is(int cell, byte flag)
+	{
+		return (this.chunk(cell).flags[local(cell, this.columns)] & flag) != 0;
+	}
+
+	/**
+	 * Getter for the enterable flag
+	 * @param cell The index of the square
+	 * @return If the Robot can enter the square
+	 */
+	public boolean isEmpty(int cell)
+	{
+		return this.is(cell, ENTERABLE);
+	}
+
+	/**
+	 * Getter for the direction flag
+	 * @param cell The index of the square
+	 * @return If a Direction is here
+	 */
+	public boolean isDirectionHere(int cell)
+	{
+		return this.is(cell, DIRECTION);
+	}
+
+	/**
+	 * Getter for the Direction of a direction marker
+	 * @param cell The index of the square
+	 * @return The Direction allowed to leave the square (null if none)
+	 */
+	public Direction passableDirection(int cell)
+	{
+		if (!this.is(cell, DIRECTION))
+			return null;
+		return directions[this.getOverlay(cell) - Game.NORTH_ONLY];
+	}
+
+	/**
+	 * Getter for the item flag
+	 * @param cell The index of the square
+	 * @return If an Item is here
+	 */
+	public boolean isItemHere(int cell)
+	{
+		return this.is(cell, ITEM);
+	}
+
+	/**
+	 * Getter for the enemy flag
+	 * @param cell The index of the square
+	 * @return If an Enemy is here
+	 */
+	public boolean isEnemyHere(int cell)
+	{
+		return this.is(cell, ENEMY);
+	}
+
+	/**
+	 * Getter for the start flag
+	 * @param cell The index of the square
+	 * @return If a start marker is here
+	 */
+	public boolean isStartHere(int cell)
+	{
+		return this.is(cell, START);
+	}
+
+	/**
+	 * Getter for the exit flag
+	 * @param cell The index of the square
+	 * @return If an exit marker is here
+	 */
+	public boolean isExitHere(int cell)
+	{
+		return this.is(cell, EXIT);
+	}
+
+	/**
+	 * Getter for the rock flag
+	 * @param cell The index of the square
+	 * @return If a rock is here
+	 */
+	public boolean isRockHere(int cell)
+	{
+		return this.is(cell, ROCK);
+	}
+
+	/**
+	 * Getter for the index of squares with a hidden Item or Enemy
+	 * @return The loaded squares that can still be revealed
+	 */
+	public SpatialIndex getHiddenIndex()
+	{
+		return this.hiddenIndex;
+	}
+
+	/**
+	 * Getter for the index of squares with an Enemy
+	 * @return The loaded squares with an Enemy that hasn't been defeated
+	 */
+	public SpatialIndex getEnemyIndex()
+	{
+		return this.enemyIndex;
+	}
+
+	/**
+	 * Getter for the Enemy in the given square
+	 * @param cell The index of the square
+	 * @return The Enemy in the square (null if none)
+	 */
+	public Enemy getEnemy(int cell)
+	{
+		Chunk chunk = this.chunk(cell);
+		Enemy enemy = this.enemies.get(cell);
+		int square = local(cell, this.columns);
+		if (enemy == null && (chunk.flags[square] & ENEMY) != 0)
+		{
+			// Grids made from a LevelTemplate create their Enemy objects here
+			enemy = new Enemy((char) chunk.overlay[square], this.engine,
+					new Location(cell / this.columns, cell % this.columns),
+					this);
+			this.enemies.put(cell, enemy);
+		}
+		return enemy;
+	}
+
+	/**
+	 * Getter for the Item in the given square
+	 * @param cell The index of the square
+	 * @return The Item in the square (null if none)
+	 */
+	Item getItem(int cell)
+	{
+		Chunk chunk = this.chunk(cell);
+		Item item = this.items.get(cell);
+		int square = local(cell, this.columns);
+		if (item == null && (chunk.flags[square] & ITEM) != 0)
+		{
+			// Grids made from a LevelTemplate create their Item objects here
+			item = new Item((char) chunk.overlay[square], this.engine
+					.getRandom().fork(cell));
+			this.items.put(cell, item);
+		}
+		return item;
+	}
+
+	/**
+	 * Unlock the exit at the given square
+	 * @param cell The index of the square
+	 */
+	public void exitUnlocked(int cell)
+	{
+		Chunk chunk = this.writableChunk(cell);
+		int square = local(cell, this.columns);
+		if (chunk.overlay[square] == Game.END)
+		{
+			this.changing(cell);
+			chunk.imageRef[square]++;
+			chunk.flags[square] |= ENTERABLE;
+			this.markModified(cell);
+		}
+	}
+
+	/**
+	 * Set an Image reference for the item in the given square
+	 * @param cell The index of the square
+	 */
+	public void itemDetected(int cell)
+	{
+		this.changing(cell);
+		Chunk chunk = this.writableChunk(cell);
+		int square = local(cell, this.columns);
+		chunk.imageRef[square] = (short) (Game.REVEALED_IMAGE - Game.OPEN);
+		chunk.flags[square] |= ENTERABLE;
+		this.hiddenIndex.remove(cell);
+		this.markModified(cell);
+	}
+
+	/**
+	 * PRECONDITION: used isItemHere() and returned true
+	 * @param cell The index of the square
+	 * @return The Item that was in the square
+	 */
+	public Item itemPickedUp(int cell)
+	{
+		Item item = this.getItem(cell);
+		this.changing(cell);
+		Chunk chunk = this.writableChunk(cell);
+		int square = local(cell, this.columns);
+		chunk.flags[square] &= ~ITEM;
+		chunk.overlay[square] = (byte) Game.OPEN;
+		chunk.imageRef[square] = 0;
+		this.hiddenIndex.remove(cell);
+		this.markModified(cell);
+		this.items.remove(cell);
+		return item;
+	}
+
+	/**
+	 * Set an Image reference for the Enemy in the given square
+	 * @param cell The index of the square
+	 */
+	public void enemyDetected(int cell)
+	{
+		Chunk chunk = this.chunk(cell);
+		int square = local(cell, this.columns);
+		if (chunk.overlay[square] == Game.HIDDEN_ENEMY)
+		{
+			this.changing(cell);
+			this.getEnemy(cell).detected();
+			chunk = this.writableChunk(cell);
+			chunk.overlay[square] = (byte) Game.ENEMY;
+			chunk.imageRef[square] = (short) (Game.ENEMY - Game.OPEN);
+			this.hiddenIndex.remove(cell);
+			this.markModified(cell);
+		}
+	}
+
+	/**
+	 * Delete the Enemy in the given square
+	 * @param cell The index of the square
+	 */
+	public void enemyDefeated(int cell)
+	{
+		this.changing(cell);
+		Chunk chunk = this.writableChunk(cell);
+		int square = local(cell, this.columns);
+		chunk.flags[square] = (byte) ((chunk.flags[square] | ENTERABLE) & ~ENEMY);
+		chunk.imageRef[square] = 0;
+		chunk.overlay[square] = (byte) Game.OPEN;
+		this.enemies.remove(cell);
+		this.hiddenIndex.remove(cell);
+		this.enemyIndex.remove(cell);
+		this.markModified(cell);
+	}
+
+	/**
+	 * Records the given square before it changes so the change can be undone
+	 * (see GameHistory)
+	 * @param cell The index of the square
+	 */
+	private void changing(int cell)
+	{
+		GameHistory history = this.engine.getHistory();
+		if (history == null)
+			return;
+		Chunk chunk = this.chunk(cell);
+		int square = local(cell, this.columns);
+		int flags = chunk.flags[square] & 0xFF;
+		if (this.hiddenIndex.contains(cell))
+			flags |= HIDDEN_INDEXED;
+		if (this.enemyIndex.contains(cell))
+			flags |= ENEMY_INDEXED;
+		history.saveSquare(cell, chunk.overlay[square], chunk.imageRef[square],
+				flags);
+	}
+
+	/**
+	 * Puts a square back the way it was recorded by changing() (used by
+	 * GameHistory to rewind the level); Any Item or Enemy the square held again
+	 * is created the next time it is asked for, with the same values it was
+	 * first created with
+	 * @param cell The index of the square
+	 * @param overlay The overlay it had
+	 * @param imageRef The image reference it had
+	 * @param flags The flags it had (with which SpatialIndex objects it was
+	 *            in)
+	 */
+	void restoreSquare(int cell, int overlay, int imageRef, int flags)
+	{
+		Chunk chunk = this.writableChunk(cell);
+		int square = local(cell, this.columns);
+		chunk.overlay[square] = (byte) overlay;
+		chunk.imageRef[square] = (short) imageRef;
+		chunk.flags[square] = (byte) flags;
+		if ((flags & ITEM) == 0)
+			this.items.remove(cell);
+		if ((flags & ENEMY) == 0)
+			this.enemies.remove(cell);
+		if ((flags & HIDDEN_INDEXED) != 0)
+			this.hiddenIndex.add(cell);
+		else
+			this.hiddenIndex.remove(cell);
+		if ((flags & ENEMY_INDEXED) != 0)
+			this.enemyIndex.add(cell);
+		else
+			this.enemyIndex.remove(cell);
+		this.markModified(cell);
+	}
+}
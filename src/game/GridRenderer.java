@@ -0,0 +1,272 @@
+package game;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Draws the part of the level a Camera is looking at in layers from a
+ * FrameSnapshot; The background and the tiles of the visible squares are
+ * drawn once into an offscreen image that scrolls with the Camera (only the
+ * squares scrolled into view or whose tile differs from the last FrameSnapshot
+ * drawn are redrawn), while the visible Enemy objects and the Robot are drawn
+ * on top every frame
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class GridRenderer
+{
+	private TileAtlas atlas;
+	private BufferedImage layer;
+	private int tileWidth;
+	private int backgroundWidth;
+
+	// The size of the layer and the square drawn in its top left corner
+	private int layerRows;
+	private int layerColumns;
+	private int firstRow;
+	private int firstColumn;
+
+	// The tile drawn in each square of the layer (-1 if it must be drawn)
+	private int[] layerRefs;
+	private int[] shiftedRefs;
+
+	// The squares of the layer redrawn by the last sync()
+	private int[] changed;
+	private int noOfChanged;
+
+	// What was drawn (for the Recorder)
+	private int tilesDrawn;
+	private int enemiesDrawn;
+
+	/**
+	 * Creates the offscreen layer (which is drawn from the first
+	 * FrameSnapshot)
+	 * @param atlas The TileAtlas holding the pre-scaled images
+	 * @param width The width (and height) of the game play area
+	 */
+	public GridRenderer(TileAtlas atlas, int width)
+	{
+		this.atlas = atlas;
+		this.tileWidth = atlas.getTileWidth();
+		this.backgroundWidth = atlas.getBackgroundWidth();
+
+		// One extra row and column for a Camera between squares
+		this.layerRows = (width + this.tileWidth - 1) / this.tileWidth + 1;
+		this.layerColumns = this.layerRows;
+		this.layer = new BufferedImage(this.layerColumns * this.tileWidth,
+				this.layerRows * this.tileWidth, BufferedImage.TYPE_INT_RGB);
+		this.layerRefs = new int[this.layerRows * this.layerColumns];
+		this.shiftedRefs = new int[this.layerRefs.length];
+		this.changed = new int[this.layerRefs.length];
+		Arrays.fill(this.layerRefs, -1);
+	}
+
+	/**
+	 * Draws the background and stationary tile (if any) of one square of the
+	 * layer
+	 * @param g The Graphics object of the layer
+	 * @param layerRow The row of the square in the layer
+	 * @param layerColumn The column of the square in the layer
+	 * @param imageRef The image reference of the tile (0 for none)
+	 */
+	private void drawSquare(Graphics g, int layerRow, int layerColumn,
+			int imageRef)
+	{
+		int x = layerColumn * this.tileWidth;
+		int y = layerRow * this.tileWidth;
+		int row = this.firstRow + layerRow;
+		int column = this.firstColumn + layerColumn;
+		this.tilesDrawn++;
+
+		// The background repeats every backgroundWidth pixels of the level
+		int levelX = column * this.tileWidth;
+		int levelY = row * this.tileWidth;
+		g.setClip(x, y, this.tileWidth, this.tileWidth);
+		this.atlas.drawBackground(g, x - levelX % this.backgroundWidth, y
+				- levelY % this.backgroundWidth);
+		g.setClip(null);
+
+		if (imageRef != 0)
+			this.atlas.drawTile(g, imageRef, x, y);
+	}
+
+	/**
+	 * Moves the layer so the given square is in its top left corner; The
+	 * squares still in view are copied and the new ones are left for sync()
+	 * @param row The row of the new top left square
+	 * @param column The column of the new top left square
+	 */
+	private void scrollTo(int row, int column)
+	{
+		int rowChange = row - this.firstRow;
+		int columnChange = column - this.firstColumn;
+		if (rowChange == 0 && columnChange == 0)
+			return;
+		this.firstRow = row;
+		this.firstColumn = column;
+		if (Math.abs(rowChange) >= this.layerRows
+				|| Math.abs(columnChange) >= this.layerColumns)
+		{
+			Arrays.fill(this.layerRefs, -1);
+			return;
+		}
+
+		Graphics2D g = this.layer.createGraphics();
+		g.copyArea(0, 0, this.layer.getWidth(), this.layer.getHeight(),
+				-columnChange * this.tileWidth, -rowChange * this.tileWidth);
+		g.dispose();
+
+		// Move the tiles drawn along with the image
+		for (int layerRow = 0; layerRow < this.layerRows; layerRow++)
+		{
+			int oldRow = layerRow + rowChange;
+			for (int layerColumn = 0; layerColumn < this.layerColumns; layerColumn++)
+			{
+				int oldColumn = layerColumn + columnChange;
+				int ref = -1;
+				if (oldRow >= 0 && oldRow < this.layerRows && oldColumn >= 0
+						&& oldColumn < this.layerColumns)
+					ref = this.layerRefs[oldRow * this.layerColumns
+							+ oldColumn];
+				this.shiftedRefs[layerRow * this.layerColumns + layerColumn] = ref;
+			}
+		}
+		int[] refs = this.layerRefs;
+		this.layerRefs = this.shiftedRefs;
+		this.shiftedRefs = refs;
+	}
+
+	/**
+	 * Scrolls the layer to the Camera and redraws every square whose tile
+	 * differs from the given FrameSnapshot
+	 * @param camera The Camera looking at the level
+	 * @param frame The FrameSnapshot to draw
+	 * @return The number of squares redrawn (see getChangedX() and
+	 *         getChangedY())
+	 */
+	public int sync(Camera camera, FrameSnapshot frame)
+	{
+		this.scrollTo(camera.getY() / this.tileWidth, camera.getX()
+				/ this.tileWidth);
+		this.noOfChanged = 0;
+		Graphics2D g = null;
+		for (int layerRow = 0; layerRow < this.layerRows; layerRow++)
+		{
+			for (int layerColumn = 0; layerColumn < this.layerColumns; layerColumn++)
+			{
+				int square = layerRow * this.layerColumns + layerColumn;
+				int imageRef = frame.getTile(this.firstRow + layerRow,
+						this.firstColumn + layerColumn);
+				if (this.layerRefs[square] == imageRef)
+					continue;
+				if (g == null)
+					g = this.layer.createGraphics();
+				this.drawSquare(g, layerRow, layerColumn, imageRef);
+				this.layerRefs[square] = imageRef;
+				this.changed[this.noOfChanged++] = square;
+			}
+		}
+		if (g != null)
+			g.dispose();
+		return this.noOfChanged;
+	}
+
+	/**
+	 * Returns the x coordinate of a square redrawn by the last sync()
+	 * @param change The position of the square (0 to the number redrawn - 1)
+	 * @return The x coordinate in the level
+	 */
+	public int getChangedX(int change)
+	{
+		return (this.firstColumn + this.changed[change] % this.layerColumns)
+				* this.tileWidth;
+	}
+
+	/**
+	 * Returns the y coordinate of a square redrawn by the last sync()
+	 * @param change The position of the square (0 to the number redrawn - 1)
+	 * @return The y coordinate in the level
+	 */
+	public int getChangedY(int change)
+	{
+		return (this.firstRow + this.changed[change] / this.layerColumns)
+				* this.tileWidth;
+	}
+
+	/**
+	 * Draws what the Camera sees: the layer, the visible Enemy objects and the
+	 * Robot
+	 * @param g The Graphics object
+	 * @param camera The Camera looking at the level
+	 * @param frame The FrameSnapshot to draw
+	 */
+	public void draw(Graphics g, Camera camera, FrameSnapshot frame)
+	{
+		this.drawWorld(g, camera, frame);
+		this.drawRobot(g, camera, frame.getRobotDirection(), frame
+				.getRobotColumn() * this.tileWidth, frame.getRobotRow()
+				* this.tileWidth);
+	}
+
+	/**
+	 * Draws what the Camera sees except for the Robot
+	 * @param g The Graphics object
+	 * @param camera The Camera looking at the level
+	 * @param frame The FrameSnapshot to draw
+	 */
+	public void drawWorld(Graphics g, Camera camera, FrameSnapshot frame)
+	{
+		int cameraX = camera.getX();
+		int cameraY = camera.getY();
+		this.sync(camera, frame);
+		g.drawImage(this.layer, this.firstColumn * this.tileWidth - cameraX,
+				this.firstRow * this.tileWidth - cameraY, null);
+
+		this.enemiesDrawn = frame.getNoOfEnemies();
+		for (int enemy = 0; enemy < this.enemiesDrawn; enemy++)
+			Enemy.draw(g, this.atlas, frame.getEnemyImage(enemy), frame
+					.getEnemyColumn(enemy) * this.tileWidth - cameraX, frame
+					.getEnemyRow(enemy) * this.tileWidth - cameraY, frame
+					.getEnemyHealth(enemy));
+	}
+
+	/**
+	 * Draws the Robot at the given coordinates in the level (which may be
+	 * between squares when its position is interpolated between ticks)
+	 * @param g The Graphics object
+	 * @param camera The Camera looking at the level
+	 * @param direction The Direction the Robot is facing
+	 * @param x The x coordinate in the level
+	 * @param y The y coordinate in the level
+	 */
+	public void drawRobot(Graphics g, Camera camera, Direction direction,
+			int x, int y)
+	{
+		this.atlas.drawRobot(g, direction, x - camera.getX(), y
+				- camera.getY());
+	}
+
+	/**
+	 * Returns the number of squares drawn into the layer since the last call
+	 * @return The number of squares
+	 */
+	public int takeTilesDrawn()
+	{
+		int tilesDrawn = this.tilesDrawn;
+		this.tilesDrawn = 0;
+		return tilesDrawn;
+	}
+
+	/**
+	 * Getter for the number of Enemy objects drawn by the last drawWorld()
+	 * @return The number of Enemy objects
+	 */
+	public int getEnemiesDrawn()
+	{
+		return this.enemiesDrawn;
+	}
+}
@@ -0,0 +1,184 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts recorded values (times in nanoseconds) in buckets that grow with the
+ * value, like an HdrHistogram: every power of 2 is split into SUB_BUCKETS
+ * equal buckets, so any value from 0 to Long.MAX_VALUE is kept to within
+ * about 6% with a fixed 960 counters; Recording is lock free and can be done
+ * from any thread
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class Histogram
+{
+	private static final int SUB_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int NO_OF_BUCKETS = (64 - SUB_BITS) << SUB_BITS;
+
+	private String name;
+	private AtomicLongArray counts;
+	private AtomicLong count;
+	private AtomicLong total;
+
+	/**
+	 * Creates an empty Histogram
+	 * @param name The name shown by the StatusBar and in metric dumps
+	 */
+	public Histogram(String name)
+	{
+		this.name = name;
+		this.counts = new AtomicLongArray(NO_OF_BUCKETS);
+		this.count = new AtomicLong();
+		this.total = new AtomicLong();
+	}
+
+	/**
+	 * Records one value
+	 * @param value The value (negative values are recorded as 0)
+	 */
+	public void record(long value)
+	{
+		if (value < 0)
+			value = 0;
+		this.counts.incrementAndGet(bucket(value));
+		this.count.incrementAndGet();
+		this.total.addAndGet(value);
+	}
+
+	/**
+	 * Records the time since the given start time
+	 * @param start The start time (from System.nanoTime())
+	 */
+	public void recordSince(long start)
+	{
+		this.record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Returns the bucket holding the given value
+	 * @param value The value (at least 0)
+	 * @return The index of the bucket
+	 */
+	private static int bucket(long value)
+	{
+		if (value < SUB_BUCKETS)
+			return (int) value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BITS;
+		return ((shift + 1) << SUB_BITS)
+				+ (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * Returns the value in the middle of the given bucket
+	 * @param bucket The index of the bucket
+	 * @return The value
+	 */
+	private static long middle(int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		int shift = (bucket >> SUB_BITS) - 1;
+		long lowest = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1)))
+				<< shift;
+		return lowest + ((1L << shift) >> 1);
+	}
+
+	/**
+	 * Getter for the name of the Histogram
+	 * @return The name
+	 */
+	public String getName()
+	{
+		return this.name;
+	}
+
+	/**
+	 * Getter for the number of values recorded
+	 * @return The number of values
+	 */
+	public long getCount()
+	{
+		return this.count.get();
+	}
+
+	/**
+	 * Returns the average of the recorded values
+	 * @return The average (0 if nothing was recorded)
+	 */
+	public long getMean()
+	{
+		long count = this.count.get();
+		return count == 0 ? 0 : this.total.get() / count;
+	}
+
+	/**
+	 * Returns the value that the given percent of the recorded values are at
+	 * or below
+	 * @param percent The percent (0 to 100)
+	 * @return The value (0 if nothing was recorded)
+	 */
+	public long getPercentile(double percent)
+	{
+		long count = 0;
+		for (int bucket = 0; bucket < NO_OF_BUCKETS; bucket++)
+			count += this.counts.get(bucket);
+		long rank = Math.max((long) Math.ceil(count * percent / 100.0), 1);
+		long seen = 0;
+		for (int bucket = 0; bucket < NO_OF_BUCKETS; bucket++)
+		{
+			seen += this.counts.get(bucket);
+			if (seen >= rank)
+				return middle(bucket);
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the largest recorded value
+	 * @return The value (0 if nothing was recorded)
+	 */
+	public long getMax()
+	{
+		for (int bucket = NO_OF_BUCKETS - 1; bucket >= 0; bucket--)
+		{
+			if (this.counts.get(bucket) != 0)
+				return middle(bucket);
+		}
+		return 0;
+	}
+
+	/**
+	 * Copies the values recorded so far (for use with since())
+	 * @return The copy, which isn't changed by later values
+	 */
+	public Histogram copy()
+	{
+		Histogram copy = new Histogram(this.name);
+		for (int bucket = 0; bucket < NO_OF_BUCKETS; bucket++)
+			copy.counts.set(bucket, this.counts.get(bucket));
+		copy.count.set(this.count.get());
+		copy.total.set(this.total.get());
+		return copy;
+	}
+
+	/**
+	 * Returns the values recorded since the given copy was made
+	 * @param earlier A copy() of this Histogram
+	 * @return A new Histogram holding only the values recorded since
+	 */
+	public Histogram since(Histogram earlier)
+	{
+		Histogram recent = this.copy();
+		for (int bucket = 0; bucket < NO_OF_BUCKETS; bucket++)
+			recent.counts.addAndGet(bucket, -earlier.counts.get(bucket));
+		recent.count.addAndGet(-earlier.count.get());
+		recent.total.addAndGet(-earlier.total.get());
+		return recent;
+	}
+}
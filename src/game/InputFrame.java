@@ -0,0 +1,132 @@
+package game;
+
+/**
+ * The input given to the GameEngine for a single tick (the movement keys
+ * currently held down and the number of times attack was pressed)
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class InputFrame
+{
+	// Positions in the keysPressed array
+	public static final int UP = 0;
+	public static final int RIGHT = 1;
+	public static final int DOWN = 2;
+	public static final int LEFT = 3;
+
+	private boolean[] keysPressed;
+	private int attacks;
+	private boolean rewind;
+
+	// When a key was last pressed down (0 once a tick has used it)
+	private long pressedTime;
+
+	/**
+	 * Creates an InputFrame with no keys pressed
+	 */
+	public InputFrame()
+	{
+		this.keysPressed = new boolean[4];
+		this.attacks = 0;
+	}
+
+	/**
+	 * Changes the pressed state of the given movement key
+	 * @param key The key to change (UP, RIGHT, DOWN or LEFT)
+	 * @param pressed Whether or not the key is held down
+	 */
+	public void setKey(int key, boolean pressed)
+	{
+		if (pressed && !this.keysPressed[key])
+			this.pressedTime = System.nanoTime();
+		this.keysPressed[key] = pressed;
+	}
+
+	/**
+	 * Getter for the pressed state of the given movement key
+	 * @param key The key to check (UP, RIGHT, DOWN or LEFT)
+	 * @return Whether or not the key is held down
+	 */
+	public boolean isKeyPressed(int key)
+	{
+		return this.keysPressed[key];
+	}
+
+	/**
+	 * Getter for the time the last movement key was pressed down
+	 * @return The time (from System.nanoTime()), or 0 if a tick has already
+	 *         moved the Robot since
+	 */
+	public long getPressedTime()
+	{
+		return this.pressedTime;
+	}
+
+	/**
+	 * Clears the pressed time once a tick has moved the Robot
+	 */
+	public void clearPressedTime()
+	{
+		this.pressedTime = 0;
+	}
+
+	/**
+	 * Records an attack press for the next tick (every press is one attack,
+	 * however many are made during a tick)
+	 */
+	public void attack()
+	{
+		this.attacks++;
+	}
+
+	/**
+	 * Getter for the number of attack presses
+	 * @return The number of times attack was pressed since the last tick
+	 */
+	public int getAttacks()
+	{
+		return this.attacks;
+	}
+
+	/**
+	 * Clears the attack presses once the GameEngine has used them
+	 */
+	public void clearAttack()
+	{
+		this.attacks = 0;
+	}
+
+	/**
+	 * Asks for the level to be rewound on the next step (see
+	 * GameEngine.rewind())
+	 */
+	public void rewind()
+	{
+		this.rewind = true;
+	}
+
+	/**
+	 * Takes the rewind flag (clearing it)
+	 * @return Whether or not a rewind was asked for since the last step
+	 */
+	public boolean takeRewind()
+	{
+		boolean rewind = this.rewind;
+		this.rewind = false;
+		return rewind;
+	}
+
+	/**
+	 * Releases every key and clears the attack presses and rewind flag
+	 */
+	public void clear()
+	{
+		for (int key = 0; key < this.keysPressed.length; key++)
+			this.keysPressed[key] = false;
+		this.attacks = 0;
+		this.rewind = false;
+		this.pressedTime = 0;
+	}
+}
@@ -0,0 +1,204 @@
+package game;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Records the user's input during a level to a compact append-only binary
+ * file (Replays/Level#-date.rbci) that a Replay can play back; Turned off with
+ * -Dreplay.record=false and moved with -Dreplay.dir=name
+ *
+ * The file starts with the level, the seed of its GameRandom and the Robot's
+ * starting health and damage, followed by one record for each command (the
+ * number of steps since the last record as a variable length number, then one
+ * byte for the command) and an end record with the step and state the level
+ * was left in; Steps (GameEngine.getSteps()) are used instead of ticks since
+ * a rewind takes the tick back; Each record is written as soon as it is
+ * applied, so a recording survives a crash up to the last command
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class InputLog
+{
+	static final int MAGIC = 0x5243494C;
+	static final int VERSION = 1;
+	static final int END = 0;
+
+	public static final boolean ENABLED = !"false".equals(System
+			.getProperty("replay.record"));
+	public static final String DIRECTORY = System.getProperty("replay.dir",
+			"Replays");
+
+	private File file;
+	private DataOutputStream out;
+	private long lastStep;
+
+	/**
+	 * Creates the file and writes its header
+	 * @param file The file to write
+	 * @param level The level being played
+	 * @param engine The GameEngine of the level (before its first tick)
+	 * @throws IOException If the file couldn't be written
+	 */
+	public InputLog(File file, int level, GameEngine engine)
+			throws IOException
+	{
+		this.file = file;
+		this.out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file)));
+		Robot robot = engine.getRobot();
+		this.out.writeInt(MAGIC);
+		this.out.writeByte(VERSION);
+		this.out.writeInt(level);
+		this.out.writeLong(engine.getRandom().getSeed());
+		this.out.writeInt(robot.getHealth());
+		this.out.writeInt(robot.getDamage());
+		this.out.writeLong(System.currentTimeMillis());
+		this.out.flush();
+		this.lastStep = engine.getSteps();
+	}
+
+	/**
+	 * Creates an InputLog for the given level in DIRECTORY
+	 * @param level The level being played
+	 * @param engine The GameEngine of the level (before its first tick)
+	 * @return The InputLog, or null if recording is off or the file couldn't
+	 *         be created
+	 */
+	public static InputLog create(int level, GameEngine engine)
+	{
+		if (!ENABLED)
+			return null;
+		File directory = new File(DIRECTORY);
+		String name = "Level" + level + "-"
+				+ new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+		File file = new File(directory, name + ".rbci");
+		for (int copy = 2; file.exists(); copy++)
+			file = new File(directory, name + "-" + copy + ".rbci");
+		try
+		{
+			if (!directory.isDirectory() && !directory.mkdirs())
+				throw new IOException("can't create " + directory);
+			return new InputLog(file, level, engine);
+		}
+		catch (IOException e)
+		{
+			Log.warn("Not recording input to {}: {}", file, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Getter for the file being written
+	 * @return The file
+	 */
+	public File getFile()
+	{
+		return this.file;
+	}
+
+	/**
+	 * Writes one command (called by InputQueue as it applies it)
+	 * @param step The step that uses the command
+	 * @param command The command (InputQueue's KEY_DOWN, KEY_UP, ATTACK,
+	 *            RELEASE_ALL, PAUSE, RESUME or REWIND with the key in the low
+	 *            bits)
+	 */
+	public void record(long step, int command)
+	{
+		this.write(step, (command >> 8) << 2 | (command & 3));
+		this.flush();
+	}
+
+	/**
+	 * Writes the end record and closes the file
+	 * @param step The last step played
+	 * @param state The state the level was left in
+	 */
+	public void close(long step, int state)
+	{
+		if (this.out == null)
+			return;
+		this.write(step, END);
+		try
+		{
+			this.out.writeByte(state);
+			this.out.close();
+		}
+		catch (IOException e)
+		{
+			this.failed(e);
+		}
+		this.out = null;
+	}
+
+	/**
+	 * Writes the start of a record
+	 * @param step The step of the record
+	 * @param code The byte for the command
+	 */
+	private void write(long step, int code)
+	{
+		if (this.out == null)
+			return;
+		try
+		{
+			// 7 bits at a time, with the top bit set on all but the last byte
+			long delta = Math.max(step - this.lastStep, 0);
+			while (delta >= 0x80)
+			{
+				this.out.writeByte((int) (delta & 0x7F) | 0x80);
+				delta >>>= 7;
+			}
+			this.out.writeByte((int) delta);
+			this.out.writeByte(code);
+			this.lastStep = Math.max(step, this.lastStep);
+		}
+		catch (IOException e)
+		{
+			this.failed(e);
+		}
+	}
+
+	/**
+	 * Writes the buffered records to the file
+	 */
+	private void flush()
+	{
+		if (this.out == null)
+			return;
+		try
+		{
+			this.out.flush();
+		}
+		catch (IOException e)
+		{
+			this.failed(e);
+		}
+	}
+
+	/**
+	 * Stops recording after the file couldn't be written
+	 * @param e The problem
+	 */
+	private void failed(IOException e)
+	{
+		Log.error("Recording input to {}: {}", this.file, e.getMessage());
+		try
+		{
+			this.out.close();
+		}
+		catch (IOException closing)
+		{
+			// Already reported
+		}
+		this.out = null;
+	}
+}
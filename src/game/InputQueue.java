@@ -0,0 +1,214 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Carries the user's key presses from the Event Dispatch Thread (or any other
+ * thread) to the thread stepping the GameEngine; A lock free linked queue
+ * with many producers and a single consumer: offering is one atomic swap and
+ * the consumer never waits, so neither side ever blocks the other
+ *
+ * The consumer can write every command to an InputLog as it is applied, or
+ * ignore the user and apply the commands of a Replay instead
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class InputQueue
+{
+	// Commands (the movement key is in the low bits)
+	static final int KEY_DOWN = 1 << 8;
+	static final int KEY_UP = 2 << 8;
+	static final int ATTACK = 3 << 8;
+	static final int RELEASE_ALL = 4 << 8;
+	static final int PAUSE = 5 << 8;
+	static final int RESUME = 6 << 8;
+	static final int REWIND = 7 << 8;
+	static final int KEY_MASK = (1 << 8) - 1;
+
+	/**
+	 * One command in the queue
+	 */
+	private static class Node
+	{
+		private final int command;
+		private volatile Node next;
+
+		/**
+		 * Creates a Node
+		 * @param command The command
+		 */
+		Node(int command)
+		{
+			this.command = command;
+		}
+	}
+
+	// Producers add after the head, the consumer reads after the tail
+	private final AtomicReference<Node> head;
+	private Node tail;
+
+	// Only used by the consumer
+	private InputLog log;
+	private Replay replay;
+
+	/**
+	 * Creates an empty InputQueue
+	 */
+	public InputQueue()
+	{
+		Node empty = new Node(0);
+		this.head = new AtomicReference<Node>(empty);
+		this.tail = empty;
+	}
+
+	/**
+	 * Adds a command to the queue (called by any thread)
+	 * @param command The command
+	 */
+	private void offer(int command)
+	{
+		Node node = new Node(command);
+		Node previous = this.head.getAndSet(node);
+
+		// Until this is set the consumer sees the queue as ending at previous
+		previous.next = node;
+	}
+
+	/**
+	 * Presses a movement key
+	 * @param key The key (InputFrame.UP, RIGHT, DOWN or LEFT)
+	 */
+	public void pressKey(int key)
+	{
+		this.offer(KEY_DOWN | key);
+	}
+
+	/**
+	 * Releases a movement key
+	 * @param key The key (InputFrame.UP, RIGHT, DOWN or LEFT)
+	 */
+	public void releaseKey(int key)
+	{
+		this.offer(KEY_UP | key);
+	}
+
+	/**
+	 * Presses the attack key
+	 */
+	public void attack()
+	{
+		this.offer(ATTACK);
+	}
+
+	/**
+	 * Releases every key (i.e. when the game is paused)
+	 */
+	public void releaseAll()
+	{
+		this.offer(RELEASE_ALL);
+	}
+
+	/**
+	 * Asks for the level to be rewound (see GameEngine.REWIND_TICKS)
+	 */
+	public void rewind()
+	{
+		this.offer(REWIND);
+	}
+
+	/**
+	 * Marks the game as paused by the in-game menu (only recorded)
+	 */
+	public void pause()
+	{
+		this.offer(PAUSE);
+	}
+
+	/**
+	 * Marks the game as resumed from the in-game menu (only recorded)
+	 */
+	public void resume()
+	{
+		this.offer(RESUME);
+	}
+
+	/**
+	 * Sets the InputLog every applied command is written to
+	 * @param log The InputLog (null to stop recording)
+	 */
+	public void setLog(InputLog log)
+	{
+		this.log = log;
+	}
+
+	/**
+	 * Getter for the InputLog the commands are written to
+	 * @return The InputLog (null if the commands aren't recorded)
+	 */
+	public InputLog getLog()
+	{
+		return this.log;
+	}
+
+	/**
+	 * Plays the given Replay instead of the user's commands
+	 * @param replay The Replay (null to use the user's commands)
+	 */
+	public void setReplay(Replay replay)
+	{
+		this.replay = replay;
+	}
+
+	/**
+	 * Applies every command in the queue to the given InputFrame, in the
+	 * order they were offered, or the Replay's commands for the step if there
+	 * is one (called only by the consuming thread)
+	 * @param input The InputFrame to change
+	 * @param step The step that will use the InputFrame next
+	 *            (GameEngine.getSteps() + 1)
+	 * @return The number of commands applied
+	 */
+	public int drainTo(InputFrame input, long step)
+	{
+		int applied = 0;
+		Node next = this.tail.next;
+		while (next != null)
+		{
+			if (this.replay == null)
+			{
+				apply(next.command, input);
+				if (this.log != null)
+					this.log.record(step, next.command);
+				applied++;
+			}
+			this.tail = next;
+			next = next.next;
+		}
+		if (this.replay != null)
+			applied = this.replay.applyTo(input, step);
+		return applied;
+	}
+
+	/**
+	 * Applies one command to the given InputFrame
+	 * @param command The command
+	 * @param input The InputFrame to change
+	 */
+	static void apply(int command, InputFrame input)
+	{
+		int type = command & ~KEY_MASK;
+		int key = command & KEY_MASK;
+		if (type == KEY_DOWN)
+			input.setKey(key, true);
+		else if (type == KEY_UP)
+			input.setKey(key, false);
+		else if (type == ATTACK)
+			input.attack();
+		else if (type == RELEASE_ALL)
+			input.clear();
+		else if (type == REWIND)
+			input.rewind();
+	}
+}
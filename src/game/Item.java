@@ -15,13 +15,14 @@ public class Item
 	/**
 	 * Constructor for Item;
 	 * @param type The type of Item
+	 * @param random The generator for this Item (see GameRandom.fork())
 	 */
-	public Item(char type)
+	public Item(char type, GameRandom random)
 	{
 		this.type = type;
 
 		// Randomization gives the user a bit of suspense when getting an item
-		this.value = (int) (Math.random() * 20) + 31;
+		this.value = random.nextInt(20) + 31;
 	}
 
 	/**
@@ -42,4 +43,14 @@ public class Item
 	{
 		return this.value;
 	}
+
+	/**
+	 * Sets the value of the item (used when it is loaded again after its part
+	 * of the level was evicted)
+	 * @param value The value the item had
+	 */
+	void setValue(int value)
+	{
+		this.value = value;
+	}
 }
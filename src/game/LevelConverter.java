@@ -0,0 +1,180 @@
+package game;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+/**
+ * Converts text level files into the binary format read by BinaryLevelFile
+ * (java game.LevelConverter Level1.rbcq Level1.rbcb)
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class LevelConverter
+{
+	/**
+	 * Converts the text level file given as the first argument into a binary
+	 * level file named by the second argument
+	 * @param args The text and binary file names
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length != 2)
+		{
+			Log.error("Usage: java game.LevelConverter <text level>"
+					+ " <binary level>");
+			return;
+		}
+		try
+		{
+			convert(new File(args[0]), new File(args[1]));
+		}
+		catch (IOException e)
+		{
+			Log.error(e.getMessage());
+		}
+	}
+
+	/**
+	 * Converts a text level file into a binary level file
+	 * @param in The text level file
+	 * @param out The binary level file to write
+	 * @throws IOException If either file can't be used or the text level
+	 *             has errors
+	 */
+	public static void convert(File in, File out) throws IOException
+	{
+		ParsedLevel level = new LevelParser(Integer.MAX_VALUE).parse(in);
+		if (!level.isValid())
+		{
+			StringBuilder errors = new StringBuilder(in.getName()
+					+ " has errors:");
+			for (LevelError error : level.getErrors())
+				errors.append("\n").append(error);
+			throw new IOException(errors.toString());
+		}
+		write(level, out);
+	}
+
+	/**
+	 * Writes the squares of a level in the binary format (see BinaryLevelFile)
+	 * @param source The level to write
+	 * @param out The binary level file to write
+	 * @throws IOException If either file can't be used
+	 */
+	public static void write(LevelSource source, File out) throws IOException
+	{
+		int rows = source.getRows();
+		int columns = source.getColumns();
+		int chunkRows = (rows + Chunk.CHUNK_MASK) >> Chunk.CHUNK_SHIFT;
+		int chunkColumns = (columns + Chunk.CHUNK_MASK) >> Chunk.CHUNK_SHIFT;
+		int keys = 0;
+		int start = -1;
+		int exit = -1;
+
+		ByteArrayOutputStream tableBytes = new ByteArrayOutputStream();
+		DataOutputStream table = new DataOutputStream(tableBytes);
+		int tableSize = 0;
+		ByteArrayOutputStream squares = new ByteArrayOutputStream();
+		int[] offsets = new int[chunkRows * chunkColumns + 1];
+		byte[] chunkSquares = new byte[Chunk.CHUNK_AREA];
+
+		for (int chunkRow = 0; chunkRow < chunkRows; chunkRow++)
+		{
+			for (int chunkColumn = 0; chunkColumn < chunkColumns; chunkColumn++)
+			{
+				source.readChunk(chunkRow, chunkColumn, chunkSquares);
+				int firstRow = chunkRow << Chunk.CHUNK_SHIFT;
+				int firstColumn = chunkColumn << Chunk.CHUNK_SHIFT;
+				int height = Math.min(Chunk.CHUNK_WIDTH, rows - firstRow);
+				int width = Math.min(Chunk.CHUNK_WIDTH, columns - firstColumn);
+
+				// Runs of up to 255 equal squares, one row after another
+				int runLength = 0;
+				byte runSquare = 0;
+				for (int row = 0; row < height; row++)
+				{
+					for (int column = 0; column < width; column++)
+					{
+						byte square = (byte) Character
+								.toLowerCase((char) chunkSquares[(row << Chunk.CHUNK_SHIFT)
+										| column]);
+						if (runLength > 0
+								&& (square != runSquare || runLength == 255))
+						{
+							squares.write(runLength);
+							squares.write(runSquare);
+							runLength = 0;
+						}
+						runSquare = square;
+						runLength++;
+
+						// Every Item and Enemy goes in the table
+						int cell = (firstRow + row) * columns + firstColumn
+								+ column;
+						char object = (char) square;
+						if (object == Game.KEY)
+							keys++;
+						if ((object >= Game.DAMAGE_BOOST && object <= Game.KEY)
+								|| object == Game.BOSS || object == Game.ENEMY
+								|| object == Game.HIDDEN_ENEMY)
+						{
+							table.writeInt(cell);
+							table.writeByte(square);
+							tableSize++;
+						}
+						else if (object == Game.START
+								&& (start == -1 || cell < start))
+							start = cell;
+						else if (object == Game.END
+								&& (exit == -1 || cell < exit))
+							exit = cell;
+					}
+				}
+				squares.write(runLength);
+				squares.write(runSquare);
+				offsets[chunkRow * chunkColumns + chunkColumn + 1] = squares
+						.size();
+			}
+		}
+
+		// Everything after the header is covered by the checksum
+		ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+		DataOutputStream body = new DataOutputStream(bodyBytes);
+		table.flush();
+		tableBytes.writeTo(body);
+		for (int offset = 0; offset < offsets.length; offset++)
+			body.writeInt(offsets[offset]);
+		squares.writeTo(body);
+		body.flush();
+		CRC32 crc = new CRC32();
+		crc.update(bodyBytes.toByteArray());
+
+		DataOutputStream file = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(out)));
+		try
+		{
+			file.writeInt(BinaryLevelFile.MAGIC);
+			file.writeShort(BinaryLevelFile.VERSION);
+			file.writeShort(0);
+			file.writeInt(columns);
+			file.writeInt(rows);
+			file.writeInt(keys);
+			file.writeInt(start);
+			file.writeInt(exit);
+			file.writeInt(tableSize);
+			file.writeInt((int) crc.getValue());
+			bodyBytes.writeTo(file);
+		}
+		finally
+		{
+			file.close();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package game;
+
+/**
+ * A problem found in a level file, with the line and column it was found at
+ * (both start at 1, 0 if the problem isn't at a single place in the file)
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class LevelError
+{
+	private int line;
+	private int column;
+	private String message;
+
+	/**
+	 * Creates a LevelError
+	 * @param line The line of the problem
+	 * @param column The column of the problem
+	 * @param message What the problem is
+	 */
+	public LevelError(int line, int column, String message)
+	{
+		this.line = line;
+		this.column = column;
+		this.message = message;
+	}
+
+	/**
+	 * Getter for the line of the problem
+	 * @return The line (0 if the problem isn't on one line)
+	 */
+	public int getLine()
+	{
+		return this.line;
+	}
+
+	/**
+	 * Getter for the column of the problem
+	 * @return The column (0 if the problem isn't at one column)
+	 */
+	public int getColumn()
+	{
+		return this.column;
+	}
+
+	/**
+	 * Getter for the description of the problem
+	 * @return What the problem is
+	 */
+	public String getMessage()
+	{
+		return this.message;
+	}
+
+	/**
+	 * Returns the problem with where it was found
+	 * @Override The toString() method in Object
+	 */
+	public String toString()
+	{
+		if (this.line == 0)
+			return this.message;
+		if (this.column == 0)
+			return "Line " + this.line + ": " + this.message;
+		return "Line " + this.line + ", column " + this.column + ": "
+				+ this.message;
+	}
+}
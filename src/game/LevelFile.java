@@ -0,0 +1,124 @@
+package game;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Random access to the squares of a text level file, so a Grid can read only
+ * the parts of a big level it needs; The position of every line is found by
+ * the LevelParser that checked the file
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class LevelFile implements LevelSource
+{
+	private RandomAccessFile file;
+	private long[] lineStarts;
+	private int rows;
+	private int columns;
+
+	/**
+	 * Opens the given level file
+	 * @param file The level file
+	 * @param lineStarts Where each row of squares starts in the file (found
+	 *            by a LevelParser)
+	 * @param rows The number of rows in the level
+	 * @param columns The number of columns in the level
+	 * @throws IOException If the file can't be opened
+	 */
+	public LevelFile(File file, long[] lineStarts, int rows, int columns)
+			throws IOException
+	{
+		this.rows = rows;
+		this.columns = columns;
+		this.lineStarts = lineStarts;
+		this.file = new RandomAccessFile(file, "r");
+	}
+
+	/**
+	 * Reads the size declared on the first line of a level file
+	 * @param line The first line of the file
+	 * @return The number of rows and columns (null if the line is a row of
+	 *         squares instead)
+	 * @throws IOException If the size is bad or bigger than Grid.MAX_SIZE
+	 */
+	public static int[] readSize(String line) throws IOException
+	{
+		line = line.trim();
+		if (line.length() == 0 || !Character.isDigit(line.charAt(0)))
+			return null;
+		int rows = 0;
+		int columns = 0;
+		try
+		{
+			String[] size = line.split("\\s+");
+			columns = Integer.parseInt(size[0]);
+			rows = Integer.parseInt(size[1]);
+		}
+		catch (RuntimeException e)
+		{
+			rows = 0;
+		}
+		if (!Grid.isValidSize(rows, columns))
+			throw new IOException("File Corupted, bad level size: " + line);
+		return new int[] { rows, columns };
+	}
+
+	/**
+	 * Reads the squares of one Chunk (see LevelSource)
+	 * @param chunkRow The row of the Chunk
+	 * @param chunkColumn The column of the Chunk
+	 * @param squares The array to read the squares into
+	 * @throws IOException If the file can't be read
+	 */
+	public void readChunk(int chunkRow, int chunkColumn, byte[] squares)
+			throws IOException
+	{
+		int firstRow = chunkRow << Chunk.CHUNK_SHIFT;
+		int firstColumn = chunkColumn << Chunk.CHUNK_SHIFT;
+		int lastRow = Math.min(firstRow + Chunk.CHUNK_WIDTH, this.rows);
+		int length = Math.min(Chunk.CHUNK_WIDTH, this.columns - firstColumn);
+		for (int row = firstRow; row < lastRow; row++)
+		{
+			this.file.seek(this.lineStarts[row] + firstColumn);
+			this.file.readFully(squares, (row - firstRow) << Chunk.CHUNK_SHIFT,
+					length);
+		}
+	}
+
+	/**
+	 * Getter for the number of rows
+	 * @return The number of rows
+	 */
+	public int getRows()
+	{
+		return this.rows;
+	}
+
+	/**
+	 * Getter for the number of columns
+	 * @return The number of columns
+	 */
+	public int getColumns()
+	{
+		return this.columns;
+	}
+
+	/**
+	 * Closes the file
+	 */
+	public void close()
+	{
+		try
+		{
+			this.file.close();
+		}
+		catch (IOException e)
+		{
+			Log.warn("Closing a level file: {}", e);
+		}
+	}
+}
@@ -0,0 +1,377 @@
+package game;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a text level file in one pass through a large buffer, checking every
+ * square as it goes and recording each problem (with its line and column) in
+ * the ParsedLevel instead of stopping at the first one; The first line may
+ * declare the size of the level as "width height", otherwise it is NO_OF_ROWS
+ * by NO_OF_ROWS squares
+ *
+ * A LevelParser reuses its buffer between files, so each thread needs its
+ * own (see parseAll())
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class LevelParser
+{
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	// The longest line allowed to declare the size of the level
+	private static final int MAX_SIZE_LINE = 32;
+
+	// The squares a level file may hold
+	private static final boolean[] KNOWN_SQUARES = new boolean[128];
+	static
+	{
+		char[] known = { Game.OPEN, Game.WALL, Game.START, Game.END,
+				Game.NORTH_ONLY, Game.EAST_ONLY, Game.SOUTH_ONLY,
+				Game.WEST_ONLY, Game.DAMAGE_BOOST, Game.HEALTH_BOOST, 'y',
+				Game.KEY, Game.BOSS, Game.ENEMY, Game.HIDDEN_ENEMY };
+		for (int square = 0; square < known.length; square++)
+			KNOWN_SQUARES[known[square]] = true;
+	}
+
+	private ByteBuffer buffer;
+	private int maxChunks;
+
+	// The level being read and where the parser is in the file
+	private ParsedLevel level;
+	private long position;
+	private long lineStart;
+	private int line;
+	private int column;
+	private int firstLine;
+	private int rowsRead;
+	private StringBuilder sizeLine;
+	private boolean stopped;
+
+	/**
+	 * Creates a LevelParser
+	 * @param maxChunks The squares of levels split into more Chunk objects
+	 *            than this aren't kept in the ParsedLevel (only checked)
+	 */
+	public LevelParser(int maxChunks)
+	{
+		this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		this.maxChunks = maxChunks;
+	}
+
+	/**
+	 * Reads the given level file
+	 * @param file The level file
+	 * @return The ParsedLevel (check isValid() before using it)
+	 * @throws IOException If the file can't be read
+	 */
+	public ParsedLevel parse(File file) throws IOException
+	{
+		FileInputStream in = new FileInputStream(file);
+		try
+		{
+			return this.parse(file.getName(), in.getChannel());
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads a level file from the given channel (which is left open)
+	 * @param name The name of the level file
+	 * @param channel The channel to read the file from
+	 * @return The ParsedLevel (check isValid() before using it)
+	 * @throws IOException If the channel can't be read
+	 */
+	public ParsedLevel parse(String name, ReadableByteChannel channel)
+			throws IOException
+	{
+		this.level = new ParsedLevel(name);
+		this.position = 0;
+		this.lineStart = 0;
+		this.line = 0;
+		this.column = 0;
+		this.firstLine = 0;
+		this.rowsRead = 0;
+		this.sizeLine = null;
+		this.stopped = false;
+
+		byte[] bytes = this.buffer.array();
+		this.buffer.clear();
+		while (!this.stopped && channel.read(this.buffer) != -1)
+		{
+			int length = this.buffer.position();
+			for (int next = 0; next < length && !this.stopped; next++)
+				this.next(bytes[next]);
+			this.buffer.clear();
+		}
+		if (!this.stopped)
+			this.finish();
+
+		ParsedLevel parsed = this.level;
+		this.level = null;
+		return parsed;
+	}
+
+	/**
+	 * Reads the next byte of the file
+	 * @param next The byte
+	 */
+	private void next(byte next)
+	{
+		if (this.position++ == 0)
+		{
+			// A size line starts with a digit
+			if (next >= '0' && next <= '9')
+				this.sizeLine = new StringBuilder();
+			else
+				this.setSize(Game.NO_OF_ROWS, Game.NO_OF_ROWS);
+		}
+
+		if (next == '\n')
+			this.endLine();
+		else if (next == '\r')
+			return;
+		else if (this.sizeLine != null)
+		{
+			if (this.sizeLine.length() == MAX_SIZE_LINE)
+			{
+				this.level.addError(1, MAX_SIZE_LINE + 1,
+						"The level size line is too long");
+				this.stopped = true;
+			}
+			else
+				this.sizeLine.append((char) (next & 0xFF));
+		}
+		else
+		{
+			int row = this.line - this.firstLine;
+			if (row < this.level.rows && this.column < this.level.columns)
+				this.square(next, row, this.column);
+			this.column++;
+		}
+	}
+
+	/**
+	 * Reads the size line or checks that the row of squares was long enough
+	 */
+	private void endLine()
+	{
+		if (this.sizeLine != null)
+		{
+			this.readSizeLine();
+		}
+		else
+		{
+			int row = this.line - this.firstLine;
+			if (row < this.level.rows)
+			{
+				if (this.column < this.level.columns)
+					this.level.addError(this.line + 1, this.column + 1,
+							"Row has only " + this.column + " of "
+									+ this.level.columns + " squares");
+				this.level.lineStarts[row] = this.lineStart;
+				this.rowsRead++;
+			}
+		}
+		this.line++;
+		this.column = 0;
+		this.lineStart = this.position;
+	}
+
+	/**
+	 * Reads the size of the level from the first line
+	 */
+	private void readSizeLine()
+	{
+		int[] size = null;
+		try
+		{
+			size = LevelFile.readSize(this.sizeLine.toString());
+		}
+		catch (IOException e)
+		{
+			this.level.addError(1, 1, e.getMessage());
+		}
+		this.sizeLine = null;
+		if (size == null)
+		{
+			this.stopped = true;
+			return;
+		}
+		this.setSize(size[0], size[1]);
+		this.firstLine = 1;
+	}
+
+	/**
+	 * Sets the size of the level being read
+	 * @param rows The number of rows
+	 * @param columns The number of columns
+	 */
+	private void setSize(int rows, int columns)
+	{
+		this.level.rows = rows;
+		this.level.columns = columns;
+		this.level.lineStarts = new long[rows];
+		if (Grid.getNoOfChunks(rows, columns) <= this.maxChunks)
+			this.level.squares = new byte[rows * columns];
+	}
+
+	/**
+	 * Checks one square and records it if it is the start, exit, a key or an
+	 * Enemy
+	 * @param next The square as it is in the file
+	 * @param row The row of the square
+	 * @param column The column of the square
+	 */
+	private void square(byte next, int row, int column)
+	{
+		// Upper and lower case squares are the same
+		if (next >= 'A' && next <= 'Z')
+			next += 'a' - 'A';
+		char object = (char) (next & 0xFF);
+		int cell = row * this.level.columns + column;
+		if (this.level.squares != null)
+			this.level.squares[cell] = next;
+
+		if (object >= KNOWN_SQUARES.length || !KNOWN_SQUARES[object])
+			this.level.addError(this.line + 1, column + 1,
+					"Unknown square '" + object + "'");
+		else if (object == Game.KEY)
+			this.level.keys++;
+		else if (object == Game.BOSS || object == Game.HIDDEN_ENEMY
+				|| object == Game.ENEMY)
+			this.level.enemyHealth += Enemy.getStartingHealth(object);
+		else if (object == Game.START)
+		{
+			if (this.level.start == -1)
+				this.level.start = cell;
+			else
+				this.level.addError(this.line + 1, column + 1,
+						"Second start square, the first is at "
+								+ this.describe(this.level.start));
+		}
+		else if (object == Game.END)
+		{
+			if (this.level.exit == -1)
+				this.level.exit = cell;
+			else
+				this.level.addError(this.line + 1, column + 1,
+						"Second exit square, the first is at "
+								+ this.describe(this.level.exit));
+		}
+	}
+
+	/**
+	 * Returns the line and column in the file of the given square
+	 * @param cell The index of the square
+	 * @return The line and column
+	 */
+	private String describe(int cell)
+	{
+		return "line " + (cell / this.level.columns + this.firstLine + 1)
+				+ ", column " + (cell % this.level.columns + 1);
+	}
+
+	/**
+	 * Ends the last line and checks the level as a whole
+	 */
+	private void finish()
+	{
+		if (this.position == 0)
+		{
+			this.level.addError(0, 0, "The file is empty");
+			return;
+		}
+		if (this.position > this.lineStart)
+			this.endLine();
+		if (this.stopped)
+			return;
+
+		if (this.rowsRead < this.level.rows)
+			this.level.addError(this.line + 1, 0, "Only " + this.rowsRead
+					+ " of " + this.level.rows + " rows");
+		if (this.level.start == -1)
+			this.level.addError(0, 0, "There is no start square");
+		if (this.level.exit == -1)
+			this.level.addError(0, 0, "There is no exit square");
+
+		// The exit only opens once the last key is picked up
+		if (this.level.keys == 0)
+			this.level.addError(0, 0, "There are no keys to open the exit");
+	}
+
+	/**
+	 * Reads the given level files at the same time (one LevelParser for each
+	 * processor)
+	 * @param files The level files
+	 * @param maxChunks The squares of levels split into more Chunk objects
+	 *            than this aren't kept
+	 * @return The ParsedLevel of each file (a file that can't be read has the
+	 *         reason as its only error)
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	public static ParsedLevel[] parseAll(File[] files, final int maxChunks)
+			throws InterruptedException
+	{
+		int threads = Math.min(files.length, Runtime.getRuntime()
+				.availableProcessors());
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(threads,
+				1));
+		final ThreadLocal<LevelParser> parsers = new ThreadLocal<LevelParser>()
+		{
+			protected LevelParser initialValue()
+			{
+				return new LevelParser(maxChunks);
+			}
+		};
+
+		ParsedLevel[] levels = new ParsedLevel[files.length];
+		try
+		{
+			List<Future<ParsedLevel>> results = new ArrayList<Future<ParsedLevel>>();
+			for (int file = 0; file < files.length; file++)
+			{
+				final File next = files[file];
+				results.add(pool.submit(new Callable<ParsedLevel>()
+				{
+					public ParsedLevel call() throws IOException
+					{
+						return parsers.get().parse(next);
+					}
+				}));
+			}
+			for (int file = 0; file < files.length; file++)
+			{
+				try
+				{
+					levels[file] = results.get(file).get();
+				}
+				catch (ExecutionException e)
+				{
+					levels[file] = new ParsedLevel(files[file].getName());
+					levels[file].addError(0, 0, e.getCause().toString());
+				}
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		return levels;
+	}
+}
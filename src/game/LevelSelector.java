@@ -84,8 +84,7 @@ public class LevelSelector extends JPanel implements MouseListener
 		}
 		catch (IOException e)
 		{
-			System.err
-					.println("Trying loadData() in LevelSelector with file: GameSave.rbcq");
+			Log.error("Trying loadData() in LevelSelector with file: GameSave.rbcq");
 		}
 
 		// Create the menu buttons
@@ -106,7 +105,7 @@ public class LevelSelector extends JPanel implements MouseListener
 		}
 		catch (FileNotFoundException e)
 		{
-			System.out.println("File wasn't able to be created!");
+			Log.error("File wasn't able to be created!");
 		}
 	}
 
@@ -116,7 +115,7 @@ public class LevelSelector extends JPanel implements MouseListener
 	 */
 	private void writeLevelsToFile() throws FileNotFoundException
 	{
-		System.out.println("Entered write to file!");
+		Log.trace("Entered write to file!");
 		File file = new File("GameSave.rbcq");
 
 		PrintWriter printWriter = new PrintWriter(file);
@@ -191,7 +190,7 @@ public class LevelSelector extends JPanel implements MouseListener
 		// If there isn;t a file, create a blank array
 		else
 		{
-			System.out.println("Creating boolean array");
+			Log.debug("Creating boolean array");
 			for (int stage = 0; stage < levelsCompleted.length; stage++)
 				for (int level = 0; level < levelsCompleted[stage].length; level++)
 					this.levelsCompleted[stage][level] = false;
@@ -223,9 +222,8 @@ public class LevelSelector extends JPanel implements MouseListener
 		this.levels = new MenuItem[NO_OF_STAGES][LEVELS_PER_STAGE];
 		for (int stage = 0; stage < levelsCompleted.length; stage++)
 			for (int level = 0; level < levelsCompleted[stage].length; level++)
-				System.out.println("Stage: " + stage + "\n     Level: "
-						+ level + "\n          State: "
-						+ this.levelsCompleted[stage][level]);
+				Log.trace("Stage: {}  Level: {}  State: {}", stage, level,
+						this.levelsCompleted[stage][level]);
 		for (int stage = 0; stage < this.levels.length; stage++)
 		{
 			for (int level = 0; level < this.levels[stage].length; level++)
@@ -246,7 +244,7 @@ public class LevelSelector extends JPanel implements MouseListener
 	 */
 	public void newGame(int tier)
 	{
-		System.out.println("Entered new Level!");
+		Log.trace("Entered new Level!");
 		this.setEnabled(false);
 		game.newLevel(tier);
 		game.remove(this);
@@ -277,7 +275,7 @@ public class LevelSelector extends JPanel implements MouseListener
 		// Checks for the stage clicked to decide the level to open
 		if (this.pressed != -1)
 		{
-			System.out.println("Pressed: " + this.pressed);
+			Log.trace("Pressed: {}", this.pressed);
 			for (int level = 0; finding && level < levels[pressed].length; level++)
 			{
 				if (this.levelsCompleted[this.pressed][level])
@@ -0,0 +1,43 @@
+package game;
+
+import java.io.IOException;
+
+/**
+ * A level file a Grid can read one Chunk at a time (either a text LevelFile or
+ * a BinaryLevelFile)
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public interface LevelSource
+{
+	/**
+	 * Getter for the number of rows
+	 * @return The number of rows in the level
+	 */
+	public int getRows();
+
+	/**
+	 * Getter for the number of columns
+	 * @return The number of columns in the level
+	 */
+	public int getColumns();
+
+	/**
+	 * Reads the squares of one Chunk (as their constant representations in
+	 * the Game class) into squares[row * CHUNK_WIDTH + column]; Squares past
+	 * the edge of the level are left alone
+	 * @param chunkRow The row of the Chunk
+	 * @param chunkColumn The column of the Chunk
+	 * @param squares The array to read the squares into (CHUNK_AREA long)
+	 * @throws IOException If the file can't be read
+	 */
+	public void readChunk(int chunkRow, int chunkColumn, byte[] squares)
+			throws IOException;
+
+	/**
+	 * Closes the file
+	 */
+	public void close();
+}
@@ -0,0 +1,178 @@
+package game;
+
+import java.io.IOException;
+
+/**
+ * The squares of a level as they are in its file, read once and shared by
+ * every Grid made from it (see Grid(LevelTemplate, GameEngine)), so playing a
+ * level again doesn't read or check its file again; A LevelTemplate is never
+ * changed after it is created
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class LevelTemplate
+{
+	private int rows;
+	private int columns;
+	private int start;
+	private int exit;
+	private int keys;
+	private int enemyHealth;
+	private Chunk[] chunks;
+	private SpatialIndex hiddenIndex;
+	private SpatialIndex enemyIndex;
+
+	/**
+	 * Reads every square of the given level
+	 * @param source The level file (which is left open)
+	 * @param start The index of the start square
+	 * @param exit The index of the exit square
+	 * @param keys The number of keys in the level
+	 * @param enemyHealth The total starting health of every Enemy
+	 * @throws IOException If the level file can't be read
+	 */
+	public LevelTemplate(LevelSource source, int start, int exit, int keys,
+			int enemyHealth) throws IOException
+	{
+		this.rows = source.getRows();
+		this.columns = source.getColumns();
+		this.start = start;
+		this.exit = exit;
+		this.keys = keys;
+		this.enemyHealth = enemyHealth;
+		this.hiddenIndex = new SpatialIndex(this.rows, this.columns);
+		this.enemyIndex = new SpatialIndex(this.rows, this.columns);
+
+		int chunkRows = (this.rows + Chunk.CHUNK_MASK) >> Chunk.CHUNK_SHIFT;
+		int chunkColumns = (this.columns + Chunk.CHUNK_MASK)
+				>> Chunk.CHUNK_SHIFT;
+		this.chunks = new Chunk[chunkRows * chunkColumns];
+		byte[] squares = new byte[Chunk.CHUNK_AREA];
+		for (int index = 0; index < this.chunks.length; index++)
+		{
+			int firstRow = (index / chunkColumns) << Chunk.CHUNK_SHIFT;
+			int firstColumn = (index % chunkColumns) << Chunk.CHUNK_SHIFT;
+			int height = Math.min(Chunk.CHUNK_WIDTH, this.rows - firstRow);
+			int width = Math.min(Chunk.CHUNK_WIDTH, this.columns - firstColumn);
+			source.readChunk(index / chunkColumns, index % chunkColumns,
+					squares);
+
+			Chunk chunk = new Chunk(index);
+			for (int row = 0; row < height; row++)
+			{
+				for (int column = 0; column < width; column++)
+				{
+					int square = (row << Chunk.CHUNK_SHIFT) | column;
+					Grid.fillSquare(chunk, square, Character
+							.toLowerCase((char) squares[square]));
+					this.addToIndexes(chunk, square, (firstRow + row)
+							* this.columns + firstColumn + column);
+				}
+			}
+			chunk.shared = true;
+			this.chunks[index] = chunk;
+		}
+	}
+
+	/**
+	 * Adds the given square to the indexes if it holds a hidden Item or Enemy
+	 * @param chunk The Chunk holding the square
+	 * @param square The index of the square in the Chunk
+	 * @param cell The index of the square in the level
+	 */
+	private void addToIndexes(Chunk chunk, int square, int cell)
+	{
+		byte flags = chunk.flags[square];
+		if ((flags & (Grid.ITEM | Grid.ENEMY)) == 0)
+			return;
+		if (chunk.imageRef[square] == 0)
+			this.hiddenIndex.add(cell);
+		if ((flags & Grid.ENEMY) != 0)
+			this.enemyIndex.add(cell);
+	}
+
+	/**
+	 * Getter for the number of rows
+	 * @return The number of rows
+	 */
+	public int getRows()
+	{
+		return this.rows;
+	}
+
+	/**
+	 * Getter for the number of columns
+	 * @return The number of columns
+	 */
+	public int getColumns()
+	{
+		return this.columns;
+	}
+
+	/**
+	 * Getter for the index of the start square
+	 * @return The index of the start square
+	 */
+	public int getStart()
+	{
+		return this.start;
+	}
+
+	/**
+	 * Getter for the index of the exit square
+	 * @return The index of the exit square
+	 */
+	public int getExit()
+	{
+		return this.exit;
+	}
+
+	/**
+	 * Getter for the number of keys in the level
+	 * @return The number of keys
+	 */
+	public int getKeys()
+	{
+		return this.keys;
+	}
+
+	/**
+	 * Getter for the total starting health of every Enemy in the level
+	 * @return The total health
+	 */
+	public int getEnemyHealth()
+	{
+		return this.enemyHealth;
+	}
+
+	/**
+	 * Returns one of the (shared) Chunk objects of the level
+	 * @param index The index of the Chunk
+	 * @return The Chunk, which must not be changed
+	 */
+	Chunk getChunk(int index)
+	{
+		return this.chunks[index];
+	}
+
+	/**
+	 * Getter for the index of squares with a hidden Item or Enemy at the start
+	 * of the level
+	 * @return The index, which must be copied before it is changed
+	 */
+	SpatialIndex getHiddenIndex()
+	{
+		return this.hiddenIndex;
+	}
+
+	/**
+	 * Getter for the index of squares with an Enemy at the start of the level
+	 * @return The index, which must be copied before it is changed
+	 */
+	SpatialIndex getEnemyIndex()
+	{
+		return this.enemyIndex;
+	}
+}
@@ -0,0 +1,612 @@
+package game;
+
+import java.io.PrintStream;
+
+/**
+ * The game's logging facade; Messages below the level set with
+ * -Dlog.level=trace|debug|info|warn|error|off (info by default) return
+ * straight away, and because LEVEL is a constant the JIT compiler removes
+ * those calls completely
+ *
+ * Messages at or above the level are copied into a fixed ring buffer (the
+ * format and its arguments, without boxing numbers or building Strings) and
+ * formatted and printed by a background thread, so logging never waits on the
+ * console; Each "{}" in a format is replaced by the next argument; If the
+ * buffer is full a trace, debug or info message is dropped and counted
+ * instead, but a warning or error waits while the calling thread prints the
+ * buffer, so problems are never lost
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public final class Log
+{
+	// Levels
+	public static final int TRACE = 0;
+	public static final int DEBUG = 1;
+	public static final int INFO = 2;
+	public static final int WARN = 3;
+	public static final int ERROR = 4;
+	public static final int OFF = 5;
+	private static final String[] NAMES = { "TRACE", "DEBUG", "INFO",
+			"WARN", "ERROR" };
+
+	// The lowest level printed
+	public static final int LEVEL = parseLevel(System.getProperty(
+			"log.level", "info"));
+
+	// The number of messages the buffer holds (-Dlog.buffer=1024)
+	private static final int CAPACITY = Integer.highestOneBit(Math.max(
+			Integer.getInteger("log.buffer", 1024), 16));
+	private static final int MASK = CAPACITY - 1;
+
+	// The kinds of argument
+	private static final byte NONE = 0;
+	private static final byte NUMBER = 1;
+	private static final byte CHARACTER = 2;
+	private static final byte OBJECT = 3;
+	private static final int MAX_ARGUMENTS = 3;
+
+	// The ring buffer (one entry for each message)
+	private static final byte[] levels = new byte[CAPACITY];
+	private static final String[] formats = new String[CAPACITY];
+	private static final byte[] kinds = new byte[CAPACITY * MAX_ARGUMENTS];
+	private static final long[] numbers = new long[CAPACITY * MAX_ARGUMENTS];
+	private static final Object[] objects = new Object[CAPACITY
+			* MAX_ARGUMENTS];
+	private static long head;
+	private static long tail;
+	private static int dropped;
+	private static final Object lock = new Object();
+
+	// Only used by the thread printing the messages
+	private static final Object printLock = new Object();
+	private static final StringBuilder line = new StringBuilder(128);
+
+	static
+	{
+		if (LEVEL < OFF)
+		{
+			Thread writer = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					while (true)
+					{
+						synchronized (lock)
+						{
+							while (head == tail)
+							{
+								try
+								{
+									lock.wait(100);
+								}
+								catch (InterruptedException e)
+								{
+									return;
+								}
+							}
+						}
+						flush();
+					}
+				}
+			}, "Log writer");
+			writer.setDaemon(true);
+			writer.setPriority(Thread.MIN_PRIORITY);
+			writer.start();
+
+			// Print whatever is left when the program ends
+			Runtime.getRuntime().addShutdownHook(new Thread(new Runnable()
+			{
+				public void run()
+				{
+					flush();
+				}
+			}));
+		}
+	}
+
+	/**
+	 * Not used (all methods are static)
+	 */
+	private Log()
+	{
+	}
+
+	/**
+	 * Reads a level from its name
+	 * @param name The name of the level (ignoring case)
+	 * @return The level (INFO if the name isn't known)
+	 */
+	private static int parseLevel(String name)
+	{
+		if (name.equalsIgnoreCase("off"))
+			return OFF;
+		for (int level = 0; level < NAMES.length; level++)
+		{
+			if (NAMES[level].equalsIgnoreCase(name))
+				return level;
+		}
+		return INFO;
+	}
+
+	/**
+	 * Checks if messages of the given level are printed
+	 * @param level The level
+	 * @return Whether or not the level is at or above LEVEL
+	 */
+	public static boolean isEnabled(int level)
+	{
+		return level >= LEVEL;
+	}
+
+	/**
+	 * Copies a message into the ring buffer
+	 * @param level The level of the message
+	 * @param format The message, with "{}" for each argument
+	 * @param count The number of arguments
+	 * @param kind0 The kind of the first argument
+	 * @param number0 The first argument if it is a number or character
+	 * @param object0 The first argument if it is an Object
+	 * @param kind1 The kind of the second argument
+	 * @param number1 The second argument if it is a number or character
+	 * @param object1 The second argument if it is an Object
+	 * @param kind2 The kind of the third argument
+	 * @param number2 The third argument if it is a number
+	 * @param object2 The third argument if it is an Object
+	 */
+	private static void append(int level, String format, int count,
+			byte kind0, long number0, Object object0, byte kind1,
+			long number1, Object object1, byte kind2, long number2,
+			Object object2)
+	{
+		while (true)
+		{
+			synchronized (lock)
+			{
+				if (head - tail < CAPACITY)
+				{
+					write(level, format, count, kind0, number0, object0,
+							kind1, number1, object1, kind2, number2, object2);
+					return;
+				}
+				if (level < WARN)
+				{
+					dropped++;
+					return;
+				}
+			}
+
+			// Make room for the warning or error (outside the lock, since
+			// printing takes it for each message)
+			flush();
+		}
+	}
+
+	/**
+	 * Writes a message into the next free entry of the ring buffer (called
+	 * with lock held and the buffer not full)
+	 * @param level The level of the message
+	 * @param format The message, with "{}" for each argument
+	 * @param count The number of arguments
+	 * @param kind0 The kind of the first argument
+	 * @param number0 The first argument if it is a number or character
+	 * @param object0 The first argument if it is an Object
+	 * @param kind1 The kind of the second argument
+	 * @param number1 The second argument if it is a number or character
+	 * @param object1 The second argument if it is an Object
+	 * @param kind2 The kind of the third argument
+	 * @param number2 The third argument if it is a number
+	 * @param object2 The third argument if it is an Object
+	 */
+	private static void write(int level, String format, int count,
+			byte kind0, long number0, Object object0, byte kind1,
+			long number1, Object object1, byte kind2, long number2,
+			Object object2)
+	{
+		int entry = (int) (head & MASK);
+		int argument = entry * MAX_ARGUMENTS;
+		levels[entry] = (byte) level;
+		formats[entry] = format;
+		kinds[argument] = count > 0 ? kind0 : NONE;
+		numbers[argument] = number0;
+		objects[argument] = object0;
+		kinds[argument + 1] = count > 1 ? kind1 : NONE;
+		numbers[argument + 1] = number1;
+		objects[argument + 1] = object1;
+		kinds[argument + 2] = count > 2 ? kind2 : NONE;
+		numbers[argument + 2] = number2;
+		objects[argument + 2] = object2;
+		head++;
+
+		// Wake the writer early for problems or a filling buffer
+		if (level >= WARN || head - tail >= CAPACITY / 2)
+			lock.notify();
+	}
+
+	/**
+	 * Prints every message in the ring buffer (called by the writer thread, but
+	 * can be called by any thread that needs the messages printed now)
+	 */
+	public static void flush()
+	{
+		synchronized (printLock)
+		{
+			while (true)
+			{
+				int entry;
+				int lost;
+				synchronized (lock)
+				{
+					if (head == tail)
+						return;
+					entry = (int) (tail & MASK);
+					lost = dropped;
+					dropped = 0;
+				}
+				if (lost > 0)
+					System.err.println("[WARN] " + lost
+							+ " log messages were dropped");
+				print(entry);
+				synchronized (lock)
+				{
+					formats[entry] = null;
+					int argument = entry * MAX_ARGUMENTS;
+					for (int next = 0; next < MAX_ARGUMENTS; next++)
+						objects[argument + next] = null;
+					tail++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Formats and prints one entry of the ring buffer
+	 * @param entry The index of the entry
+	 */
+	private static void print(int entry)
+	{
+		int level = levels[entry];
+		String format = formats[entry];
+		line.setLength(0);
+		line.append('[').append(NAMES[level]).append("] ");
+		int argument = entry * MAX_ARGUMENTS;
+		int last = argument + MAX_ARGUMENTS;
+		int start = 0;
+		int placeholder = format.indexOf("{}");
+		while (placeholder != -1 && argument < last && kinds[argument] != NONE)
+		{
+			line.append(format, start, placeholder);
+			if (kinds[argument] == NUMBER)
+				line.append(numbers[argument]);
+			else if (kinds[argument] == CHARACTER)
+				line.append((char) numbers[argument]);
+			else
+				line.append(objects[argument]);
+			argument++;
+			start = placeholder + 2;
+			placeholder = format.indexOf("{}", start);
+		}
+		line.append(format, start, format.length());
+		PrintStream out = level >= WARN ? System.err : System.out;
+		out.println(line);
+	}
+
+	/**
+	 * Logs a message
+	 * @param level The level of the message
+	 * @param message The message
+	 */
+	public static void log(int level, String message)
+	{
+		if (level >= LEVEL)
+			append(level, message, 0, NONE, 0, null, NONE, 0, null, NONE, 0,
+					null);
+	}
+
+	/**
+	 * Logs a message with an Object argument
+	 * @param level The level of the message
+	 * @param format The message, with "{}" for the argument
+	 * @param argument The argument
+	 */
+	public static void log(int level, String format, Object argument)
+	{
+		if (level >= LEVEL)
+			append(level, format, 1, OBJECT, 0, argument, NONE, 0, null, NONE,
+					0, null);
+	}
+
+	/**
+	 * Logs a message with a number argument
+	 * @param level The level of the message
+	 * @param format The message, with "{}" for the argument
+	 * @param argument The argument
+	 */
+	public static void log(int level, String format, long argument)
+	{
+		if (level >= LEVEL)
+			append(level, format, 1, NUMBER, argument, null, NONE, 0, null,
+					NONE, 0, null);
+	}
+
+	/**
+	 * Logs a message with a character argument
+	 * @param level The level of the message
+	 * @param format The message, with "{}" for the argument
+	 * @param argument The argument
+	 */
+	public static void log(int level, String format, char argument)
+	{
+		if (level >= LEVEL)
+			append(level, format, 1, CHARACTER, argument, null, NONE, 0,
+					null, NONE, 0, null);
+	}
+
+	/**
+	 * Logs a message with two Object arguments
+	 * @param level The level of the message
+	 * @param format The message, with "{}" for each argument
+	 * @param first The first argument
+	 * @param second The second argument
+	 */
+	public static void log(int level, String format, Object first,
+			Object second)
+	{
+		if (level >= LEVEL)
+			append(level, format, 2, OBJECT, 0, first, OBJECT, 0, second,
+					NONE, 0, null);
+	}
+
+	/**
+	 * Logs a message with up to three number arguments
+	 * @param level The level of the message
+	 * @param format The message, with "{}" for each argument
+	 * @param first The first argument
+	 * @param second The second argument
+	 * @param third The third argument
+	 */
+	public static void log(int level, String format, long first, long second,
+			long third)
+	{
+		if (level >= LEVEL)
+			append(level, format, 3, NUMBER, first, null, NUMBER, second,
+					null, NUMBER, third, null);
+	}
+
+	/**
+	 * Logs a message with two number arguments
+	 * @param level The level of the message
+	 * @param format The message, with "{}" for each argument
+	 * @param first The first argument
+	 * @param second The second argument
+	 */
+	public static void log(int level, String format, long first, long second)
+	{
+		if (level >= LEVEL)
+			append(level, format, 2, NUMBER, first, null, NUMBER, second,
+					null, NONE, 0, null);
+	}
+
+	/**
+	 * Logs a message with two number arguments and an Object argument
+	 * @param level The level of the message
+	 * @param format The message, with "{}" for each argument
+	 * @param first The first argument
+	 * @param second The second argument
+	 * @param third The third argument
+	 */
+	public static void log(int level, String format, long first, long second,
+			Object third)
+	{
+		if (level >= LEVEL)
+			append(level, format, 3, NUMBER, first, null, NUMBER, second,
+					null, OBJECT, 0, third);
+	}
+
+	/**
+	 * Logs a trace message (see log())
+	 * @param message The message
+	 */
+	public static void trace(String message)
+	{
+		log(TRACE, message);
+	}
+
+	/**
+	 * Logs a trace message (see log())
+	 * @param format The message, with "{}" for the argument
+	 * @param argument The argument
+	 */
+	public static void trace(String format, Object argument)
+	{
+		log(TRACE, format, argument);
+	}
+
+	/**
+	 * Logs a trace message (see log())
+	 * @param format The message, with "{}" for the argument
+	 * @param argument The argument
+	 */
+	public static void trace(String format, long argument)
+	{
+		log(TRACE, format, argument);
+	}
+
+	/**
+	 * Logs a trace message (see log())
+	 * @param format The message, with "{}" for the argument
+	 * @param argument The argument
+	 */
+	public static void trace(String format, char argument)
+	{
+		log(TRACE, format, argument);
+	}
+
+	/**
+	 * Logs a trace message (see log())
+	 * @param format The message, with "{}" for each argument
+	 * @param first The first argument
+	 * @param second The second argument
+	 */
+	public static void trace(String format, long first, long second)
+	{
+		log(TRACE, format, first, second);
+	}
+
+	/**
+	 * Logs a trace message (see log())
+	 * @param format The message, with "{}" for each argument
+	 * @param first The first argument
+	 * @param second The second argument
+	 */
+	public static void trace(String format, Object first, Object second)
+	{
+		log(TRACE, format, first, second);
+	}
+
+	/**
+	 * Logs a trace message (see log())
+	 * @param format The message, with "{}" for each argument
+	 * @param first The first argument
+	 * @param second The second argument
+	 * @param third The third argument
+	 */
+	public static void trace(String format, long first, long second,
+			Object third)
+	{
+		log(TRACE, format, first, second, third);
+	}
+
+	/**
+	 * Logs a debug message (see log())
+	 * @param message The message
+	 */
+	public static void debug(String message)
+	{
+		log(DEBUG, message);
+	}
+
+	/**
+	 * Logs a debug message (see log())
+	 * @param format The message, with "{}" for the argument
+	 * @param argument The argument
+	 */
+	public static void debug(String format, Object argument)
+	{
+		log(DEBUG, format, argument);
+	}
+
+	/**
+	 * Logs a debug message (see log())
+	 * @param format The message, with "{}" for the argument
+	 * @param argument The argument
+	 */
+	public static void debug(String format, long argument)
+	{
+		log(DEBUG, format, argument);
+	}
+
+	/**
+	 * Logs an info message (see log())
+	 * @param message The message
+	 */
+	public static void info(String message)
+	{
+		log(INFO, message);
+	}
+
+	/**
+	 * Logs an info message (see log())
+	 * @param format The message, with "{}" for the argument
+	 * @param argument The argument
+	 */
+	public static void info(String format, long argument)
+	{
+		log(INFO, format, argument);
+	}
+
+	/**
+	 * Logs an info message (see log())
+	 * @param format The message, with "{}" for each argument
+	 * @param first The first argument
+	 * @param second The second argument
+	 * @param third The third argument
+	 */
+	public static void info(String format, long first, long second,
+			long third)
+	{
+		log(INFO, format, first, second, third);
+	}
+
+	/**
+	 * Logs a warning (see log())
+	 * @param message The message
+	 */
+	public static void warn(String message)
+	{
+		log(WARN, message);
+	}
+
+	/**
+	 * Logs a warning (see log())
+	 * @param format The message, with "{}" for the argument
+	 * @param argument The argument
+	 */
+	public static void warn(String format, Object argument)
+	{
+		log(WARN, format, argument);
+	}
+
+	/**
+	 * Logs a warning (see log())
+	 * @param format The message, with "{}" for each argument
+	 * @param first The first argument
+	 * @param second The second argument
+	 */
+	public static void warn(String format, Object first, Object second)
+	{
+		log(WARN, format, first, second);
+	}
+
+	/**
+	 * Logs an error (see log())
+	 * @param message The message
+	 */
+	public static void error(String message)
+	{
+		log(ERROR, message);
+	}
+
+	/**
+	 * Logs an error (see log())
+	 * @param format The message, with "{}" for the argument
+	 * @param argument The argument
+	 */
+	public static void error(String format, Object argument)
+	{
+		log(ERROR, format, argument);
+	}
+
+	/**
+	 * Logs an error (see log())
+	 * @param format The message, with "{}" for the argument
+	 * @param argument The argument
+	 */
+	public static void error(String format, long argument)
+	{
+		log(ERROR, format, argument);
+	}
+
+	/**
+	 * Logs an error (see log())
+	 * @param format The message, with "{}" for each argument
+	 * @param first The first argument
+	 * @param second The second argument
+	 */
+	public static void error(String format, Object first, Object second)
+	{
+		log(ERROR, format, first, second);
+	}
+}
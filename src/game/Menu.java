@@ -6,10 +6,8 @@ import java.awt.Graphics;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 
-import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
@@ -35,7 +33,7 @@ public class Menu extends JPanel implements MouseListener
 	static final int RATIO = 7;
 	private MenuItem[] rectangles;
 	public static final Color BUTTON_COLOR = Color.BLUE;
-	private static final int NO_OF_IMAGES = 3;
+	static final int NO_OF_IMAGES = 3;
 	private int[] rowPositions;
 	private boolean drawInstructions;
 	private Game game;
@@ -75,8 +73,7 @@ public class Menu extends JPanel implements MouseListener
 		}
 		catch (IOException e)
 		{
-			System.err
-					.println("File IO excpetion in loadImages() method from Menu constructor");
+			Log.error("File IO excpetion in loadImages() method from Menu constructor");
 		}
 
 		// pre-determining y positions for menu buttons
@@ -124,8 +121,8 @@ public class Menu extends JPanel implements MouseListener
 		this.images = new BufferedImage[NO_OF_IMAGES];
 		for (int image = 0; image < this.images.length; image++)
 		{
-			File file = new File("MenuImage" + image + ".png");
-			this.images[image] = ImageIO.read(file);
+			this.images[image] = AssetCache.getImage("MenuImage" + image
+					+ ".png");
 		}
 	}
 
@@ -136,6 +133,7 @@ public class Menu extends JPanel implements MouseListener
 	public synchronized void paintComponent(Graphics g)
 	{
 		super.paintComponent(g);
+		Game.framePainted();
 
 		if (!this.drawInstructions)
 		{
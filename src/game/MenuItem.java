@@ -149,7 +149,7 @@ public class MenuItem
 		this.tier = (stage * LevelSelector.LEVELS_PER_STAGE) + level + 1;
 		this.text = "Level " + String.valueOf(tier);
 		this.length = 7;
-		System.out.println(text + "\nEnabled: " + this.enabled);
+		Log.trace("{}  Enabled: {}", this.text, this.enabled);
 	}
 
 	/**
@@ -266,7 +266,7 @@ public class MenuItem
 		}
 		else if (this.gamePanel != null)
 		{
-			System.out.println("Entered draw() in MenuItem for GamePanel");
+			Log.trace("Entered draw() in MenuItem for GamePanel");
 			g.setColor(Color.DARK_GRAY);
 			g.fillRect(this.location.x, this.location.y, this.width,
 					this.height);
@@ -329,11 +329,11 @@ public class MenuItem
 	 */
 	public synchronized void clicked()
 	{
-		System.out.println("Entered clicked in MenuItem(): " + this.text);
+		Log.trace("Entered clicked in MenuItem(): {}", this.text);
 
 		if (this.menu != null)
 		{
-			System.out.println("Entered Menu");
+			Log.trace("Entered Menu");
 			if (this.tier == 0)
 			{
 				return;
@@ -357,7 +357,7 @@ public class MenuItem
 		}
 		else if (this.gamePanel != null)
 		{
-			System.out.println("Entered GamePanel");
+			Log.trace("Entered GamePanel");
 			if (this.tier == 0)
 			{
 				this.gamePanel.cancelMenu();
@@ -381,7 +381,7 @@ public class MenuItem
 		}
 		else if (this.levelSelector != null)
 		{
-			System.out.println("Entered LevelSelector");
+			Log.trace("Entered LevelSelector");
 			if (!this.isLevel)
 			{
 				this.setEnabled(true);
@@ -394,7 +394,7 @@ public class MenuItem
 		}
 		else if (this.gameOver != null)
 		{
-			System.out.println("Entered GamePanel");
+			Log.trace("Entered GamePanel");
 			if (this.tier == 0)
 			{
 				this.gameOver.retry();
@@ -0,0 +1,230 @@
+package game;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The game's metrics registry; Named counters and Histogram objects (times in
+ * nanoseconds) that any thread can update without locking, shown by the
+ * StatusBar's overlay (F3) and, if -Dmetrics.file=name is set, appended to
+ * that file every -Dmetrics.interval seconds (10 by default) by a background
+ * thread
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public final class Metrics
+{
+	private static final Map<String, Histogram> histograms = new LinkedHashMap<String, Histogram>();
+	private static final Map<String, AtomicLong> counters = new LinkedHashMap<String, AtomicLong>();
+
+	// The game's own metrics
+	public static final Histogram TICK = histogram("tick");
+	public static final Histogram FRAME = histogram("frame");
+	public static final Histogram STATUS_UPDATE = histogram("statusUpdate");
+	public static final Histogram INPUT_LATENCY = histogram("inputToMove");
+	public static final Histogram ASSET_LOAD = histogram("assetLoad");
+	public static final Histogram LEVEL_LOAD = histogram("levelLoad");
+	public static final Histogram REWIND = histogram("rewind");
+	public static final AtomicLong ENEMY_ATTACKS = counter("enemyAttacks");
+
+	// Whether or not the StatusBar starts with the overlay showing
+	public static final boolean SHOW_OVERLAY = Boolean
+			.getBoolean("metrics.hud");
+
+	private static final String FILE = System.getProperty("metrics.file");
+	private static final long INTERVAL = Math.max(
+			Integer.getInteger("metrics.interval", 10), 1) * 1000L;
+
+	static
+	{
+		if (FILE != null)
+		{
+			Thread writer = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					Dump dump = new Dump();
+					while (true)
+					{
+						try
+						{
+							Thread.sleep(INTERVAL);
+						}
+						catch (InterruptedException e)
+						{
+							return;
+						}
+						dump.write();
+					}
+				}
+			}, "Metrics writer");
+			writer.setDaemon(true);
+			writer.setPriority(Thread.MIN_PRIORITY);
+			writer.start();
+		}
+	}
+
+	/**
+	 * Not used (all methods are static)
+	 */
+	private Metrics()
+	{
+	}
+
+	/**
+	 * Returns the Histogram with the given name, creating it if needed
+	 * @param name The name of the Histogram
+	 * @return The Histogram
+	 */
+	public static synchronized Histogram histogram(String name)
+	{
+		Histogram histogram = histograms.get(name);
+		if (histogram == null)
+		{
+			histogram = new Histogram(name);
+			histograms.put(name, histogram);
+		}
+		return histogram;
+	}
+
+	/**
+	 * Returns the counter with the given name, creating it if needed
+	 * @param name The name of the counter
+	 * @return The counter
+	 */
+	public static synchronized AtomicLong counter(String name)
+	{
+		AtomicLong counter = counters.get(name);
+		if (counter == null)
+		{
+			counter = new AtomicLong();
+			counters.put(name, counter);
+		}
+		return counter;
+	}
+
+	/**
+	 * Returns the total number of bytes allocated by every thread still
+	 * running (only supported by some JVMs)
+	 * @return The number of bytes, or -1 if the JVM can't count them
+	 */
+	public static long getAllocatedBytes()
+	{
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+			return -1;
+		com.sun.management.ThreadMXBean allocations =
+				(com.sun.management.ThreadMXBean) threads;
+		if (!allocations.isThreadAllocatedMemorySupported()
+				|| !allocations.isThreadAllocatedMemoryEnabled())
+			return -1;
+		long total = 0;
+		for (long bytes : allocations.getThreadAllocatedBytes(threads
+				.getAllThreadIds()))
+		{
+			if (bytes > 0)
+				total += bytes;
+		}
+		return total;
+	}
+
+	/**
+	 * Formats a time for display
+	 * @param nanoseconds The time in nanoseconds
+	 * @return The time in milliseconds with 2 decimal places
+	 */
+	public static String toMillis(long nanoseconds)
+	{
+		return String.format(Locale.ROOT, "%.2f", nanoseconds / 1000000.0);
+	}
+
+	/**
+	 * Writes every metric to FILE, covering the time since the last dump
+	 */
+	private static class Dump
+	{
+		private Map<String, Histogram> previous = new LinkedHashMap<String, Histogram>();
+		private Map<String, Long> previousCounts = new LinkedHashMap<String, Long>();
+		private long previousBytes = getAllocatedBytes();
+		private long previousTime = System.nanoTime();
+
+		/**
+		 * Appends the metrics to FILE
+		 */
+		void write()
+		{
+			List<Histogram> current = new ArrayList<Histogram>();
+			Map<String, Long> counts = new LinkedHashMap<String, Long>();
+			synchronized (Metrics.class)
+			{
+				for (Histogram histogram : histograms.values())
+					current.add(histogram.copy());
+				for (Map.Entry<String, AtomicLong> counter : counters
+						.entrySet())
+					counts.put(counter.getKey(), counter.getValue().get());
+			}
+			long time = System.nanoTime();
+			double seconds = (time - this.previousTime) / 1000000000.0;
+			long bytes = getAllocatedBytes();
+
+			PrintWriter out = null;
+			try
+			{
+				out = new PrintWriter(new BufferedWriter(new FileWriter(FILE,
+						true)));
+				out.printf(Locale.ROOT, "%tF %<tT (last %.1f s)%n", new Date(),
+						seconds);
+				for (Histogram histogram : current)
+				{
+					Histogram last = this.previous.get(histogram.getName());
+					Histogram recent = last == null ? histogram : histogram
+							.since(last);
+					out.printf(Locale.ROOT, "  %-14s count %8d  mean %8s  p50"
+							+ " %8s  p99 %8s  max %8s ms%n",
+							histogram.getName(), recent.getCount(),
+							toMillis(recent.getMean()),
+							toMillis(recent.getPercentile(50)),
+							toMillis(recent.getPercentile(99)),
+							toMillis(recent.getMax()));
+					this.previous.put(histogram.getName(), histogram);
+				}
+				for (Map.Entry<String, Long> counter : counts.entrySet())
+				{
+					Long last = this.previousCounts.get(counter.getKey());
+					out.printf(Locale.ROOT, "  %-14s total %8d  (+%d)%n",
+							counter.getKey(), counter.getValue(),
+							counter.getValue() - (last == null ? 0 : last));
+				}
+				if (bytes >= 0 && this.previousBytes >= 0)
+					out.printf(Locale.ROOT, "  %-14s %.1f MB/s%n",
+							"allocation", Math.max(bytes - this.previousBytes, 0)
+									/ seconds / (1024 * 1024));
+			}
+			catch (IOException e)
+			{
+				Log.error("Writing metrics to {}: {}", FILE, e.getMessage());
+			}
+			finally
+			{
+				if (out != null)
+					out.close();
+			}
+			this.previousCounts = counts;
+			this.previousBytes = bytes;
+			this.previousTime = time;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of reading a text level file with a LevelParser: its size, the
+ * start, exit, keys and Enemy health found in it, the problems with it and
+ * (for levels small enough to keep in memory) its squares
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class ParsedLevel implements LevelSource
+{
+	// Only the first problems are kept for badly corrupted files
+	public static final int MAX_ERRORS = 50;
+
+	private String name;
+	int rows;
+	int columns;
+	int start;
+	int exit;
+	int keys;
+	int enemyHealth;
+	long[] lineStarts;
+	byte[] squares;
+	private List<LevelError> errors;
+	private boolean tooManyErrors;
+
+	/**
+	 * Creates an empty ParsedLevel (filled in by a LevelParser)
+	 * @param name The name of the level file
+	 */
+	ParsedLevel(String name)
+	{
+		this.name = name;
+		this.start = -1;
+		this.exit = -1;
+		this.errors = new ArrayList<LevelError>();
+	}
+
+	/**
+	 * Records a problem with the level file
+	 * @param line The line of the problem
+	 * @param column The column of the problem
+	 * @param message What the problem is
+	 */
+	void addError(int line, int column, String message)
+	{
+		if (this.errors.size() < MAX_ERRORS)
+			this.errors.add(new LevelError(line, column, message));
+		else if (!this.tooManyErrors)
+		{
+			this.tooManyErrors = true;
+			this.errors.add(new LevelError(0, 0, "Too many errors, only the"
+					+ " first " + MAX_ERRORS + " are shown"));
+		}
+	}
+
+	/**
+	 * Checks whether the level file had no problems
+	 * @return Whether the level can be played
+	 */
+	public boolean isValid()
+	{
+		return this.errors.isEmpty();
+	}
+
+	/**
+	 * Getter for the problems found in the level file
+	 * @return The problems in the order they were found
+	 */
+	public List<LevelError> getErrors()
+	{
+		return Collections.unmodifiableList(this.errors);
+	}
+
+	/**
+	 * Getter for the name of the level file
+	 * @return The name of the file
+	 */
+	public String getName()
+	{
+		return this.name;
+	}
+
+	/**
+	 * Getter for the number of rows
+	 * @return The number of rows
+	 */
+	public int getRows()
+	{
+		return this.rows;
+	}
+
+	/**
+	 * Getter for the number of columns
+	 * @return The number of columns
+	 */
+	public int getColumns()
+	{
+		return this.columns;
+	}
+
+	/**
+	 * Getter for the index of the start square
+	 * @return The index of the start square (-1 if there isn't one)
+	 */
+	public int getStart()
+	{
+		return this.start;
+	}
+
+	/**
+	 * Getter for the index of the exit square
+	 * @return The index of the exit square (-1 if there isn't one)
+	 */
+	public int getExit()
+	{
+		return this.exit;
+	}
+
+	/**
+	 * Getter for the number of keys in the level
+	 * @return The number of keys
+	 */
+	public int getKeys()
+	{
+		return this.keys;
+	}
+
+	/**
+	 * Getter for the total starting health of every Enemy in the level
+	 * @return The total health
+	 */
+	public int getEnemyHealth()
+	{
+		return this.enemyHealth;
+	}
+
+	/**
+	 * Getter for where each row of squares starts in the file (for reading a
+	 * big level with a LevelFile)
+	 * @return The position of each row in bytes
+	 */
+	public long[] getLineStarts()
+	{
+		return this.lineStarts;
+	}
+
+	/**
+	 * Checks whether the squares of the level were kept
+	 * @return Whether getSquare() and readChunk() can be used
+	 */
+	public boolean hasSquares()
+	{
+		return this.squares != null;
+	}
+
+	/**
+	 * Returns one square of the level (see hasSquares())
+	 * @param row The row of the square
+	 * @param column The column of the square
+	 * @return The constant representation (Game class) of the square
+	 */
+	public char getSquare(int row, int column)
+	{
+		return (char) this.squares[row * this.columns + column];
+	}
+
+	/**
+	 * Reads the squares of one Chunk (see LevelSource and hasSquares())
+	 * @param chunkRow The row of the Chunk
+	 * @param chunkColumn The column of the Chunk
+	 * @param squares The array to read the squares into
+	 */
+	public void readChunk(int chunkRow, int chunkColumn, byte[] squares)
+	{
+		int firstRow = chunkRow << Chunk.CHUNK_SHIFT;
+		int firstColumn = chunkColumn << Chunk.CHUNK_SHIFT;
+		int lastRow = Math.min(firstRow + Chunk.CHUNK_WIDTH, this.rows);
+		int length = Math.min(Chunk.CHUNK_WIDTH, this.columns - firstColumn);
+		for (int row = firstRow; row < lastRow; row++)
+			System.arraycopy(this.squares, row * this.columns + firstColumn,
+					squares, (row - firstRow) << Chunk.CHUNK_SHIFT, length);
+	}
+
+	/**
+	 * Does nothing (the squares are in memory)
+	 */
+	public void close()
+	{
+	}
+}
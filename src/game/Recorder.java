@@ -0,0 +1,227 @@
+package game;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * A flight recorder for the game; Turned on with -Drecorder.file=name, it
+ * keeps the most recent events (level loads, image decodes, ticks, paints,
+ * Enemy attacks, Item pickups, game overs and garbage collections) in a fixed
+ * ring buffer of numbers, overwriting the oldest, and writes them to the file
+ * when the program ends
+ *
+ * Every event has its JVM uptime, so a recording can be lined up with a GC
+ * log (-verbose:gc) or a profiler's recording of the same run; Because ENABLED
+ * is a constant, the JIT compiler removes every commit() when it is off
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public final class Recorder
+{
+	// Types of event
+	public static final int LEVEL_LOAD = 0;
+	public static final int ASSET_DECODE = 1;
+	public static final int TICK = 2;
+	public static final int PAINT = 3;
+	public static final int ENEMY_ATTACK = 4;
+	public static final int ITEM_PICKUP = 5;
+	public static final int GAME_OVER = 6;
+	public static final int GC = 7;
+	private static final String[] NAMES = { "levelLoad", "assetDecode",
+			"tick", "paint", "enemyAttack", "itemPickup", "gameOver", "gc" };
+
+	// The names of the (up to 3) numbers each type of event carries
+	private static final String[][] FIELDS = {
+			{ "level", "squares", "fromTemplate" }, { "width", "height" },
+			{ "tick", "squaresScanned", "enemiesEngaged" },
+			{ "tilesDrawn", "enemiesDrawn" }, { "damage", "robotHealth" },
+			{ "item", "value" }, { "level", "state", "timeLeft" },
+			{ "collections", "collectionMillis" } };
+	private static final int NO_OF_FIELDS = 3;
+
+	private static final String FILE = System.getProperty("recorder.file");
+	public static final boolean ENABLED = FILE != null;
+
+	// The number of events kept (-Drecorder.events=65536)
+	private static final int CAPACITY = Integer.highestOneBit(Math.max(
+			Integer.getInteger("recorder.events", 65536), 16));
+	private static final int MASK = CAPACITY - 1;
+
+	// The ring buffer (one entry for each event)
+	private static final byte[] types = new byte[ENABLED ? CAPACITY : 0];
+	private static final long[] starts = new long[ENABLED ? CAPACITY : 0];
+	private static final long[] durations = new long[ENABLED ? CAPACITY : 0];
+	private static final long[] fields = new long[ENABLED ? CAPACITY
+			* NO_OF_FIELDS : 0];
+	private static long head;
+	private static final Object lock = new Object();
+
+	// Matches System.nanoTime() to the JVM's uptime
+	private static final long START_NANOS = System.nanoTime();
+	private static final long START_UPTIME = ManagementFactory
+			.getRuntimeMXBean().getUptime();
+
+	// The garbage collection totals at the last GC sample
+	private static long collections;
+	private static long collectionMillis;
+
+	static
+	{
+		if (ENABLED)
+		{
+			Runtime.getRuntime().addShutdownHook(new Thread(new Runnable()
+			{
+				public void run()
+				{
+					dump();
+				}
+			}));
+		}
+	}
+
+	/**
+	 * Not used (all methods are static)
+	 */
+	private Recorder()
+	{
+	}
+
+	/**
+	 * Records an event
+	 * @param type The type of event
+	 * @param start When the event started (from System.nanoTime())
+	 * @param field0 The first number of the event
+	 * @param field1 The second number of the event
+	 * @param field2 The third number of the event
+	 */
+	public static void commit(int type, long start, long field0,
+			long field1, long field2)
+	{
+		if (!ENABLED)
+			return;
+		long end = System.nanoTime();
+		synchronized (lock)
+		{
+			int entry = (int) (head & MASK);
+			int field = entry * NO_OF_FIELDS;
+			types[entry] = (byte) type;
+			starts[entry] = start;
+			durations[entry] = end - start;
+			fields[field] = field0;
+			fields[field + 1] = field1;
+			fields[field + 2] = field2;
+			head++;
+		}
+	}
+
+	/**
+	 * Records an event with two numbers
+	 * @param type The type of event
+	 * @param start When the event started (from System.nanoTime())
+	 * @param field0 The first number of the event
+	 * @param field1 The second number of the event
+	 */
+	public static void commit(int type, long start, long field0, long field1)
+	{
+		commit(type, start, field0, field1, 0);
+	}
+
+	/**
+	 * Records a GC event if there were garbage collections since the last
+	 * call (called once a second by the GameEngine)
+	 */
+	public static void sampleCollections()
+	{
+		if (!ENABLED)
+			return;
+		long start = System.nanoTime();
+		long count = 0;
+		long millis = 0;
+		for (GarbageCollectorMXBean collector : ManagementFactory
+				.getGarbageCollectorMXBeans())
+		{
+			count += Math.max(collector.getCollectionCount(), 0);
+			millis += Math.max(collector.getCollectionTime(), 0);
+		}
+		long newCollections;
+		long newMillis;
+		synchronized (lock)
+		{
+			newCollections = count - collections;
+			newMillis = millis - collectionMillis;
+			collections = count;
+			collectionMillis = millis;
+		}
+		if (newCollections > 0)
+			commit(GC, start, newCollections, newMillis);
+	}
+
+	/**
+	 * Writes the events in the ring buffer (oldest first) to the file given by
+	 * -Drecorder.file
+	 */
+	public static void dump()
+	{
+		if (!ENABLED)
+			return;
+		PrintWriter out = null;
+		try
+		{
+			out = new PrintWriter(new BufferedWriter(new FileWriter(FILE)));
+			synchronized (lock)
+			{
+				long first = Math.max(head - CAPACITY, 0);
+				out.printf(Locale.ROOT, "# Recorded %tF %<tT, %d events"
+						+ " (%d overwritten)%n", new Date(), head - first,
+						first);
+				out.println("# uptime(s) duration(ms) event fields");
+				for (long next = first; next < head; next++)
+					print(out, (int) (next & MASK));
+			}
+		}
+		catch (IOException e)
+		{
+			Log.error("Writing the recording to {}: {}", FILE, e.getMessage());
+		}
+		finally
+		{
+			if (out != null)
+				out.close();
+		}
+	}
+
+	/**
+	 * Writes one entry of the ring buffer
+	 * @param out Where to write the entry
+	 * @param entry The index of the entry
+	 */
+	private static void print(PrintWriter out, int entry)
+	{
+		int type = types[entry];
+		double uptime = (START_UPTIME + (starts[entry] - START_NANOS)
+				/ 1000000.0) / 1000.0;
+		out.printf(Locale.ROOT, "%12.6f %10.3f %-12s", uptime,
+				durations[entry] / 1000000.0, NAMES[type]);
+		String[] names = FIELDS[type];
+		for (int field = 0; field < names.length; field++)
+		{
+			long value = fields[entry * NO_OF_FIELDS + field];
+			out.print(' ');
+			out.print(names[field]);
+			out.print('=');
+			if (type == ITEM_PICKUP && field == 0)
+				out.print((char) value);
+			else
+				out.print(value);
+		}
+		out.println();
+	}
+}
@@ -0,0 +1,332 @@
+package game;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Plays back a level recorded by an InputLog; Since the GameEngine is only
+ * advanced in fixed steps (ticks and rewinds) and all of its random numbers
+ * come from the recorded seed, feeding the same commands to the same steps
+ * plays the level out exactly as it was played
+ *
+ * A Replay can be run headless at full speed (java game.Replay file...,
+ * which checks each recording still ends the way it did and prints the tick
+ * times, for regression testing on real sessions) or in real time through
+ * GamePanel (-Dreplay.file=name when starting the game)
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class Replay
+{
+	private File file;
+	private int level;
+	private long seed;
+	private int robotHealth;
+	private int robotDamage;
+	private long recorded;
+
+	// The commands and the step that used each one
+	private long[] steps;
+	private int[] commands;
+	private int noOfCommands;
+	private int nextCommand;
+
+	// How the level was left (missing if the game crashed)
+	private boolean ended;
+	private long endStep;
+	private int endState;
+
+	/**
+	 * Reads a recording; A recording cut off by a crash is read up to its
+	 * last whole command
+	 * @param file The file written by an InputLog
+	 * @throws IOException If the file couldn't be read or isn't a recording
+	 */
+	public Replay(File file) throws IOException
+	{
+		this.file = file;
+		this.steps = new long[64];
+		this.commands = new int[64];
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)));
+		try
+		{
+			if (in.readInt() != InputLog.MAGIC
+					|| in.readUnsignedByte() != InputLog.VERSION)
+				throw new IOException(file + " isn't an input recording");
+			this.level = in.readInt();
+			this.seed = in.readLong();
+			this.robotHealth = in.readInt();
+			this.robotDamage = in.readInt();
+			this.recorded = in.readLong();
+			this.readCommands(in);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads the records after the header
+	 * @param in The recording
+	 * @throws IOException If the file couldn't be read
+	 */
+	private void readCommands(DataInputStream in) throws IOException
+	{
+		long step = 0;
+		try
+		{
+			while (true)
+			{
+				// The steps since the last record, 7 bits at a time
+				long delta = 0;
+				int shift = 0;
+				int next = in.readUnsignedByte();
+				while ((next & 0x80) != 0)
+				{
+					delta |= (long) (next & 0x7F) << shift;
+					shift += 7;
+					next = in.readUnsignedByte();
+				}
+				step += delta | (long) next << shift;
+
+				int code = in.readUnsignedByte();
+				if (code == InputLog.END)
+				{
+					this.endState = in.readByte();
+					this.endStep = step;
+					this.ended = true;
+					return;
+				}
+				if (this.noOfCommands == this.steps.length)
+				{
+					this.steps = Arrays.copyOf(this.steps,
+							this.noOfCommands * 2);
+					this.commands = Arrays.copyOf(this.commands,
+							this.noOfCommands * 2);
+				}
+				this.steps[this.noOfCommands] = step;
+				this.commands[this.noOfCommands++] = (code >> 2) << 8
+						| (code & 3);
+			}
+		}
+		catch (EOFException e)
+		{
+			Log.warn("{} has no end (the game didn't close it)", this.file);
+		}
+	}
+
+	/**
+	 * Returns the Replay given by -Dreplay.file
+	 * @return The Replay, or null if there is none (or it couldn't be read)
+	 */
+	public static Replay fromProperty()
+	{
+		String fileName = System.getProperty("replay.file");
+		if (fileName == null)
+			return null;
+		try
+		{
+			return new Replay(new File(fileName));
+		}
+		catch (IOException e)
+		{
+			Log.error("Reading the replay {}: {}", fileName, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a GameEngine like the one that was recorded and loads its level
+	 * @return The GameEngine, or null if the level couldn't be loaded
+	 * @throws FileNotFoundException If the level file is missing
+	 */
+	public GameEngine createEngine() throws FileNotFoundException
+	{
+		GameEngine engine = new GameEngine(this.robotHealth, this.robotDamage,
+				new GameRandom(this.seed));
+		if (!engine.loadGrid(Game.getLevelFileName(this.level)))
+			return null;
+		return engine;
+	}
+
+	/**
+	 * Applies the commands used by every step up to the given one that
+	 * weren't applied yet
+	 * @param input The InputFrame to change
+	 * @param step The step that will use the InputFrame next
+	 * @return The number of commands applied
+	 */
+	public int applyTo(InputFrame input, long step)
+	{
+		int applied = 0;
+		while (this.nextCommand < this.noOfCommands
+				&& this.steps[this.nextCommand] <= step)
+		{
+			InputQueue.apply(this.commands[this.nextCommand++], input);
+			applied++;
+		}
+		return applied;
+	}
+
+	/**
+	 * Checks if every recorded step was played
+	 * @param step The number of steps played (GameEngine.getSteps())
+	 * @return Whether or not there is nothing left to play
+	 */
+	public boolean isFinished(long step)
+	{
+		if (this.nextCommand < this.noOfCommands)
+			return false;
+		return !this.ended || step >= this.endStep;
+	}
+
+	/**
+	 * Plays the whole recording as fast as possible (without drawing it)
+	 * @return The GameEngine after the last tick, or null if the level
+	 *         couldn't be loaded
+	 * @throws FileNotFoundException If the level file is missing
+	 */
+	public GameEngine play() throws FileNotFoundException
+	{
+		this.nextCommand = 0;
+		GameEngine engine = this.createEngine();
+		if (engine == null)
+			return null;
+		InputFrame input = new InputFrame();
+		while (!engine.isOver() && !this.isFinished(engine.getSteps()))
+		{
+			this.applyTo(input, engine.getSteps() + 1);
+			engine.step(input);
+			input.clearAttack();
+		}
+		return engine;
+	}
+
+	/**
+	 * Checks if the given GameEngine ended the way the recording did
+	 * @param engine The GameEngine after play()
+	 * @return Whether or not the step and state match (true if the recording
+	 *         has no end)
+	 */
+	public boolean matches(GameEngine engine)
+	{
+		return !this.ended || engine.getSteps() == this.endStep
+				&& engine.getState() == this.endState;
+	}
+
+	/**
+	 * Getter for the recorded level
+	 * @return The level
+	 */
+	public int getLevel()
+	{
+		return this.level;
+	}
+
+	/**
+	 * Getter for the seed of the level's GameRandom
+	 * @return The seed
+	 */
+	public long getSeed()
+	{
+		return this.seed;
+	}
+
+	/**
+	 * Getter for the Robot's starting health
+	 * @return The health
+	 */
+	public int getRobotHealth()
+	{
+		return this.robotHealth;
+	}
+
+	/**
+	 * Getter for the Robot's starting damage
+	 * @return The damage
+	 */
+	public int getRobotDamage()
+	{
+		return this.robotDamage;
+	}
+
+	/**
+	 * Getter for the time the recording was made
+	 * @return The time (from System.currentTimeMillis())
+	 */
+	public long getRecorded()
+	{
+		return this.recorded;
+	}
+
+	/**
+	 * Getter for the number of recorded commands
+	 * @return The number of commands
+	 */
+	public int getNoOfCommands()
+	{
+		return this.noOfCommands;
+	}
+
+	/**
+	 * Plays each given recording headless and prints how it ended and how
+	 * long its ticks took; Exits with 1 if any of them ended differently
+	 * @param args The recordings
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length == 0)
+		{
+			System.out.println("Usage: java game.Replay file...");
+			return;
+		}
+		boolean allMatch = true;
+		for (String fileName : args)
+		{
+			try
+			{
+				Replay replay = new Replay(new File(fileName));
+				Histogram before = Metrics.TICK.copy();
+				long start = System.nanoTime();
+				GameEngine engine = replay.play();
+				long time = System.nanoTime() - start;
+				if (engine == null)
+				{
+					System.out.println(fileName + ": level "
+							+ replay.getLevel() + " couldn't be loaded");
+					allMatch = false;
+					continue;
+				}
+				engine.close();
+				Histogram ticks = Metrics.TICK.since(before);
+				boolean matches = replay.matches(engine);
+				allMatch &= matches;
+				System.out.printf("%s: level %d, %d ticks, state %d (%s),"
+						+ " %.1f ms, tick p50 %s p99 %s ms%n", fileName,
+						replay.getLevel(), engine.getTick(), engine.getState(),
+						matches ? "matches" : "recorded " + replay.endState
+								+ " at step " + replay.endStep,
+						time / 1000000.0, Metrics.toMillis(ticks
+								.getPercentile(50)), Metrics.toMillis(ticks
+								.getPercentile(99)));
+			}
+			catch (IOException e)
+			{
+				System.out.println(fileName + ": " + e.getMessage());
+				allMatch = false;
+			}
+		}
+		if (!allMatch)
+			System.exit(1);
+	}
+}
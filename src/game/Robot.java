@@ -1,13 +1,5 @@
 package game;
 
-import java.awt.Graphics;
-import java.awt.Image;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-
-import javax.imageio.ImageIO;
-
 /**
  * The Robot object representing the user
  * @author Bimesh De Silva
@@ -20,12 +12,10 @@ public class Robot
 	private Location location;
 	private boolean isDisabaled;
 	private Direction direction;
-	private Game game;
-	private final int NO_OF_IMAGES = 8;
-	private BufferedImage[] images;
+	private GameEngine engine;
+	public static final int NO_OF_IMAGES = 8;
 	public final int MAX_HEALTH = 1000;
 	public final int MAX_DAMAGE = 120;
-	private GamePanel gamePanel;
 
 	/**
 	 * Constructor for Robot
@@ -33,20 +23,17 @@ public class Robot
 	 * @param column The column to place the Robot at
 	 * @param health The starting health
 	 * @param damage The starting damage
-	 * @param game The JFrame
-	 * @param gamePanel The JPanel
+	 * @param engine The GameEngine the Robot belongs to
 	 */
-	public Robot(int row, int column, int health, int damage, Game game,
-			GamePanel gamePanel)
+	public Robot(int row, int column, int health, int damage,
+			GameEngine engine)
 	{
-		this.gamePanel = gamePanel;
 		this.location = new Location(row, column, (column * Game.SQUARE_WIDTH),
 				(row * Game.SQUARE_WIDTH));
 		this.direction = Direction.NORTH;
 		this.health = health;
 		this.damage = damage;
-		this.game = game;
-		this.loadImages();
+		this.engine = engine;
 	}
 
 	/**
@@ -94,43 +81,24 @@ public class Robot
 	}
 
 	/**
-	 * Loads required images
+	 * Puts the Robot back the way it was on an earlier tick (used by
+	 * GameHistory to rewind the level)
+	 * @param row The row it was in
+	 * @param column The column it was in
+	 * @param direction The Direction it was facing
+	 * @param health The health it had
+	 * @param damage The damage it had
+	 * @param disabled Whether or not it was disabled
 	 */
-	private void loadImages()
+	void restore(int row, int column, Direction direction, int health,
+			int damage, boolean disabled)
 	{
-		this.images = new BufferedImage[this.NO_OF_IMAGES];
-		for (int image = 0; image < this.NO_OF_IMAGES; image++)
-		{
-			try
-			{
-				File file = new File("Robot" + image + ".png");
-				this.images[image] = ImageIO.read(file);
-				System.out.println("Loaded Image: Robot" + image);
-			}
-			catch (IOException e)
-			{
-				System.err.println("loading ROBOT image #" + image
-						+ " - loadImages() in Main class");
-			}
-		}
-	}
-
-	/**
-	 * Draws itself on the JPanel
-	 * @param g The Graphics object
-	 */
-	public void draw(Graphics g)
-	{
-		// Determine the Image based on the Direction's number reference
-		Image image = this.images[(this.direction.number())];
-		if (image == null)
-			System.err
-					.println("Robot Image is null; Image Reference: "
-							+ this.direction.number());
-		g.drawImage(image, this.location.column * Game.SQUARE_WIDTH,
-				this.location.row
-						* Game.SQUARE_WIDTH,
-				Game.SQUARE_WIDTH, Game.SQUARE_WIDTH, this.game);
+		this.location.change(row - this.location.row, column
+				- this.location.column);
+		this.direction = direction;
+		this.health = health;
+		this.damage = damage;
+		this.isDisabaled = disabled;
 	}
 
 	/**
@@ -155,8 +123,7 @@ public class Robot
 			{
 				this.health = 0;
 				this.isDisabaled = true;
-				this.gamePanel.setState(-1);
-				this.gamePanel.endGame();
+				this.engine.robotDestroyed();
 			}
 			else
 				this.health -= damage;
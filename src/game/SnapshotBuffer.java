@@ -0,0 +1,72 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands FrameSnapshot objects from the thread stepping the GameEngine to the
+ * Event Dispatch Thread without locks or garbage: three FrameSnapshot objects
+ * are reused, one being written, one being drawn and the latest published one
+ * in between, which either side swaps with its own in one atomic step; The
+ * writer never waits for a paint and a slow paint only skips frames
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class SnapshotBuffer
+{
+	private FrameSnapshot back;
+	private final AtomicReference<FrameSnapshot> middle;
+	private FrameSnapshot front;
+	private int statusVersion;
+
+	/**
+	 * Creates the FrameSnapshot objects for the given level and publishes its
+	 * starting state
+	 * @param engine The GameEngine of the level
+	 * @param width The width (and height) of the game play area
+	 */
+	public SnapshotBuffer(GameEngine engine, int width)
+	{
+		Grid grid = engine.getGrid();
+		this.back = new FrameSnapshot(grid, width);
+		this.middle = new AtomicReference<FrameSnapshot>(new FrameSnapshot(
+				grid, width));
+		this.front = new FrameSnapshot(grid, width);
+		this.publish(engine);
+	}
+
+	/**
+	 * Copies the GameEngine's current state into the back FrameSnapshot and
+	 * makes it the latest one (only called on the thread stepping the
+	 * GameEngine)
+	 * @param engine The GameEngine
+	 * @return Whether or not the Event Dispatch Thread has to be told (false
+	 *         if the last FrameSnapshot published is still waiting for it)
+	 */
+	public boolean publish(GameEngine engine)
+	{
+		if (engine.hasStatusChanged())
+			this.statusVersion++;
+		this.back.capture(engine, this.statusVersion);
+		this.back.fresh = true;
+		this.back = this.middle.getAndSet(this.back);
+		return !this.back.fresh;
+	}
+
+	/**
+	 * Takes the latest FrameSnapshot if there is a new one (only called on
+	 * the Event Dispatch Thread); The one it returns stays the same until the
+	 * next call
+	 * @return The new FrameSnapshot, or null if none was published since the
+	 *         last call
+	 */
+	public FrameSnapshot acquire()
+	{
+		if (!this.middle.get().fresh)
+			return null;
+		this.front.fresh = false;
+		this.front = this.middle.getAndSet(this.front);
+		return this.front;
+	}
+}
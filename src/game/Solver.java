@@ -0,0 +1,946 @@
+package game;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plays a level to the exit without a user, through GameEngine.step() like
+ * any other input, to check that levels can be won and to benchmark the
+ * GameEngine (java game.Solver [file...] checks every shipped level, or the
+ * given level files, and exits with 1 if any of them couldn't be won)
+ *
+ * Paths are planned with an A* search over the squares of the Grid and the
+ * items collected so far (one bit for each key square, and only if there is
+ * no path without them, each of the damage boosts nearest the Robot, up to
+ * MAX_ITEMS), using the same rules as GameEngine.move(): eight directions,
+ * direction markers allowing one direction either side of their own, hidden
+ * Item objects (which are always revealed before the Robot reaches them) and
+ * an exit that only opens once enough keys are found; A move that engages an
+ * Enemy costs the ticks the fight would take plus the health the Robot would
+ * lose, so enemies are walked around unless fighting is cheaper; Each path
+ * keeps the Robot's health and damage (with the boosts picked up on it and
+ * the health drained by the clock) and is dropped if the Robot wouldn't
+ * survive it or it takes longer than the time left; The open and closed sets
+ * are arrays of primitives
+ *
+ * The path is followed until something it didn't plan for happens (i.e. a
+ * battle starts or the Robot doesn't move), then the Robot fights any Enemy
+ * attacking it and the path is planned again from there
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class Solver
+{
+	// The most Item squares that can be told apart (one bit of an int each)
+	// and how many of them can be damage boosts
+	public static final int MAX_ITEMS = 16;
+	public static final int MAX_BOOSTS = 4;
+
+	// The most states one search looks at before giving up
+	private static final int NODE_BITS = 22;
+	public static final int MAX_NODES = 1 << NODE_BITS;
+
+	// The bits of an entry in the open set used for the estimated cost left
+	private static final int ESTIMATE_BITS = 16;
+
+	// Times in a row the Robot can fail to move before the Solver gives up
+	private static final int MAX_STALLS = 3;
+
+	// The row and column changes of the eight moves, in the order of the
+	// Direction number values
+	private static final int[] rowChanges = { -1, -1, 0, 1, 1, 1, 0, -1 };
+	private static final int[] columnChanges = { 0, 1, 1, 1, 0, -1, -1, -1 };
+
+	// The movement keys held down for a row or column change of -1, 0 and 1
+	private static final int[] rowKeys = { InputFrame.UP, -1,
+			InputFrame.DOWN };
+	private static final int[] columnKeys = { InputFrame.LEFT, -1,
+			InputFrame.RIGHT };
+
+	private GameEngine engine;
+	private Grid grid;
+	private int columns;
+	private int[] keyCells;
+	private int noOfKeyCells;
+	private int[] boostCells;
+	private int noOfBoostCells;
+
+	// Set up before each search
+	private int[] trackedItems;
+	private int noOfTrackedItems;
+	private int keyBits;
+	private int[] keyDistances;
+	private int[] keyPairDistances;
+	private int[] spanningTrees;
+	private int keysNeeded;
+	private int exitCell;
+	private int exitRow;
+	private int exitColumn;
+	private int ticksLeft;
+	private long startTick;
+
+	// The nodes of a search: a state is (square << noOfTrackedItems) | items
+	private long[] nodeStates;
+	private int[] nodeCosts;
+	private int[] nodeTicks;
+	private int[] nodeHealth;
+	private int[] nodeDamage;
+	private int[] nodeParents;
+	private boolean[] nodeClosed;
+	private int noOfNodes;
+
+	// Open addressing table from a state to its node (+1, 0 for none)
+	private long[] tableStates;
+	private int[] tableNodes;
+
+	// The open set, a binary heap of entries holding the estimated total cost
+	// of a node, then its estimated cost left (so of two nodes with the same
+	// total the one closer to the exit is taken first) and the node itself
+	private long[] heap;
+	private int heapSize;
+
+	// Statistics
+	private int noOfSearches;
+	private long nodesExpanded;
+	private long searchTime;
+
+	/**
+	 * Creates a Solver for a loaded level that hasn't been played yet
+	 * @param engine The GameEngine of the level
+	 */
+	public Solver(GameEngine engine)
+	{
+		this.engine = engine;
+		this.grid = engine.getGrid();
+		this.columns = this.grid.getColumns();
+
+		// Items never move, so they are only looked for once
+		this.keyCells = new int[4];
+		this.boostCells = new int[4];
+		int noOfSquares = this.grid.getRows() * this.columns;
+		for (int cell = 0; cell < noOfSquares; cell++)
+		{
+			if (!this.grid.isItemHere(cell))
+				continue;
+			char type = this.grid.getOverlay(cell);
+			if (type == Game.KEY)
+			{
+				if (this.noOfKeyCells == this.keyCells.length)
+					this.keyCells = Arrays.copyOf(this.keyCells,
+							this.noOfKeyCells * 2);
+				this.keyCells[this.noOfKeyCells++] = cell;
+			}
+			else if (type == Game.DAMAGE_BOOST)
+			{
+				if (this.noOfBoostCells == this.boostCells.length)
+					this.boostCells = Arrays.copyOf(this.boostCells,
+							this.noOfBoostCells * 2);
+				this.boostCells[this.noOfBoostCells++] = cell;
+			}
+		}
+		this.trackedItems = new int[MAX_ITEMS];
+		this.keyDistances = new int[MAX_ITEMS];
+		this.keyPairDistances = new int[MAX_ITEMS * MAX_ITEMS];
+		this.spanningTrees = new int[0];
+
+		int capacity = 1 << 12;
+		this.nodeStates = new long[capacity];
+		this.nodeCosts = new int[capacity];
+		this.nodeTicks = new int[capacity];
+		this.nodeHealth = new int[capacity];
+		this.nodeDamage = new int[capacity];
+		this.nodeParents = new int[capacity];
+		this.nodeClosed = new boolean[capacity];
+		this.tableStates = new long[capacity * 2];
+		this.tableNodes = new int[capacity * 2];
+		this.heap = new long[capacity];
+	}
+
+	/**
+	 * Plays the level until it is won, lost or no path to the exit is left
+	 * @return The state the level was left in (GameEngine.PLAYING if the
+	 *         Solver gave up)
+	 */
+	public int solve()
+	{
+		InputFrame input = new InputFrame();
+		int stalls = 0;
+		while (!this.engine.isOver() && stalls < MAX_STALLS)
+		{
+			if (this.engine.isBattling())
+			{
+				input.clear();
+				input.attack();
+				this.engine.step(input);
+				continue;
+			}
+			if (this.engageNeighbour(input))
+				continue;
+
+			int[] path = this.findPath();
+			if (path == null)
+				return this.engine.getState();
+
+			// Follow the path until something unplanned happens
+			for (int next = 1; next < path.length; next++)
+			{
+				this.press(input, path[next - 1], path[next]);
+				this.engine.step(input);
+				if (this.engine.isOver() || this.engine.isBattling())
+					break;
+				if (this.getRobotCell() != path[next])
+				{
+					stalls++;
+					break;
+				}
+				stalls = 0;
+			}
+		}
+		return this.engine.getState();
+	}
+
+	/**
+	 * Starts a battle with an engaged Enemy next to the Robot, which would
+	 * otherwise keep attacking it (moving towards an Enemy engages it)
+	 * @param input The InputFrame to use
+	 * @return Whether or not there was one
+	 */
+	private boolean engageNeighbour(InputFrame input)
+	{
+		int cell = this.getRobotCell();
+		for (int move = 0; move < rowChanges.length; move += 2)
+		{
+			int next = this.neighbour(cell, move);
+			if (next != -1 && this.grid.isEnemyHere(next))
+			{
+				Enemy enemy = this.grid.getEnemy(next);
+				if (enemy != null && enemy.isEngaged())
+				{
+					this.press(input, cell, next);
+					this.engine.step(input);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Holds down the keys that move the Robot from one square to the next
+	 * @param input The InputFrame to change
+	 * @param from The square the Robot is in
+	 * @param to The square next to it to move to
+	 */
+	private void press(InputFrame input, int from, int to)
+	{
+		input.clear();
+		int rowChange = to / this.columns - from / this.columns;
+		int columnChange = to % this.columns - from % this.columns;
+		if (rowChange != 0)
+			input.setKey(rowKeys[rowChange + 1], true);
+		if (columnChange != 0)
+			input.setKey(columnKeys[columnChange + 1], true);
+	}
+
+	/**
+	 * Returns the square the Robot is in
+	 * @return The index of the square
+	 */
+	private int getRobotCell()
+	{
+		Location location = this.engine.getRobot().getLocation();
+		return this.grid.index(location.row, location.column);
+	}
+
+	/**
+	 * Returns the square next to the given one in the given direction
+	 * @param cell The index of the square
+	 * @param move The Direction number of the move
+	 * @return The index of the next square (-1 if it is off the Grid)
+	 */
+	private int neighbour(int cell, int move)
+	{
+		int row = cell / this.columns + rowChanges[move];
+		int column = cell % this.columns + columnChanges[move];
+		if (!this.grid.isInside(row, column))
+			return -1;
+		return this.grid.index(row, column);
+	}
+
+	/**
+	 * Plans the cheapest path from the Robot to the exit that collects enough
+	 * keys on the way and that the Robot survives
+	 * @return The squares of the path (starting with the Robot's), or null if
+	 *         there is none within the time left
+	 */
+	public int[] findPath()
+	{
+		long start = System.nanoTime();
+
+		// Damage boosts are only told apart (which multiplies the states) if
+		// there is no path without detours for them
+		int[] path = this.search(0);
+		if (path == null && this.noOfBoostCells > 0)
+			path = this.search(MAX_BOOSTS);
+		this.searchTime += System.nanoTime() - start;
+		return path;
+	}
+
+	/**
+	 * Runs one A* search from the Robot to the exit
+	 * @param noOfBoosts The number of damage boosts to tell apart
+	 * @return The squares of the path (starting with the Robot's), or null if
+	 *         there is none
+	 */
+	private int[] search(int noOfBoosts)
+	{
+		this.noOfSearches++;
+		this.setUpSearch(noOfBoosts);
+		int robotCell = this.getRobotCell();
+		Robot robot = this.engine.getRobot();
+		this.addNode(this.state(robotCell, 0), 0, 0, robot.getHealth(), Math
+				.max(robot.getDamage(), 1), -1, this.estimate(robotCell, 0));
+		int found = -1;
+		while (this.heapSize > 0)
+		{
+			long top = this.pop();
+			int node = (int) top & MAX_NODES - 1;
+			if (this.nodeClosed[node]
+					|| (int) (top >>> NODE_BITS + ESTIMATE_BITS)
+						!= this.nodeCosts[node] + this.estimate(
+								this.cellOf(node), this.itemsOf(node)))
+				continue;
+			this.nodeClosed[node] = true;
+			this.nodesExpanded++;
+			int cell = this.cellOf(node);
+			if (cell == this.exitCell)
+			{
+				found = node;
+				break;
+			}
+			if (this.noOfNodes > MAX_NODES - rowChanges.length)
+			{
+				Log.warn("Gave up planning after {} states", this.noOfNodes);
+				break;
+			}
+			this.expand(node, cell);
+		}
+
+		int[] path = null;
+		if (found != -1)
+		{
+			int length = 0;
+			for (int node = found; node != -1; node = this.nodeParents[node])
+				length++;
+			path = new int[length];
+			for (int node = found; node != -1; node = this.nodeParents[node])
+				path[--length] = this.cellOf(node);
+		}
+		return path;
+	}
+
+	/**
+	 * Chooses the Item squares whose bits are in the states (every key still
+	 * on the Grid, then the damage boosts nearest the Robot) and empties the
+	 * node arrays
+	 * @param maxBoosts The most damage boosts to tell apart
+	 */
+	private void setUpSearch(int maxBoosts)
+	{
+		this.noOfTrackedItems = 0;
+		for (int key = 0; key < this.noOfKeyCells
+				&& this.noOfTrackedItems < MAX_ITEMS; key++)
+		{
+			int cell = this.keyCells[key];
+			if (this.grid.isItemHere(cell))
+				this.trackedItems[this.noOfTrackedItems++] = cell;
+		}
+		int noOfKeys = this.noOfTrackedItems;
+		this.keyBits = (1 << noOfKeys) - 1;
+		Location exit = this.engine.getExitLocation();
+		this.exitRow = exit.row;
+		this.exitColumn = exit.column;
+		this.exitCell = this.grid.index(exit.row, exit.column);
+		for (int key = 0; key < noOfKeys; key++)
+		{
+			int cell = this.trackedItems[key];
+			this.keyDistances[key] = this.distance(cell, exit.row,
+					exit.column);
+			for (int other = 0; other < noOfKeys; other++)
+				this.keyPairDistances[key * MAX_ITEMS + other] = this.distance(
+						cell, this.trackedItems[other] / this.columns,
+						this.trackedItems[other] % this.columns);
+		}
+		if (this.spanningTrees.length < 1 << noOfKeys)
+			this.spanningTrees = new int[1 << noOfKeys];
+		Arrays.fill(this.spanningTrees, 0, 1 << noOfKeys, -1);
+
+		// Sort the damage boosts left by distance (there are only a few)
+		int robotCell = this.getRobotCell();
+		int robotRow = robotCell / this.columns;
+		int robotColumn = robotCell % this.columns;
+		int noOfBoosts = 0;
+		for (int boost = 0; boost < this.noOfBoostCells; boost++)
+		{
+			int cell = this.boostCells[boost];
+			if (this.grid.isItemHere(cell))
+			{
+				int distance = this.distance(cell, robotRow, robotColumn);
+				int position = noOfBoosts++;
+				while (position > 0
+						&& this.distance(this.boostCells[position - 1],
+								robotRow, robotColumn) > distance)
+				{
+					this.boostCells[position] = this.boostCells[position - 1];
+					position--;
+				}
+				this.boostCells[position] = cell;
+			}
+		}
+		this.noOfBoostCells = noOfBoosts;
+		for (int boost = 0; boost < Math.min(noOfBoosts, maxBoosts)
+				&& this.noOfTrackedItems < MAX_ITEMS; boost++)
+			this.trackedItems[this.noOfTrackedItems++] = this.boostCells[boost];
+
+		this.keysNeeded = this.engine.getRequiredKeys()
+				- this.engine.getCurrentKeys();
+		this.ticksLeft = (this.engine.getTimeLeft() + 1)
+				* GameEngine.TICKS_PER_SECOND
+				- (int) (this.engine.getTick() % GameEngine.TICKS_PER_SECOND);
+		this.startTick = this.engine.getTick();
+
+		this.noOfNodes = 0;
+		this.heapSize = 0;
+		Arrays.fill(this.tableNodes, 0);
+	}
+
+	/**
+	 * Adds the nodes reachable in one move from the given one
+	 * @param node The node
+	 * @param cell Its square
+	 */
+	private void expand(int node, int cell)
+	{
+		int items = this.itemsOf(node);
+		int marker = -1;
+		if (this.grid.isDirectionHere(cell))
+			marker = this.grid.passableDirection(cell).number();
+		for (int move = 0; move < rowChanges.length; move++)
+		{
+			// Direction markers allow one direction either side of their own
+			// (7 is North to North-West)
+			if (marker != -1)
+			{
+				int difference = Math.abs(move - marker);
+				if (difference > 1 && difference != 7)
+					continue;
+			}
+			int next = this.neighbour(cell, move);
+			if (next == -1)
+				continue;
+
+			int nextItems = items;
+			int health = this.nodeHealth[node];
+			int damage = this.nodeDamage[node];
+			if (next == this.exitCell)
+			{
+				if (Integer.bitCount(items & this.keyBits) < this.keysNeeded)
+					continue;
+			}
+			else if (this.grid.isEnemyHere(next))
+			{
+				// An Enemy is only fought from the four squares next to it
+				if ((move & 1) != 0)
+					continue;
+			}
+			else if (this.grid.isItemHere(next))
+			{
+				// Untracked Item objects are looked for along the path
+				int bit = this.itemBit(next);
+				if (bit != 0 ? (items & bit) == 0 : !this.isOnPath(node, next))
+				{
+					nextItems |= bit;
+					Item item = this.grid.getItem(next);
+					Robot robot = this.engine.getRobot();
+					if (item.getType() == Game.DAMAGE_BOOST)
+						damage = Math.min(damage + item.getValue(),
+								robot.MAX_DAMAGE);
+					else if (item.getType() == Game.HEALTH_BOOST)
+						health = Math.min(health + item.getValue() * 5,
+								robot.MAX_HEALTH);
+				}
+			}
+			else if (!this.grid.isEmpty(next))
+				continue;
+
+			// The cost is the ticks taken plus the health lost in fights
+			int ticks = this.nodeTicks[node] + 1;
+			int cost = this.nodeCosts[node] + 1;
+			for (int side = 0; side < rowChanges.length; side += 2)
+			{
+				int enemyCell = this.neighbour(next, side);
+				if (enemyCell != -1 && this.grid.isEnemyHere(enemyCell))
+				{
+					Enemy enemy = this.grid.getEnemy(enemyCell);
+					if (enemy == null || enemy.isDisabled()
+							|| this.isDefeatedOnPath(node, enemyCell))
+						continue;
+
+					// The Enemy fights back after every attack but the last
+					int attacks = Math.max((enemy.getHealth() + damage - 1)
+							/ damage, 1);
+					int lost = (attacks - 1) * enemy.getDamage();
+					ticks += attacks;
+					health -= lost;
+					cost += attacks + lost;
+				}
+			}
+			health -= GameEngine.HEALTH_DRAIN
+					* (int) ((this.startTick + ticks)
+							/ GameEngine.TICKS_PER_SECOND - (this.startTick
+							+ this.nodeTicks[node])
+							/ GameEngine.TICKS_PER_SECOND);
+			if (ticks > this.ticksLeft || health <= 0)
+				continue;
+
+			long state = this.state(next, nextItems);
+			int existing = this.findNode(state);
+			if (existing == -1)
+				this.addNode(state, cost, ticks, health, damage, node, this
+						.estimate(next, nextItems));
+			else if (!this.nodeClosed[existing]
+					&& cost < this.nodeCosts[existing])
+			{
+				this.nodeCosts[existing] = cost;
+				this.nodeTicks[existing] = ticks;
+				this.nodeHealth[existing] = health;
+				this.nodeDamage[existing] = damage;
+				this.nodeParents[existing] = node;
+				this.open(existing, cost, this.estimate(next, nextItems));
+			}
+		}
+	}
+
+	/**
+	 * Returns the bit of the given Item square in the items of a state
+	 * @param cell The index of the square
+	 * @return The bit (0 if the square isn't tracked)
+	 */
+	private int itemBit(int cell)
+	{
+		for (int item = 0; item < this.noOfTrackedItems; item++)
+		{
+			if (this.trackedItems[item] == cell)
+				return 1 << item;
+		}
+		return 0;
+	}
+
+	/**
+	 * Checks if the path to the given node goes through the given square
+	 * @param node The node
+	 * @param cell The index of the square
+	 * @return Whether or not it does
+	 */
+	private boolean isOnPath(int node, int cell)
+	{
+		for (; node != -1; node = this.nodeParents[node])
+		{
+			if (this.cellOf(node) == cell)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if an Enemy was already fought on the path to the given node
+	 * (from a square next to it that wasn't the Robot's)
+	 * @param node The node
+	 * @param enemyCell The index of the Enemy's square
+	 * @return Whether or not it was
+	 */
+	private boolean isDefeatedOnPath(int node, int enemyCell)
+	{
+		int enemyRow = enemyCell / this.columns;
+		int enemyColumn = enemyCell % this.columns;
+		for (; this.nodeParents[node] != -1; node = this.nodeParents[node])
+		{
+			int cell = this.cellOf(node);
+			if (Math.abs(cell / this.columns - enemyRow)
+					+ Math.abs(cell % this.columns - enemyColumn) == 1)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the least number of moves from the given square to the given
+	 * position (each move changes the row and column by at most 1)
+	 * @param cell The index of the square
+	 * @param row The row of the position
+	 * @param column The column of the position
+	 * @return The number of moves
+	 */
+	private int distance(int cell, int row, int column)
+	{
+		return Math.max(Math.abs(cell / this.columns - row), Math.abs(cell
+				% this.columns - column));
+	}
+
+	/**
+	 * Returns the least number of moves from a node to the exit, through
+	 * the keys it still needs (never more than the real cost, so the first
+	 * path found is the cheapest)
+	 * @param cell The index of the node's square
+	 * @param items The bits of the Item squares it collected
+	 * @return The number of moves
+	 */
+	private int estimate(int cell, int items)
+	{
+		int estimate = this.distance(cell, this.exitRow, this.exitColumn);
+		int needed = this.keysNeeded - Integer.bitCount(items & this.keyBits);
+		if (needed <= 0)
+			return estimate;
+
+		// Through the nearest key left, or if all of them are needed through
+		// the farthest and at least along a tree joining them
+		int keysLeft = this.keyBits & ~items;
+		int nearest = Integer.MAX_VALUE;
+		int farthest = 0;
+		int toKey = Integer.MAX_VALUE;
+		int fromKey = Integer.MAX_VALUE;
+		for (int key = 0; key < this.noOfTrackedItems; key++)
+		{
+			if ((keysLeft & 1 << key) == 0)
+				continue;
+			int keyCell = this.trackedItems[key];
+			int distance = this.distance(cell, keyCell / this.columns,
+					keyCell % this.columns);
+			nearest = Math.min(nearest, distance + this.keyDistances[key]);
+			farthest = Math.max(farthest, distance + this.keyDistances[key]);
+			toKey = Math.min(toKey, distance);
+			fromKey = Math.min(fromKey, this.keyDistances[key]);
+		}
+		if (keysLeft == 0)
+			return estimate;
+		if (needed < Integer.bitCount(keysLeft))
+			return Math.max(estimate, nearest);
+		return Math.max(Math.max(estimate, farthest), toKey
+				+ this.getSpanningTree(keysLeft) + fromKey);
+	}
+
+	/**
+	 * Returns the length of the shortest tree joining the given keys (with
+	 * the distances of distance()), working it out the first time
+	 * @param keys The bits of the keys
+	 * @return The length
+	 */
+	private int getSpanningTree(int keys)
+	{
+		if (this.spanningTrees[keys] != -1)
+			return this.spanningTrees[keys];
+
+		// Prim's algorithm, adding the key nearest the tree each time
+		int length = 0;
+		int inTree = Integer.lowestOneBit(keys);
+		while (inTree != keys)
+		{
+			int best = -1;
+			int bestDistance = Integer.MAX_VALUE;
+			for (int key = 0; key < this.noOfTrackedItems; key++)
+			{
+				if ((keys & ~inTree & 1 << key) == 0)
+					continue;
+				for (int other = 0; other < this.noOfTrackedItems; other++)
+				{
+					if ((inTree & 1 << other) != 0
+							&& this.keyPairDistances[key * MAX_ITEMS + other]
+							< bestDistance)
+					{
+						best = key;
+						bestDistance = this.keyPairDistances[key * MAX_ITEMS
+								+ other];
+					}
+				}
+			}
+			inTree |= 1 << best;
+			length += bestDistance;
+		}
+		this.spanningTrees[keys] = length;
+		return length;
+	}
+
+	/**
+	 * Returns the bits of the Item squares collected on the way to a node
+	 * @param node The node
+	 * @return The bits
+	 */
+	private int itemsOf(int node)
+	{
+		return (int) this.nodeStates[node] & (1 << this.noOfTrackedItems) - 1;
+	}
+
+	/**
+	 * Returns the state of a node in the given square with the given keys
+	 * @param cell The index of the square
+	 * @param items The bits of the Item squares collected
+	 * @return The state
+	 */
+	private long state(int cell, int items)
+	{
+		return (long) cell << this.noOfTrackedItems | items;
+	}
+
+	/**
+	 * Returns the square of the given node
+	 * @param node The node
+	 * @return The index of the square
+	 */
+	private int cellOf(int node)
+	{
+		return (int) (this.nodeStates[node] >>> this.noOfTrackedItems);
+	}
+
+	/**
+	 * Adds a node and puts it in the open set
+	 * @param state Its state
+	 * @param cost Its cost from the Robot
+	 * @param ticks The ticks it takes to reach from the Robot
+	 * @param health The Robot's health once it is reached
+	 * @param damage The Robot's damage once it is reached
+	 * @param parent The node it is reached from (-1 for none)
+	 * @param estimate Its estimated cost to the exit
+	 */
+	private void addNode(long state, int cost, int ticks, int health,
+			int damage, int parent, int estimate)
+	{
+		if (this.noOfNodes == this.nodeStates.length)
+		{
+			int capacity = this.noOfNodes * 2;
+			this.nodeStates = Arrays.copyOf(this.nodeStates, capacity);
+			this.nodeCosts = Arrays.copyOf(this.nodeCosts, capacity);
+			this.nodeTicks = Arrays.copyOf(this.nodeTicks, capacity);
+			this.nodeHealth = Arrays.copyOf(this.nodeHealth, capacity);
+			this.nodeDamage = Arrays.copyOf(this.nodeDamage, capacity);
+			this.nodeParents = Arrays.copyOf(this.nodeParents, capacity);
+			this.nodeClosed = Arrays.copyOf(this.nodeClosed, capacity);
+		}
+		int node = this.noOfNodes++;
+		this.nodeStates[node] = state;
+		this.nodeCosts[node] = cost;
+		this.nodeTicks[node] = ticks;
+		this.nodeHealth[node] = health;
+		this.nodeDamage[node] = damage;
+		this.nodeParents[node] = parent;
+		this.nodeClosed[node] = false;
+
+		// Keep the table at most half full
+		if (this.noOfNodes * 2 > this.tableNodes.length)
+			this.growTable();
+		else
+			this.insert(state, node);
+		this.open(node, cost, estimate);
+	}
+
+	/**
+	 * Returns the node with the given state
+	 * @param state The state
+	 * @return The node (-1 if there is none)
+	 */
+	private int findNode(long state)
+	{
+		int mask = this.tableNodes.length - 1;
+		for (int slot = hash(state) & mask;; slot = (slot + 1) & mask)
+		{
+			if (this.tableNodes[slot] == 0)
+				return -1;
+			if (this.tableStates[slot] == state)
+				return this.tableNodes[slot] - 1;
+		}
+	}
+
+	/**
+	 * Adds a node to the table
+	 * @param state Its state
+	 * @param node The node
+	 */
+	private void insert(long state, int node)
+	{
+		int mask = this.tableNodes.length - 1;
+		int slot = hash(state) & mask;
+		while (this.tableNodes[slot] != 0)
+			slot = (slot + 1) & mask;
+		this.tableStates[slot] = state;
+		this.tableNodes[slot] = node + 1;
+	}
+
+	/**
+	 * Doubles the size of the table and adds every node to it again
+	 */
+	private void growTable()
+	{
+		this.tableStates = new long[this.tableStates.length * 2];
+		this.tableNodes = new int[this.tableNodes.length * 2];
+		for (int node = 0; node < this.noOfNodes; node++)
+			this.insert(this.nodeStates[node], node);
+	}
+
+	/**
+	 * Scrambles a state for the table
+	 * @param state The state
+	 * @return The hash
+	 */
+	private static int hash(long state)
+	{
+		long value = state * 0x9E3779B97F4A7C15L;
+		return (int) (value ^ (value >>> 32));
+	}
+
+	/**
+	 * Puts a node in the open set
+	 * @param node The node
+	 * @param cost Its cost from the Robot
+	 * @param estimate Its estimated cost to the exit
+	 */
+	private void open(int node, int cost, int estimate)
+	{
+		this.push((long) (cost + estimate) << NODE_BITS + ESTIMATE_BITS
+				| (long) Math.min(estimate, (1 << ESTIMATE_BITS) - 1) << NODE_BITS
+				| node);
+	}
+
+	/**
+	 * Adds an entry to the open set
+	 * @param entry The entry (see open())
+	 */
+	private void push(long entry)
+	{
+		if (this.heapSize == this.heap.length)
+			this.heap = Arrays.copyOf(this.heap, this.heapSize * 2);
+		int position = this.heapSize++;
+		while (position > 0)
+		{
+			int parent = (position - 1) >> 1;
+			if (this.heap[parent] <= entry)
+				break;
+			this.heap[position] = this.heap[parent];
+			position = parent;
+		}
+		this.heap[position] = entry;
+	}
+
+	/**
+	 * Takes the entry with the lowest estimated total cost from the open set
+	 * (entries for nodes that were reached more cheaply later are left in
+	 * and skipped)
+	 * @return The entry
+	 */
+	private long pop()
+	{
+		long top = this.heap[0];
+		long last = this.heap[--this.heapSize];
+		int position = 0;
+		while (true)
+		{
+			int child = position * 2 + 1;
+			if (child >= this.heapSize)
+				break;
+			if (child + 1 < this.heapSize
+					&& this.heap[child + 1] < this.heap[child])
+				child++;
+			if (last <= this.heap[child])
+				break;
+			this.heap[position] = this.heap[child];
+			position = child;
+		}
+		this.heap[position] = last;
+		return top;
+	}
+
+	/**
+	 * Getter for the number of paths planned
+	 * @return The number of searches
+	 */
+	public int getNoOfSearches()
+	{
+		return this.noOfSearches;
+	}
+
+	/**
+	 * Getter for the number of states looked at by every search
+	 * @return The number of states
+	 */
+	public long getNodesExpanded()
+	{
+		return this.nodesExpanded;
+	}
+
+	/**
+	 * Getter for the time spent planning paths
+	 * @return The time in nanoseconds
+	 */
+	public long getSearchTime()
+	{
+		return this.searchTime;
+	}
+
+	/**
+	 * Solves each given level file (or every shipped level) with a Robot
+	 * with -Dsolver.health (1000) and -Dsolver.damage (20) and prints how it
+	 * went; Exits with 1 if any level couldn't be won
+	 * @param args The level files
+	 */
+	public static void main(String[] args)
+	{
+		int health = Integer.getInteger("solver.health", 1000);
+		int damage = Integer.getInteger("solver.damage", 20);
+		List<String> fileNames = new ArrayList<String>(Arrays.asList(args));
+		if (fileNames.isEmpty())
+		{
+			for (int level = 1; new File("Level" + level + ".rbcq").exists()
+					|| new File("Level" + level + ".rbcb").exists(); level++)
+				fileNames.add(Game.getLevelFileName(level));
+		}
+
+		boolean allWon = true;
+		for (String fileName : fileNames)
+		{
+			GameEngine engine = new GameEngine(health, damage);
+			try
+			{
+				if (!engine.loadGrid(fileName))
+				{
+					System.out.println(fileName + ": doesn't load");
+					allWon = false;
+					continue;
+				}
+			}
+			catch (FileNotFoundException e)
+			{
+				System.out.println(fileName + ": " + e.getMessage());
+				allWon = false;
+				continue;
+			}
+			long start = System.nanoTime();
+			Solver solver = new Solver(engine);
+			int state = solver.solve();
+			long time = System.nanoTime() - start;
+			engine.close();
+			allWon &= state == GameEngine.WON;
+			System.out.printf("%s: %s after %d ticks, %d s left, health %d,"
+					+ " %d searches of %d states in %.1f ms (%.1f ms in"
+					+ " total)%n", fileName, state == GameEngine.WON ? "won"
+					: "not won (state " + state + ")", engine.getTick(),
+					engine.getTimeLeft(), engine.getRobot().getHealth(),
+					solver.getNoOfSearches(), solver.getNodesExpanded(),
+					solver.getSearchTime() / 1000000.0, time / 1000000.0);
+		}
+		if (!allWon)
+			System.exit(1);
+	}
+}
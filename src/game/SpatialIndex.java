@@ -0,0 +1,263 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of the squares of a Grid that hold something of interest (for
+ * example hidden objects or Enemy objects) by dividing the Grid into buckets
+ * of BUCKET_WIDTH by BUCKET_WIDTH squares; A radius query only looks at the
+ * squares stored in the buckets it overlaps instead of every square around
+ * the centre, so it doesn't get slower with bigger grids or radii
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class SpatialIndex
+{
+	// Each bucket covers 8 x 8 squares
+	private static final int BUCKET_SHIFT = 3;
+	public static final int BUCKET_WIDTH = 1 << BUCKET_SHIFT;
+
+	private int rows;
+	private int columns;
+	private int bucketColumns;
+	private int[][] buckets;
+	private int[] bucketSizes;
+	private int size;
+
+	// Filled by query() so callers can change the index while looking at them
+	private int[] results;
+
+	/**
+	 * Creates an empty index for a Grid of the given size
+	 * @param rows The number of rows in the Grid
+	 * @param columns The number of columns in the Grid
+	 */
+	public SpatialIndex(int rows, int columns)
+	{
+		this.rows = rows;
+		this.columns = columns;
+		this.bucketColumns = (columns + BUCKET_WIDTH - 1) >> BUCKET_SHIFT;
+		int bucketRows = (rows + BUCKET_WIDTH - 1) >> BUCKET_SHIFT;
+		this.buckets = new int[bucketRows * this.bucketColumns][];
+		this.bucketSizes = new int[this.buckets.length];
+		this.results = new int[16];
+	}
+
+	/**
+	 * Creates a copy of the given index that can be changed on its own
+	 * @param index The index to copy
+	 */
+	public SpatialIndex(SpatialIndex index)
+	{
+		this.rows = index.rows;
+		this.columns = index.columns;
+		this.bucketColumns = index.bucketColumns;
+		this.buckets = new int[index.buckets.length][];
+		for (int bucket = 0; bucket < this.buckets.length; bucket++)
+		{
+			if (index.buckets[bucket] != null)
+				this.buckets[bucket] = index.buckets[bucket].clone();
+		}
+		this.bucketSizes = index.bucketSizes.clone();
+		this.size = index.size;
+		this.results = new int[16];
+	}
+
+	/**
+	 * Returns the bucket holding the given square
+	 * @param cell The index of the square
+	 * @return The index of the bucket
+	 */
+	private int bucket(int cell)
+	{
+		return ((cell / this.columns) >> BUCKET_SHIFT) * this.bucketColumns
+				+ ((cell % this.columns) >> BUCKET_SHIFT);
+	}
+
+	/**
+	 * Adds the given square to the index (squares already in it are ignored)
+	 * @param cell The index of the square
+	 */
+	public void add(int cell)
+	{
+		int bucket = this.bucket(cell);
+		if (this.find(bucket, cell) != -1)
+			return;
+		if (this.buckets[bucket] == null)
+			this.buckets[bucket] = new int[4];
+		else if (this.bucketSizes[bucket] == this.buckets[bucket].length)
+		{
+			int[] cells = new int[this.buckets[bucket].length * 2];
+			System.arraycopy(this.buckets[bucket], 0, cells, 0,
+					this.bucketSizes[bucket]);
+			this.buckets[bucket] = cells;
+		}
+		this.buckets[bucket][this.bucketSizes[bucket]++] = cell;
+		this.size++;
+	}
+
+	/**
+	 * Removes the given square from the index (if it is in it)
+	 * @param cell The index of the square
+	 */
+	public void remove(int cell)
+	{
+		int bucket = this.bucket(cell);
+		int position = this.find(bucket, cell);
+		if (position == -1)
+			return;
+
+		// The order inside a bucket doesn't matter, so the last square fills
+		// the gap
+		this.bucketSizes[bucket]--;
+		int[] cells = this.buckets[bucket];
+		cells[position] = cells[this.bucketSizes[bucket]];
+		this.size--;
+	}
+
+	/**
+	 * Checks if the given square is in the index
+	 * @param cell The index of the square
+	 * @return Whether or not the square was added (and not removed)
+	 */
+	public boolean contains(int cell)
+	{
+		return this.find(this.bucket(cell), cell) != -1;
+	}
+
+	/**
+	 * Looks for the given square in the given bucket
+	 * @param bucket The index of the bucket
+	 * @param cell The index of the square
+	 * @return The position of the square in the bucket (-1 if it isn't there)
+	 */
+	private int find(int bucket, int cell)
+	{
+		int[] cells = this.buckets[bucket];
+		for (int position = 0; position < this.bucketSizes[bucket]; position++)
+		{
+			if (cells[position] == cell)
+				return position;
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds every square in the index within the given radius of the given
+	 * position; The squares found are read (in row by row order) with
+	 * getResult() and stay valid until the next query, even if the index is
+	 * changed in between
+	 * @param row The row of the centre
+	 * @param column The column of the centre
+	 * @param radius The number of squares to look in each direction
+	 * @param diagonal Whether to look at the whole square around the centre
+	 *            (true) or only along its row and column (false)
+	 * @return The number of squares found
+	 */
+	public int query(int row, int column, int radius, boolean diagonal)
+	{
+		if (radius < 0)
+			return 0;
+		return this.collect(row - radius, column - radius, row + radius,
+				column + radius, !diagonal, row, column);
+	}
+
+	/**
+	 * Finds every square in the index inside the given rectangle (read the
+	 * same way as query())
+	 * @param firstRow The top row of the rectangle
+	 * @param firstColumn The left column of the rectangle
+	 * @param lastRow The bottom row of the rectangle
+	 * @param lastColumn The right column of the rectangle
+	 * @return The number of squares found
+	 */
+	public int queryArea(int firstRow, int firstColumn, int lastRow,
+			int lastColumn)
+	{
+		return this.collect(firstRow, firstColumn, lastRow, lastColumn,
+				false, 0, 0);
+	}
+
+	/**
+	 * Collects the squares inside the given rectangle into the results
+	 * @param firstRow The top row of the rectangle
+	 * @param firstColumn The left column of the rectangle
+	 * @param lastRow The bottom row of the rectangle
+	 * @param lastColumn The right column of the rectangle
+	 * @param cross Whether to only collect squares in the given row or column
+	 * @param row The row used with cross
+	 * @param column The column used with cross
+	 * @return The number of squares found
+	 */
+	private int collect(int firstRow, int firstColumn, int lastRow,
+			int lastColumn, boolean cross, int row, int column)
+	{
+		int found = 0;
+		if (this.size == 0)
+			return found;
+
+		// Only the buckets overlapping the (clamped) rectangle are looked at
+		firstRow = Math.max(firstRow, 0);
+		lastRow = Math.min(lastRow, this.rows - 1);
+		firstColumn = Math.max(firstColumn, 0);
+		lastColumn = Math.min(lastColumn, this.columns - 1);
+		if (firstRow > lastRow || firstColumn > lastColumn)
+			return found;
+		int lastBucketRow = lastRow >> BUCKET_SHIFT;
+		int lastBucketColumn = lastColumn >> BUCKET_SHIFT;
+		for (int bucketRow = firstRow >> BUCKET_SHIFT; bucketRow <= lastBucketRow; bucketRow++)
+		{
+			for (int bucketColumn = firstColumn >> BUCKET_SHIFT; bucketColumn <= lastBucketColumn; bucketColumn++)
+			{
+				int bucket = bucketRow * this.bucketColumns + bucketColumn;
+				int[] cells = this.buckets[bucket];
+				int bucketSize = this.bucketSizes[bucket];
+				for (int position = 0; position < bucketSize; position++)
+				{
+					int cell = cells[position];
+					int cellRow = cell / this.columns;
+					int cellColumn = cell % this.columns;
+					if (cellRow < firstRow || cellRow > lastRow
+							|| cellColumn < firstColumn
+							|| cellColumn > lastColumn)
+						continue;
+					if (cross && cellRow != row && cellColumn != column)
+						continue;
+
+					if (found == this.results.length)
+					{
+						int[] results = new int[this.results.length * 2];
+						System.arraycopy(this.results, 0, results, 0, found);
+						this.results = results;
+					}
+					this.results[found++] = cell;
+				}
+			}
+		}
+
+		// Return the squares in row by row order no matter how they were added
+		Arrays.sort(this.results, 0, found);
+		return found;
+	}
+
+	/**
+	 * Returns a square found by the last query()
+	 * @param result The position of the result (0 to the number found - 1)
+	 * @return The index of the square
+	 */
+	public int getResult(int result)
+	{
+		return this.results[result];
+	}
+
+	/**
+	 * Getter for the number of squares in the index
+	 * @return The number of squares
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+}
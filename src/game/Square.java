@@ -1,127 +1,46 @@
 package game;
 
 /**
- * Keeps track of each square in the grid including the pictures to be shown and
- * the objects contained within the square
- * 
+ * A view of a single square in the Grid including the pictures to be shown and
+ * the objects contained within the square (the state itself is stored in the
+ * Grid's arrays)
+ *
  * @author Bimesh De Silva
  * @version January 2015
  *
  */
 public class Square
 {
-	// Create variables to keep track of
-	public int itemImgRef;
-	private char overlay;
-	private GamePanel gamePanel;
-	private Location location;
-	private boolean isEnterable;
-	private boolean isDirectionHere;
-	private boolean isRockHere;
-	private boolean isItemHere;
-	private boolean isRobotHere;
-	private boolean isEnemyHere;
-	private boolean isStartHere;
-	private boolean isExitHere;
-	private Direction direction;
-	private Enemy enemy;
-	private Game game;
-	private Item item;
+	private Grid grid;
+	private int cell;
 
 	/**
-	 * Constructor for each Square of the grid
-	 * @param object	The constant representation (Game class)
-	 * @param game		The JFrame
-	 * @param gamePanel	The JPanel
-	 * @param row		The row position on the grid
-	 * @param column	The column position on the grid
+	 * Constructor for a view of a Square of the grid
+	 * @param grid	The Grid storing the square
+	 * @param cell	The index of the square in the Grid
 	 */
-	public Square(char object, Game game, GamePanel gamePanel, int row, int column)
+	public Square(Grid grid, int cell)
 	{
-		this.game = game;
-		this.gamePanel = gamePanel;
-		this.location = new Location(row, column);
-		this.overlay = object;
-		System.out.println("\nOverlay: " + this.overlay);
-		this.itemImgRef = (int) (object - game.OPEN);
-		System.out.println("ImgItemRef: " + this.itemImgRef);
-		this.adjust();
-		System.out.println("After adjust; ImageItemRef: " + this.itemImgRef);
+		this.grid = grid;
+		this.cell = cell;
 	}
-	
+
 	/**
 	 * Returns the overlay of the Square
-	 * @return
+	 * @return The constant representation (Game class)
 	 */
 	public char getOverlay()
 	{
-		return this.overlay;
+		return this.grid.getOverlay(this.cell);
 	}
 
 	/**
-	 * Sets variables to current values based on pre-set variables
+	 * Returns the Image reference of the Square
+	 * @return The position of the image in GamePanel's images (0 for none)
 	 */
-	private void adjust()
+	public int getImageRef()
 	{
-		// Open
-		if (this.overlay == game.OPEN)
-		{
-			this.isEnterable = true;
-		}
-		// Direction Marker
-		else if (this.overlay >= game.NORTH_ONLY
-				&& this.overlay <= game.WEST_ONLY)
-		{
-			this.isDirectionHere = true;
-			this.isEnterable = true;
-			if (this.overlay == game.NORTH_ONLY)
-				this.direction = Direction.NORTH;
-			else if (this.overlay == game.EAST_ONLY)
-				this.direction = Direction.EAST;
-			else if (this.overlay == game.SOUTH_ONLY)
-				this.direction = Direction.SOUTH;
-			else
-				this.direction = Direction.WEST;
-		}
-		//Wall
-		else if (this.overlay == game.WALL)
-		{
-			this.isRockHere = true;
-		}
-		//Start
-		else if (this.overlay == game.START)
-		{
-			this.isRobotHere = true;
-			this.isStartHere = true;
-			this.isEnterable = true;
-		}
-		//Exit
-		else if (this.overlay == game.END)
-		{
-			this.isExitHere = true;
-		}
-		//Item
-		else if (this.overlay >= game.DAMAGE_BOOST && this.overlay <= game.KEY)
-		{
-			this.itemImgRef = 0;
-			this.isItemHere = true;
-			this.item = new Item(this.overlay);
-			
-			if (this.overlay == game.KEY)
-				this.game.addKey();
-		}
-		//Enemy
-		else if (this.overlay == game.BOSS || this.overlay == game.HIDDEN_ENEMY
-				|| this.overlay == game.ENEMY)
-		{
-			if (this.overlay == game.HIDDEN_ENEMY)
-			{
-				this.itemImgRef = 0;
-			}
-			this.enemy = new Enemy(this.overlay, this.game, this.location, gamePanel, this);
-			this.isEnemyHere = true;
-			game.addEnemy(this.enemy);
-		}
+		return this.grid.getImageRef(this.cell);
 	}
 
 	/**
@@ -129,11 +48,7 @@ public class Square
 	 */
 	public void exitUnlocked()
 	{
-		if (this.overlay == game.END)
-		{
-			this.itemImgRef++;
-			this.isEnterable = true;
-		}
+		this.grid.exitUnlocked(this.cell);
 	}
 
 	/**
@@ -141,8 +56,7 @@ public class Square
 	 */
 	public void itemDetected()
 	{
-		this.itemImgRef = (int) (game.REVEALED_IMAGE - game.OPEN);
-		this.isEnterable = true;
+		this.grid.itemDetected(this.cell);
 	}
 
 	/**
@@ -150,10 +64,7 @@ public class Square
 	 */
 	public Item itemPickedUp()
 	{
-		this.isItemHere = false;
-		this.overlay = game.OPEN;
-		this.itemImgRef = 0;
-		return this.item;
+		return this.grid.itemPickedUp(this.cell);
 	}
 
 	/**
@@ -161,12 +72,7 @@ public class Square
 	 */
 	public void enemyDetected()
 	{
-		if (this.overlay == game.HIDDEN_ENEMY)
-		{
-			this.overlay = game.ENEMY;
-			this.itemImgRef = (int) (this.overlay - game.OPEN);
-			this.enemy.detected();
-		}
+		this.grid.enemyDetected(this.cell);
 	}
 
 	/**
@@ -174,11 +80,7 @@ public class Square
 	 */
 	public void enemyDefeated()
 	{
-		this.isEnterable = true;
-		this.itemImgRef = 0;
-		this.isEnemyHere = false;
-		this.overlay = game.OPEN;
-		this.enemy = null;
+		this.grid.enemyDefeated(this.cell);
 	}
 
 	/**
@@ -187,7 +89,7 @@ public class Square
 	 */
 	public boolean isDirectionHere()
 	{
-		return this.isDirectionHere;
+		return this.grid.isDirectionHere(this.cell);
 	}
 
 	/**
@@ -196,7 +98,7 @@ public class Square
 	 */
 	public Direction passableDirection()
 	{
-		return this.direction;
+		return this.grid.passableDirection(this.cell);
 	}
 
 	/**
@@ -205,7 +107,7 @@ public class Square
 	 */
 	public boolean isEmpty()
 	{
-		return this.isEnterable;
+		return this.grid.isEmpty(this.cell);
 	}
 
 	/**
@@ -214,16 +116,7 @@ public class Square
 	 */
 	public boolean isEnemyHere()
 	{
-		return this.isEnemyHere;
-	}
-
-	/**
-	 * Getter for isRobotHere
-	 * @return If a Robot is here
-	 */
-	public boolean isRobotHere()
-	{
-		return this.isRobotHere;
+		return this.grid.isEnemyHere(this.cell);
 	}
 
 	/**
@@ -232,7 +125,7 @@ public class Square
 	 */
 	public boolean isItemHere()
 	{
-		return this.isItemHere;
+		return this.grid.isItemHere(this.cell);
 	}
 
 	/**
@@ -241,7 +134,7 @@ public class Square
 	 */
 	public boolean isStartHere()
 	{
-		return this.isStartHere;
+		return this.grid.isStartHere(this.cell);
 	}
 
 	/**
@@ -250,7 +143,7 @@ public class Square
 	 */
 	public boolean isExitHere()
 	{
-		return this.isExitHere;
+		return this.grid.isExitHere(this.cell);
 	}
 
 	/**
@@ -259,7 +152,7 @@ public class Square
 	 */
 	public boolean isRockHere()
 	{
-		return this.isRockHere;
+		return this.grid.isRockHere(this.cell);
 	}
 
 	/**
@@ -268,6 +161,6 @@ public class Square
 	 */
 	public Enemy getEnemy()
 	{
-		return this.enemy;
+		return this.grid.getEnemy(this.cell);
 	}
 }
@@ -5,45 +5,49 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Rectangle;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 
 import javax.swing.JPanel;
-import javax.swing.Timer;
 
 /**
  * Displays important information to the User during a level (i.e Robot health)
+ * Only draws the values copied from the latest FrameSnapshot (the GameEngine's
+ * clock is advanced by the thread stepping it)
  * 
  * @author Bimesh De Silva
  * @version January 2015
  */
-public class StatusBar extends JPanel implements ActionListener, MouseListener
+public class StatusBar extends JPanel implements MouseListener
 {
 	private Game game;
 	private GamePanel gamePanel;
+	private int timeLeft;
+	private int currentKeys;
+	private int requiredKeys;
 	private int barWidth;
 	private int height, width;
-	private Robot robot;
 	private int robotHealthPercentage;
 	private int[] rowPositions;
-	private final int delay = 1000;
 	private static final int SMALL_HEIGHT = 50;
 	private static final int LARGE_HEIGHT = 100;
-	private static final int MAX_GAME_TIME = 4 * 60;
+	public static final int MAX_GAME_TIME = GameEngine.MAX_GAME_TIME;
 	public static final int MARGIN = 20;
 	private static final String MENU_TEXT = "Open Menu";
 	private MenuItem menu;
 	private String playerName;
-	private int gameTimeSeconds;
-	private int gameTimeMinutes;
 	private int level;
 	private String levelText;
 	private Rectangle timeBox;
-	private Timer timer;
 	private String time = "";
-	private boolean paused;
+
+	// The metrics overlay (toggled with F3) and the values it was last
+	// updated from
+	private boolean showOverlay = Metrics.SHOW_OVERLAY;
+	private String[] overlay = { "Measuring...", "", "" };
+	private Histogram lastFrames;
+	private long lastBytes;
+	private long lastOverlayUpdate;
 
 	/**
 	 * Constructor for StatusBar
@@ -63,12 +67,9 @@ public class StatusBar extends JPanel implements ActionListener, MouseListener
 	public void loadData()
 	{
 		// Get data from the Main JPanel
-		this.robot = gamePanel.getRobot();
 		this.height = gamePanel.getWidth();
 		this.width = this.height / 3;
 		this.barWidth = this.width - (MARGIN * 2);
-		this.robotHealthPercentage = (robot.getHealth() * 100)
-				/ robot.MAX_HEALTH;
 
 		// Sets up size and layout (y positions for menu buttons)
 		this.setPreferredSize(new Dimension(this.width, this.height));
@@ -97,83 +98,82 @@ public class StatusBar extends JPanel implements ActionListener, MouseListener
 		this.addMouseListener(this);
 	}
 
-	/**
-	 * Called to start the Timer and start doing damage to Robot
-	 */
-	public void start()
-	{
-		this.gameTimeMinutes = MAX_GAME_TIME / 60;
-		this.gameTimeSeconds = 0;
-		this.paused = false;
-		this.timer = new Timer(delay, this);
-		this.timer.start();
-	}
-
 	/**
 	 * Return the current time left
 	 * @return the current time left
 	 */
 	public int getTimeLeft()
 	{
-		return ((this.gameTimeMinutes * 60) + this.gameTimeSeconds);
+		return this.timeLeft;
 	}
 
 	/**
-	 * Updates StatusBar information with a new time and potential health
-	 * changes
+	 * Updates StatusBar information with the GameEngine's time and health;
+	 * called by GamePanel whenever they change
+	 * @param status The FrameSnapshot holding the new values (which are copied,
+	 *            since it is reused once the next one is taken)
 	 */
-	public void update()
+	public void update(FrameSnapshot status)
 	{
-		if (gameTimeMinutes >= 0)
+		long start = System.nanoTime();
+		this.timeLeft = status.getTimeLeft();
+		this.currentKeys = status.getCurrentKeys();
+		this.requiredKeys = status.getRequiredKeys();
+		int health = status.getRobotHealth();
+		this.robotHealthPercentage = (health * 100)
+				/ status.getRobotMaxHealth();
+		if (this.robotHealthPercentage == 0 && health != 0)
 		{
-			int health = robot.getHealth();
-			this.robotHealthPercentage = (health * 100)
-					/ robot.MAX_HEALTH;
-			if (this.robotHealthPercentage == 0 && health != 0)
-			{
-				this.robotHealthPercentage = 1;
-			}
-
-			this.repaint();
-
-			// Health drain on Robot (After repaint() because it prevents full
-			// health image otherwise)
-			this.robot.loseHealth(gamePanel.HEALTH_DRAIN);
-		}
-		else
-		{
-			gamePanel.setState(-2);
-			gamePanel.endGame();
+			this.robotHealthPercentage = 1;
 		}
+		int timeLeft = Math.max(this.timeLeft, 0);
+		this.time = String.format("%02d:%02d", timeLeft / 60, timeLeft % 60);
+		if (this.showOverlay)
+			this.updateOverlay(start);
+		this.repaint();
+		Metrics.STATUS_UPDATE.recordSince(start);
 	}
 
 	/**
-	 * Specifically called to update the time variable
+	 * Updates the metrics overlay with the frames drawn and memory allocated
+	 * since it was last updated
+	 * @param now The current time (from System.nanoTime())
 	 */
-	private void updateTime()
+	private void updateOverlay(long now)
 	{
-		if (!paused)
+		Histogram frames = Metrics.FRAME.copy();
+		long bytes = Metrics.getAllocatedBytes();
+		if (this.lastFrames != null && now > this.lastOverlayUpdate)
 		{
-			// Adjust remaining time
-			if (this.gameTimeSeconds <= 0)
-			{
-				this.gameTimeMinutes--;
-				this.gameTimeSeconds = 59;
-			}
+			double seconds = (now - this.lastOverlayUpdate) / 1000000000.0;
+			Histogram recent = frames.since(this.lastFrames);
+			this.overlay[0] = String.format("FPS %.0f",
+					recent.getCount() / seconds);
+			this.overlay[1] = "Frame " + Metrics.toMillis(recent
+					.getPercentile(50)) + "/"
+					+ Metrics.toMillis(recent.getPercentile(99)) + " ms";
+			if (bytes < 0 || this.lastBytes < 0)
+				this.overlay[2] = "Alloc n/a";
 			else
-				this.gameTimeSeconds--;
-			this.time = String.format("%02d:%02d", this.gameTimeMinutes,
-					this.gameTimeSeconds);
-			this.update();
+				this.overlay[2] = String.format("Alloc %.1f MB/s", Math.max(
+						bytes - this.lastBytes, 0) / seconds / (1024 * 1024));
 		}
+		this.lastFrames = frames;
+		this.lastBytes = bytes;
+		this.lastOverlayUpdate = now;
 	}
 
 	/**
-	 * Ends calling actionPerformed() method
+	 * Shows or hides the metrics overlay
 	 */
-	public void gameOver()
+	public void toggleOverlay()
 	{
-		this.timer.stop();
+		this.showOverlay = !this.showOverlay;
+		this.lastFrames = null;
+		this.overlay = new String[] { "Measuring...", "", "" };
+		if (this.showOverlay)
+			this.updateOverlay(System.nanoTime());
+		this.repaint();
 	}
 
 	/**
@@ -211,9 +211,9 @@ public class StatusBar extends JPanel implements ActionListener, MouseListener
 		g.drawString("Health", 30, this.rowPositions[6]);
 
 		g.setFont(new Font("Courier New", Font.BOLD, 20));
-		g.drawString("Keys Required: " + this.gamePanel.getRequiredKeys(), 20,
+		g.drawString("Keys Required: " + this.requiredKeys, 20,
 				this.rowPositions[9]);
-		g.drawString("Keys Found: " + this.gamePanel.getCurrentKeys(), 20,
+		g.drawString("Keys Found: " + this.currentKeys, 20,
 				this.rowPositions[10]);
 
 		// Draw Separators
@@ -222,6 +222,16 @@ public class StatusBar extends JPanel implements ActionListener, MouseListener
 
 		// Draw menu rectangle (acting as a button)
 		this.menu.draw(g);
+
+		// Draw the metrics overlay (frame times are p50/p99)
+		if (this.showOverlay)
+		{
+			g.setColor(Color.DARK_GRAY);
+			g.setFont(new Font("Courier New", Font.PLAIN, 14));
+			for (int line = 0; line < this.overlay.length; line++)
+				g.drawString(this.overlay[line], 20, this.rowPositions[10]
+						+ 20 + line * 16);
+		}
 	}
 
 	/**
@@ -232,32 +242,14 @@ public class StatusBar extends JPanel implements ActionListener, MouseListener
 		this.paintImmediately(timeBox);
 	}
 
-	/**
-	 * Called every Timer tick to update variables
-	 * @Override Abstract actionPerformed() method in ActionListener
-	 */
-	public void actionPerformed(ActionEvent e)
-	{
-		this.updateTime();
-	}
-
 	/**
 	 * Open's Menu in the GamePanel JPanel
 	 */
 	public void openMenu()
 	{
-		this.paused = true;
 		gamePanel.drawMenu();
 	}
 
-	/**
-	 * Called when Menu is closes to resume Timer events
-	 */
-	public void menuClosed()
-	{
-		this.paused = false;
-	}
-
 	/**
 	 * Receives MouseEvents and checks if Menu button was clicked
 	 * @Override Abstract MouseClicked() method in MouseListener
@@ -0,0 +1,167 @@
+package game;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+
+/**
+ * Every game play image scaled once to the square width and packed side by
+ * side into one display compatible sheet; Drawing a tile is then a plain copy
+ * of a sub-rectangle instead of scaling the original image every repaint
+ *
+ * @author Bimesh De Silva
+ * @version January 2015
+ *
+ */
+public class TileAtlas
+{
+	private static HashMap<Integer, TileAtlas> atlases = new HashMap<Integer, TileAtlas>();
+
+	private BufferedImage sheet;
+	private BufferedImage background;
+	private int tileWidth;
+	private int robotOffset;
+
+	/**
+	 * Returns the TileAtlas for the given square width, building it the first
+	 * time
+	 * @param tileWidth The width (and height) of each tile
+	 * @param backgroundWidth The width (and height) of the background
+	 * @param images The game play images (images[0] is the background)
+	 * @param robotImages The Robot images (one per Direction)
+	 * @return The shared TileAtlas
+	 */
+	public static synchronized TileAtlas getAtlas(int tileWidth,
+			int backgroundWidth, BufferedImage[] images,
+			BufferedImage[] robotImages)
+	{
+		TileAtlas atlas = atlases.get(tileWidth);
+		if (atlas == null || atlas.background.getWidth() != backgroundWidth)
+		{
+			atlas = new TileAtlas(tileWidth, backgroundWidth, images,
+					robotImages);
+			atlases.put(tileWidth, atlas);
+		}
+		return atlas;
+	}
+
+	/**
+	 * Builds the sheet by scaling each image into its own tile
+	 * @param tileWidth The width (and height) of each tile
+	 * @param backgroundWidth The width (and height) of the background
+	 * @param images The game play images (images[0] is the background)
+	 * @param robotImages The Robot images (one per Direction)
+	 */
+	private TileAtlas(int tileWidth, int backgroundWidth,
+			BufferedImage[] images, BufferedImage[] robotImages)
+	{
+		this.tileWidth = tileWidth;
+		this.robotOffset = images.length;
+		this.sheet = createImage(tileWidth
+				* (images.length + robotImages.length), tileWidth);
+		Graphics2D g = this.sheet.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+				RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+		for (int tile = 1; tile < images.length; tile++)
+		{
+			if (images[tile] != null)
+				g.drawImage(images[tile], tile * tileWidth, 0, tileWidth,
+						tileWidth, null);
+		}
+		for (int tile = 0; tile < robotImages.length; tile++)
+		{
+			if (robotImages[tile] != null)
+				g.drawImage(robotImages[tile], (this.robotOffset + tile)
+						* tileWidth, 0, tileWidth, tileWidth, null);
+		}
+		g.dispose();
+
+		// The background is drawn once at the size of the game play area
+		this.background = createImage(backgroundWidth, backgroundWidth);
+		g = this.background.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+				RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+		if (images[0] != null)
+			g.drawImage(images[0], 0, 0, backgroundWidth, backgroundWidth,
+					null);
+		g.dispose();
+	}
+
+	/**
+	 * Creates a translucent image in the screen's format (if there is one)
+	 * @param width The width of the image
+	 * @param height The height of the image
+	 * @return The new image
+	 */
+	private static BufferedImage createImage(int width, int height)
+	{
+		if (GraphicsEnvironment.isHeadless())
+			return new BufferedImage(width, height,
+					BufferedImage.TYPE_INT_ARGB_PRE);
+		GraphicsConfiguration config = GraphicsEnvironment
+				.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+				.getDefaultConfiguration();
+		return config.createCompatibleImage(width, height,
+				Transparency.TRANSLUCENT);
+	}
+
+	/**
+	 * Draws the given game play tile without scaling
+	 * @param g The Graphics object
+	 * @param tile The position of the image in GamePanel's images
+	 * @param x The x coordinate to draw at
+	 * @param y The y coordinate to draw at
+	 */
+	public void drawTile(Graphics g, int tile, int x, int y)
+	{
+		int sourceX = tile * this.tileWidth;
+		g.drawImage(this.sheet, x, y, x + this.tileWidth, y + this.tileWidth,
+				sourceX, 0, sourceX + this.tileWidth, this.tileWidth, null);
+	}
+
+	/**
+	 * Draws the Robot image for the given Direction without scaling
+	 * @param g The Graphics object
+	 * @param direction The Direction the Robot is facing
+	 * @param x The x coordinate to draw at
+	 * @param y The y coordinate to draw at
+	 */
+	public void drawRobot(Graphics g, Direction direction, int x, int y)
+	{
+		this.drawTile(g, this.robotOffset + direction.number(), x, y);
+	}
+
+	/**
+	 * Draws the pre-scaled background
+	 * @param g The Graphics object
+	 * @param x The x coordinate to draw at
+	 * @param y The y coordinate to draw at
+	 */
+	public void drawBackground(Graphics g, int x, int y)
+	{
+		g.drawImage(this.background, x, y, null);
+	}
+
+	/**
+	 * Getter for the width of the background
+	 * @return The width (and height) of the pre-scaled background
+	 */
+	public int getBackgroundWidth()
+	{
+		return this.background.getWidth();
+	}
+
+	/**
+	 * Getter for the width of each tile
+	 * @return The width (and height) of each tile
+	 */
+	public int getTileWidth()
+	{
+		return this.tileWidth;
+	}
+}